@@ -0,0 +1,93 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.benchmarks;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reports the voluntary and involuntary context switches per operation of the benchmark JVM.
+ * The counts are summed over the threads listed in /proc/self/task, so the profiler reports nothing
+ * on systems without procfs. Threads that terminate during an iteration are not counted.
+ */
+public class ContextSwitchProfiler implements InternalProfiler {
+    private static final Path TASKS = Path.of("/proc/self/task");
+
+    private long[] before;
+
+    @Override
+    public String getDescription() {
+        return "Context switches per operation, from /proc/self/task";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        before = read();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        long[] after = read();
+        long ops = result.getMetadata().getAllOps();
+        if (before == null || after == null || ops == 0) {
+            return List.of();
+        }
+        return List.of(
+                new ScalarResult("ctxsw.voluntary.norm", (double) (after[0] - before[0]) / ops, "#/op", AggregationPolicy.AVG),
+                new ScalarResult("ctxsw.involuntary.norm", (double) (after[1] - before[1]) / ops, "#/op", AggregationPolicy.AVG));
+    }
+
+    private static long[] read() {
+        if (!Files.isDirectory(TASKS)) {
+            return null;
+        }
+        long[] switches = new long[2];
+        try (DirectoryStream<Path> tasks = Files.newDirectoryStream(TASKS)) {
+            for (Path task : tasks) {
+                try {
+                    for (String line : Files.readAllLines(task.resolve("status"))) {
+                        if (line.startsWith("voluntary_ctxt_switches:")) {
+                            switches[0] += Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+                        } else if (line.startsWith("nonvoluntary_ctxt_switches:")) {
+                            switches[1] += Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+                        }
+                    }
+                } catch (IOException e) {
+                    // The thread terminated while the tasks were listed.
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return switches;
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.benchmarks;
+
+import com.permguard.pep.builder.AZAtomicRequestBuilder;
+import com.permguard.pep.builder.AZRequestBuilder;
+import com.permguard.pep.builder.ActionBuilder;
+import com.permguard.pep.builder.EvaluationBuilder;
+import com.permguard.pep.builder.PrincipalBuilder;
+import com.permguard.pep.builder.ResourceBuilder;
+import com.permguard.pep.builder.SubjectBuilder;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.request.Action;
+import com.permguard.pep.model.request.Entities;
+import com.permguard.pep.model.request.Principal;
+import com.permguard.pep.model.request.Subject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Factory of benchmark payloads of configurable size.
+ */
+public final class Payloads {
+    public static final long ZONE_ID = 646309364259L;
+    public static final String POLICY_STORE_ID = "917e468442634c5486319ca6f09475e8";
+
+    private Payloads() {
+    }
+
+    /**
+     * Creates a property map with a mix of boolean, number and string values.
+     *
+     * @param count The number of properties on each level.
+     * @param depth The number of nesting levels; the last property of each level holds the next level.
+     * @return The property map.
+     */
+    public static Map<String, Object> properties(int count, int depth) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String key = "property" + i;
+            if (i == count - 1 && depth > 1) {
+                properties.put(key, properties(count, depth - 1));
+            } else if (i % 3 == 0) {
+                properties.put(key, i % 2 == 0);
+            } else if (i % 3 == 1) {
+                properties.put(key, i * 1000L);
+            } else {
+                properties.put(key, "value-" + i);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Creates Cedar entities with distinct uids.
+     *
+     * @param count The number of entity items.
+     * @return The entities.
+     */
+    public static Entities entities(int count) {
+        List<Map<String, Object>> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("uid", Map.of("type", "MagicFarmacia::Platform::BranchInfo", "id", "branch-" + i));
+            item.put("attrs", properties(3, 1));
+            item.put("parents", List.of(Map.of("type", "MagicFarmacia::Platform::Tenant", "id", "tenant-" + (i % 4))));
+            items.add(item);
+        }
+        return new Entities("cedar", items);
+    }
+
+    /**
+     * Creates the principal used by all benchmark requests.
+     *
+     * @return The principal.
+     */
+    public static Principal principal() {
+        return new PrincipalBuilder("amy.smith@acmecorp.com")
+                .withType("user")
+                .withSource("keycloak")
+                .build();
+    }
+
+    /**
+     * Creates an atomic request, or a request with evaluations when evaluationCount is greater than zero.
+     *
+     * @param propertyCount   The number of properties on each level of subject, resource, action and context.
+     * @param depth           The nesting depth of the property maps.
+     * @param evaluationCount The number of evaluations; zero creates an atomic request.
+     * @param entityCount     The number of entity items.
+     * @return The request.
+     */
+    public static AZRequest request(int propertyCount, int depth, int evaluationCount, int entityCount) {
+        Entities entities = entities(entityCount);
+        if (evaluationCount == 0) {
+            AZAtomicRequestBuilder builder = new AZAtomicRequestBuilder(ZONE_ID, POLICY_STORE_ID,
+                    "platform-creator", "MagicFarmacia::Platform::Subscription", "MagicFarmacia::Platform::Action::create")
+                    .withRequestId("benchmark")
+                    .withPrincipal(principal())
+                    .withEntitiesItems("cedar", entities)
+                    .withSubjectSource("keycloak")
+                    .withResourceId("e3a786fd07e24bfa95ba4341d3695ae8");
+            properties(propertyCount, depth).forEach(builder::withSubjectProperty);
+            properties(propertyCount, depth).forEach(builder::withResourceProperty);
+            properties(propertyCount, depth).forEach(builder::withActionProperty);
+            properties(propertyCount, depth).forEach(builder::withContextProperty);
+            return builder.build();
+        }
+
+        AZRequestBuilder builder = new AZRequestBuilder(ZONE_ID, POLICY_STORE_ID)
+                .withRequestId("benchmark")
+                .withPrincipal(principal())
+                .withEntitiesItems("cedar", entities);
+        for (int i = 0; i < evaluationCount; i++) {
+            SubjectBuilder subject = new SubjectBuilder("platform-creator").withType("role-actor").withSource("keycloak");
+            ResourceBuilder resource = new ResourceBuilder("MagicFarmacia::Platform::Subscription").withId("resource-" + i);
+            ActionBuilder action = new ActionBuilder("MagicFarmacia::Platform::Action::view");
+            properties(propertyCount, depth).forEach(subject::withProperty);
+            properties(propertyCount, depth).forEach(resource::withProperty);
+            properties(propertyCount, depth).forEach(action::withProperty);
+            builder.withEvaluation(new EvaluationBuilder(subject.build(), resource.build(), action.build())
+                    .withRequestId("evaluation-" + i)
+                    .withContext(properties(propertyCount, depth))
+                    .build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a request whose evaluations share the same subject, action and context objects and differ only
+     * in their resource, as when checking one action of one user on a list of resources.
+     *
+     * @param propertyCount   The number of properties of subject, resource, action and context.
+     * @param evaluationCount The number of evaluations.
+     * @return The request.
+     */
+    public static AZRequest sharedPartsRequest(int propertyCount, int evaluationCount) {
+        SubjectBuilder subject = new SubjectBuilder("platform-creator").withType("role-actor").withSource("keycloak");
+        ActionBuilder action = new ActionBuilder("MagicFarmacia::Platform::Action::view");
+        properties(propertyCount, 1).forEach(subject::withProperty);
+        properties(propertyCount, 1).forEach(action::withProperty);
+        Subject sharedSubject = subject.build();
+        Action sharedAction = action.build();
+        Map<String, Object> sharedContext = properties(propertyCount, 1);
+
+        AZRequestBuilder builder = new AZRequestBuilder(ZONE_ID, POLICY_STORE_ID)
+                .withRequestId("benchmark")
+                .withPrincipal(principal())
+                .withEntitiesItems("cedar", entities(0));
+        for (int i = 0; i < evaluationCount; i++) {
+            ResourceBuilder resource = new ResourceBuilder("MagicFarmacia::Platform::Subscription").withId("resource-" + i);
+            properties(propertyCount, 1).forEach(resource::withProperty);
+            builder.withEvaluation(new EvaluationBuilder(sharedSubject, resource.build(), sharedAction)
+                    .withRequestId("evaluation-" + i)
+                    .withContext(sharedContext)
+                    .build());
+        }
+        return builder.build();
+    }
+}
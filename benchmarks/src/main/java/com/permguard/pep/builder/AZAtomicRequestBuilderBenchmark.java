@@ -0,0 +1,120 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.builder;
+
+import com.google.protobuf.Struct;
+import com.permguard.pep.benchmarks.Payloads;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.request.Entities;
+import com.permguard.pep.model.request.Principal;
+import com.permguard.pep.utils.GrpcStructMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of building an atomic request, as done once per check by typical callers,
+ * with a new builder per request and with a builder reused through {@code reset()}, and of the conversion
+ * of unboxed and boxed long properties to a Struct.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AZAtomicRequestBuilderBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int propertyCount;
+
+    private Principal principal;
+    private Entities entities;
+    private String[] keys;
+    private AZAtomicRequestBuilder reusedBuilder;
+
+    @Setup
+    public void setup() {
+        principal = Payloads.principal();
+        entities = Payloads.entities(1);
+        keys = new String[propertyCount];
+        for (int i = 0; i < propertyCount; i++) {
+            keys[i] = "property" + i;
+        }
+        reusedBuilder = newBuilder();
+    }
+
+    @Benchmark
+    public AZRequest build() {
+        return withPayload(newBuilder()).build();
+    }
+
+    @Benchmark
+    public AZRequest reuse() {
+        return withPayload(reusedBuilder.reset()).build();
+    }
+
+    @Benchmark
+    public Struct longProperties() {
+        AZAtomicRequestBuilder builder = reusedBuilder.reset();
+        for (int i = 0; i < keys.length; i++) {
+            builder.withSubjectProperty(keys[i], 1000L + i);
+        }
+        return GrpcStructMapper.toGrpcStruct(builder.build().getSubject().getProperties());
+    }
+
+    @Benchmark
+    public Struct boxedLongProperties() {
+        AZAtomicRequestBuilder builder = reusedBuilder.reset();
+        for (int i = 0; i < keys.length; i++) {
+            builder.withSubjectProperty(keys[i], (Object) (1000L + i));
+        }
+        return GrpcStructMapper.toGrpcStruct(builder.build().getSubject().getProperties());
+    }
+
+    private AZAtomicRequestBuilder newBuilder() {
+        return new AZAtomicRequestBuilder(Payloads.ZONE_ID, Payloads.POLICY_STORE_ID,
+                "platform-creator", "MagicFarmacia::Platform::Subscription", "MagicFarmacia::Platform::Action::create");
+    }
+
+    private AZAtomicRequestBuilder withPayload(AZAtomicRequestBuilder builder) {
+        builder.withRequestId("benchmark")
+                .withPrincipal(principal)
+                .withEntitiesItems("cedar", entities)
+                .withSubjectSource("keycloak")
+                .withResourceId("e3a786fd07e24bfa95ba4341d3695ae8");
+        for (String key : keys) {
+            builder.withSubjectProperty(key, true)
+                    .withResourceProperty(key, true)
+                    .withActionProperty(key, true)
+                    .withContextProperty(key, true);
+        }
+        return builder;
+    }
+}
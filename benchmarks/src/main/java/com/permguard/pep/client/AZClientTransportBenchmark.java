@@ -0,0 +1,98 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.benchmarks.Payloads;
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.response.AZResponse;
+import com.permguard.pep.server.AZServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the throughput of blocking checks against a local PDP server, with the transport
+ * and event loop options of the client. Run it with the BenchmarkRunner to get the context switches per check;
+ * the server runs in the benchmark JVM, so they include the context switches of the server.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class AZClientTransportBenchmark {
+    private static final int PORT = 9197;
+
+    /**
+     * Local server and client configured with the benchmark parameters.
+     */
+    @State(Scope.Benchmark)
+    public static class ClientState {
+        @Param({"true", "false"})
+        public boolean nativeTransport;
+
+        @Param({"0", "4"})
+        public int eventLoopThreads;
+
+        @Param({"false", "true"})
+        public boolean directExecutor;
+
+        public AZServer server;
+        public AZClient client;
+        public AZRequest request;
+
+        @Setup
+        public void setup() throws IOException {
+            server = new AZServer();
+            server.start(PORT);
+            AZConfig config = new AZConfig("localhost", PORT, true);
+            config.setNativeTransportEnabled(nativeTransport);
+            config.setEventLoopThreads(eventLoopThreads);
+            config.setDirectExecutorEnabled(directExecutor);
+            client = new AZClient(config);
+            request = Payloads.request(5, 1, 0, 0);
+        }
+
+        @TearDown
+        public void tearDown() {
+            client.shutdown();
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public AZResponse check(ClientState state) {
+        return state.client.check(state.request);
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.benchmarks.Payloads;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.response.AZResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the mapping between the SDK model and the gRPC messages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    /**
+     * Request payload of configurable size.
+     */
+    @State(Scope.Benchmark)
+    public static class RequestState {
+        @Param({"1", "5", "20"})
+        public int propertyCount;
+
+        @Param({"1", "3"})
+        public int depth;
+
+        @Param({"0", "10", "50"})
+        public int evaluationCount;
+
+        @Param({"0", "10", "100"})
+        public int entityCount;
+
+        public Mapper mapper;
+        public AZRequest request;
+
+        @Setup
+        public void setup() {
+            mapper = new Mapper();
+            request = Payloads.request(propertyCount, depth, evaluationCount, entityCount);
+        }
+    }
+
+    /**
+     * Request payload whose evaluations share their subject, action and context.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedPartsRequestState {
+        @Param({"5", "20"})
+        public int propertyCount;
+
+        @Param({"10", "50"})
+        public int evaluationCount;
+
+        public Mapper mapper;
+        public AZRequest request;
+
+        @Setup
+        public void setup() {
+            mapper = new Mapper();
+            request = Payloads.sharedPartsRequest(propertyCount, evaluationCount);
+        }
+    }
+
+    /**
+     * Response payload of configurable size.
+     */
+    @State(Scope.Benchmark)
+    public static class ResponseState {
+        @Param({"0", "10", "50"})
+        public int evaluationCount;
+
+        public Mapper mapper;
+        public AuthorizationCheck.AuthorizationCheckResponse response;
+
+        @Setup
+        public void setup() {
+            mapper = new Mapper();
+            AuthorizationCheck.AuthorizationCheckResponse.Builder builder = AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                    .setDecision(false)
+                    .setRequestID("benchmark")
+                    .setContext(context("benchmark"));
+            for (int i = 0; i < evaluationCount; i++) {
+                builder.addEvaluations(AuthorizationCheck.EvaluationResponse.newBuilder()
+                        .setDecision(i % 2 == 0)
+                        .setRequestID("evaluation-" + i)
+                        .setContext(context("evaluation-" + i)));
+            }
+            response = builder.build();
+        }
+
+        private static AuthorizationCheck.ContextResponse context(String id) {
+            AuthorizationCheck.ReasonResponse reason = AuthorizationCheck.ReasonResponse.newBuilder()
+                    .setCode("403")
+                    .setMessage("Access denied for " + id)
+                    .build();
+            return AuthorizationCheck.ContextResponse.newBuilder()
+                    .setID(id)
+                    .setReasonAdmin(reason)
+                    .setReasonUser(reason)
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public AuthorizationCheck.AuthorizationCheckRequest mapAuthorizationCheckRequest(RequestState state) {
+        return state.mapper.mapAuthorizationCheckRequest(state.request);
+    }
+
+    @Benchmark
+    public AuthorizationCheck.AuthorizationCheckRequest mapSharedPartsRequest(SharedPartsRequestState state) {
+        return state.mapper.mapAuthorizationCheckRequest(state.request);
+    }
+
+    @Benchmark
+    public AZResponse mapAuthResponsePayload(ResponseState state) {
+        return state.mapper.mapAuthResponsePayload(state.response);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.utils;
+
+import com.google.protobuf.Struct;
+import com.permguard.pep.benchmarks.Payloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the conversion between Java maps and Protobuf Structs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GrpcStructMapperBenchmark {
+
+    @Param({"1", "5", "20", "100"})
+    public int propertyCount;
+
+    @Param({"1", "3"})
+    public int depth;
+
+    private Map<String, Object> properties;
+    private PropertyMap propertyMap;
+    private Struct struct;
+
+    @Setup
+    public void setup() {
+        properties = Payloads.properties(propertyCount, depth);
+        propertyMap = new PropertyMap(properties);
+        struct = GrpcStructMapper.toGrpcStruct(properties);
+    }
+
+    @Benchmark
+    public Struct toGrpcStruct() {
+        return GrpcStructMapper.toGrpcStruct(properties);
+    }
+
+    @Benchmark
+    public Struct toGrpcStructFromPropertyMap() {
+        return GrpcStructMapper.toGrpcStruct(propertyMap);
+    }
+
+    @Benchmark
+    public Object fromGrpcStructReadOneKey() {
+        return GrpcStructMapper.fromGrpcStruct(struct).get("property0");
+    }
+
+    @Benchmark
+    public void fromGrpcStructReadAll(Blackhole blackhole) {
+        for (Map.Entry<String, Object> entry : GrpcStructMapper.fromGrpcStruct(struct).entrySet()) {
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> fromGrpcStructMaterialize() {
+        return ((StructMap) GrpcStructMapper.fromGrpcStruct(struct)).materialize();
+    }
+}
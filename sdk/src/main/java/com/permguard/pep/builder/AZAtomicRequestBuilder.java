@@ -19,26 +19,42 @@
 package com.permguard.pep.builder;
 
 import com.permguard.pep.model.request.*;
+import com.permguard.pep.utils.PropertyMap;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
 
 /**
  * Builder for creating an atomic AZRequest object.
+ * Each call to {@link #build()} allocates the request and its model objects once, and hands the property maps
+ * of the builder over to the request instead of copying them, so each built request owns its maps.
+ * After {@link #reset()} the builder starts with new maps; a builder that is modified or built again without
+ * a reset first copies the maps handed to the previous request, once, so that request is not affected.
+ * With {@link #reset()} a builder can be reused for the next request, for example one builder per thread;
+ * builders are not thread-safe.
  */
 public class AZAtomicRequestBuilder {
-    private final AZRequestBuilder requestBuilder;
-    private final String subjectId;
-    private final String subjectType; // ✅ Preserve subject type
-    private final String resourceType; // ✅ Preserve resource type
-    private final String actionName; // ✅ Preserve action name
+    private static final String POLICY_STORE_KIND = "ledger";
+    private static final String DEFAULT_SUBJECT_TYPE = "role-actor";
+    // Property maps usually hold a handful of entries, which fit in this capacity without resizing.
+    private static final int PROPERTIES_CAPACITY = 6;
+
+    private final long zoneId;
+    private final String policyStoreId;
+    private String subjectId;
+    private String resourceType;
+    private String actionName;
+    private String subjectType;
     private String requestId;
+    private Principal principal;
+    private Entities entities;
     private String subjectSource;
     private String resourceId;
-    private final Map<String, Object> subjectProperties = new HashMap<>();
-    private final Map<String, Object> resourceProperties = new HashMap<>();
-    private final Map<String, Object> actionProperties = new HashMap<>();
-    private final Map<String, Object> context = new HashMap<>();
+    private PropertyMap subjectProperties;
+    private PropertyMap resourceProperties;
+    private PropertyMap actionProperties;
+    private PropertyMap context;
+    // Set when the property maps have been handed to a built request and must be copied before they are reused.
+    private boolean handedOver;
 
     /**
      * Constructor for AZAtomicRequestBuilder.
@@ -50,15 +66,47 @@ public class AZAtomicRequestBuilder {
      * @param actionName    The name of the action.
      */
     public AZAtomicRequestBuilder(long zoneId, String policyStoreId, String id, String resourceType, String actionName) {
-        this.requestBuilder = new AZRequestBuilder(zoneId, policyStoreId);
-        this.subjectId = id; // ✅ Store the original subject ID
-        this.subjectType = "role-actor"; // ✅ Default to role-actor (can be modified)
-        this.resourceType = resourceType; // ✅ Store the resource type
-        this.actionName = actionName; // ✅ Store the action name
+        this.zoneId = zoneId;
+        this.policyStoreId = policyStoreId;
+        reset(id, resourceType, actionName);
+    }
+
+    /**
+     * Clears everything set since the builder was created, keeping the zone, policy store, subject ID,
+     * resource type and action name, so that the builder can be reused for another request.
+     *
+     * @return The current builder instance.
+     */
+    public AZAtomicRequestBuilder reset() {
+        return reset(subjectId, resourceType, actionName);
+    }
 
-        this.requestBuilder.withSubject(new SubjectBuilder(id).withType(this.subjectType).build());
-        this.requestBuilder.withResource(new ResourceBuilder(resourceType).build());
-        this.requestBuilder.withAction(new ActionBuilder(actionName).build());
+    /**
+     * Clears everything set since the builder was created and replaces the subject ID, resource type and action name,
+     * so that the builder can be reused for another request in the same zone and policy store.
+     *
+     * @param id           The ID of the subject.
+     * @param resourceType The type of the resource.
+     * @param actionName   The name of the action.
+     * @return The current builder instance.
+     */
+    public AZAtomicRequestBuilder reset(String id, String resourceType, String actionName) {
+        this.subjectId = id;
+        this.resourceType = resourceType;
+        this.actionName = actionName;
+        this.subjectType = DEFAULT_SUBJECT_TYPE;
+        this.requestId = null;
+        this.principal = null;
+        this.entities = null;
+        this.subjectSource = null;
+        this.resourceId = null;
+        // The maps may belong to requests built before, so they are dropped rather than cleared.
+        this.subjectProperties = null;
+        this.resourceProperties = null;
+        this.actionProperties = null;
+        this.context = null;
+        this.handedOver = false;
+        return this;
     }
 
     /**
@@ -66,7 +114,6 @@ public class AZAtomicRequestBuilder {
      */
     public AZAtomicRequestBuilder withRequestId(String requestId) {
         this.requestId = requestId;
-        this.requestBuilder.withRequestId(requestId);
         return this;
     }
 
@@ -74,16 +121,16 @@ public class AZAtomicRequestBuilder {
      * Sets the principal.
      */
     public AZAtomicRequestBuilder withPrincipal(Principal principal) {
-        this.requestBuilder.withPrincipal(principal);
+        this.principal = principal;
         return this;
     }
 
     /**
-     * Sets the subject type (without overwriting previous values).
+     * Sets the subject type, "role-actor" by default.
      */
     public AZAtomicRequestBuilder withSubjectType(String type) {
         if (type != null && !type.isEmpty()) {
-            this.requestBuilder.withSubject(new SubjectBuilder(subjectId).withType(type).build());
+            this.subjectType = type;
         }
         return this;
     }
@@ -100,7 +147,55 @@ public class AZAtomicRequestBuilder {
      * Adds a property to the subject.
      */
     public AZAtomicRequestBuilder withSubjectProperty(String key, Object value) {
-        this.subjectProperties.put(key, value);
+        subjectProperties().put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a boolean property to the subject, without boxing it.
+     */
+    public AZAtomicRequestBuilder withSubjectProperty(String key, boolean value) {
+        subjectProperties().putBoolean(key, value);
+        return this;
+    }
+
+    /**
+     * Adds an int property to the subject, stored unboxed and read back as an Integer.
+     */
+    public AZAtomicRequestBuilder withSubjectProperty(String key, int value) {
+        subjectProperties().putInt(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a long property to the subject, stored unboxed and read back as a Long.
+     */
+    public AZAtomicRequestBuilder withSubjectProperty(String key, long value) {
+        subjectProperties().putLong(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a floating point property to the subject, stored unboxed and read back as a Double.
+     */
+    public AZAtomicRequestBuilder withSubjectProperty(String key, double value) {
+        subjectProperties().putDouble(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a float property to the subject, boxed so that it is not widened to a double.
+     */
+    public AZAtomicRequestBuilder withSubjectProperty(String key, float value) {
+        subjectProperties().put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a char property to the subject, boxed so that it is not widened to a number.
+     */
+    public AZAtomicRequestBuilder withSubjectProperty(String key, char value) {
+        subjectProperties().put(key, value);
         return this;
     }
 
@@ -116,7 +211,55 @@ public class AZAtomicRequestBuilder {
      * Adds a property to the resource.
      */
     public AZAtomicRequestBuilder withResourceProperty(String key, Object value) {
-        this.resourceProperties.put(key, value);
+        resourceProperties().put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a boolean property to the resource, without boxing it.
+     */
+    public AZAtomicRequestBuilder withResourceProperty(String key, boolean value) {
+        resourceProperties().putBoolean(key, value);
+        return this;
+    }
+
+    /**
+     * Adds an int property to the resource, stored unboxed and read back as an Integer.
+     */
+    public AZAtomicRequestBuilder withResourceProperty(String key, int value) {
+        resourceProperties().putInt(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a long property to the resource, stored unboxed and read back as a Long.
+     */
+    public AZAtomicRequestBuilder withResourceProperty(String key, long value) {
+        resourceProperties().putLong(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a floating point property to the resource, stored unboxed and read back as a Double.
+     */
+    public AZAtomicRequestBuilder withResourceProperty(String key, double value) {
+        resourceProperties().putDouble(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a float property to the resource, boxed so that it is not widened to a double.
+     */
+    public AZAtomicRequestBuilder withResourceProperty(String key, float value) {
+        resourceProperties().put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a char property to the resource, boxed so that it is not widened to a number.
+     */
+    public AZAtomicRequestBuilder withResourceProperty(String key, char value) {
+        resourceProperties().put(key, value);
         return this;
     }
 
@@ -124,7 +267,55 @@ public class AZAtomicRequestBuilder {
      * Adds a property to the action.
      */
     public AZAtomicRequestBuilder withActionProperty(String key, Object value) {
-        this.actionProperties.put(key, value);
+        actionProperties().put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a boolean property to the action, without boxing it.
+     */
+    public AZAtomicRequestBuilder withActionProperty(String key, boolean value) {
+        actionProperties().putBoolean(key, value);
+        return this;
+    }
+
+    /**
+     * Adds an int property to the action, stored unboxed and read back as an Integer.
+     */
+    public AZAtomicRequestBuilder withActionProperty(String key, int value) {
+        actionProperties().putInt(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a long property to the action, stored unboxed and read back as a Long.
+     */
+    public AZAtomicRequestBuilder withActionProperty(String key, long value) {
+        actionProperties().putLong(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a floating point property to the action, stored unboxed and read back as a Double.
+     */
+    public AZAtomicRequestBuilder withActionProperty(String key, double value) {
+        actionProperties().putDouble(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a float property to the action, boxed so that it is not widened to a double.
+     */
+    public AZAtomicRequestBuilder withActionProperty(String key, float value) {
+        actionProperties().put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a char property to the action, boxed so that it is not widened to a number.
+     */
+    public AZAtomicRequestBuilder withActionProperty(String key, char value) {
+        actionProperties().put(key, value);
         return this;
     }
 
@@ -132,7 +323,55 @@ public class AZAtomicRequestBuilder {
      * Adds a property to the request context.
      */
     public AZAtomicRequestBuilder withContextProperty(String key, Object value) {
-        this.context.put(key, value);
+        contextProperties().put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a boolean property to the request context, without boxing it.
+     */
+    public AZAtomicRequestBuilder withContextProperty(String key, boolean value) {
+        contextProperties().putBoolean(key, value);
+        return this;
+    }
+
+    /**
+     * Adds an int property to the request context, stored unboxed and read back as an Integer.
+     */
+    public AZAtomicRequestBuilder withContextProperty(String key, int value) {
+        contextProperties().putInt(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a long property to the request context, stored unboxed and read back as a Long.
+     */
+    public AZAtomicRequestBuilder withContextProperty(String key, long value) {
+        contextProperties().putLong(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a floating point property to the request context, stored unboxed and read back as a Double.
+     */
+    public AZAtomicRequestBuilder withContextProperty(String key, double value) {
+        contextProperties().putDouble(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a float property to the request context, boxed so that it is not widened to a double.
+     */
+    public AZAtomicRequestBuilder withContextProperty(String key, float value) {
+        contextProperties().put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a char property to the request context, boxed so that it is not widened to a number.
+     */
+    public AZAtomicRequestBuilder withContextProperty(String key, char value) {
+        contextProperties().put(key, value);
         return this;
     }
 
@@ -140,7 +379,7 @@ public class AZAtomicRequestBuilder {
      * Sets the entities for the request.
      */
     public AZAtomicRequestBuilder withEntitiesItems(String schema, Entities entities) {
-        this.requestBuilder.withEntitiesItems(schema, entities);
+        this.entities = new Entities(schema, entities.getItems());
         return this;
     }
 
@@ -148,27 +387,70 @@ public class AZAtomicRequestBuilder {
      * Builds the AZRequest object, ensuring all properties are correctly applied.
      */
     public AZRequest build() {
-        // ✅ Ensure the subject ID is not lost and type is preserved
-        Subject subject = new SubjectBuilder(this.subjectId)
-                .withType(this.subjectType) // ✅ Preserve subject type
-                .withSource(subjectSource)
-                .build();
-        subject.getProperties().putAll(subjectProperties); // ✅ Append properties
-
-        // ✅ Preserve resource ID and type
-        Resource resource = new ResourceBuilder(this.resourceType).withId(resourceId).build();
-        resource.getProperties().putAll(resourceProperties); // ✅ Append properties
-
-        // ✅ Preserve action name and append properties
-        Action action = new ActionBuilder(this.actionName).build();
-        action.getProperties().putAll(actionProperties); // ✅ Append properties
-
-        // ✅ Apply context properties
-        this.requestBuilder.withContext(context);
-
-        return requestBuilder.withSubject(subject)
-                .withResource(resource)
-                .withAction(action)
-                .build();
+        takeBackProperties();
+        // Maps never written to are handed over empty, without allocating a table.
+        subjectProperties = subjectProperties != null ? subjectProperties : new PropertyMap();
+        resourceProperties = resourceProperties != null ? resourceProperties : new PropertyMap();
+        actionProperties = actionProperties != null ? actionProperties : new PropertyMap();
+        context = context != null ? context : new PropertyMap();
+        handedOver = true;
+        AZModel model = new AZModel(zoneId, new PolicyStore(POLICY_STORE_KIND, policyStoreId), principal, entities);
+        return new AZRequest(requestId, model,
+                new Subject(subjectType, subjectId, subjectSource, subjectProperties),
+                new Resource(resourceType, resourceId, resourceProperties),
+                new Action(actionName, actionProperties),
+                context,
+                new ArrayList<>(0));
+    }
+
+    /** PROPERTY HELPERS **/
+
+    /**
+     * Gets the properties of the subject, ready to be modified.
+     */
+    private PropertyMap subjectProperties() {
+        takeBackProperties();
+        return subjectProperties = orNew(subjectProperties);
+    }
+
+    /**
+     * Gets the properties of the resource, ready to be modified.
+     */
+    private PropertyMap resourceProperties() {
+        takeBackProperties();
+        return resourceProperties = orNew(resourceProperties);
+    }
+
+    /**
+     * Gets the properties of the action, ready to be modified.
+     */
+    private PropertyMap actionProperties() {
+        takeBackProperties();
+        return actionProperties = orNew(actionProperties);
+    }
+
+    /**
+     * Gets the properties of the request context, ready to be modified.
+     */
+    private PropertyMap contextProperties() {
+        takeBackProperties();
+        return context = orNew(context);
+    }
+
+    /**
+     * Replaces the maps handed to the last built request with copies, so that the request keeps its own maps.
+     */
+    private void takeBackProperties() {
+        if (handedOver) {
+            subjectProperties = new PropertyMap(subjectProperties);
+            resourceProperties = new PropertyMap(resourceProperties);
+            actionProperties = new PropertyMap(actionProperties);
+            context = new PropertyMap(context);
+            handedOver = false;
+        }
+    }
+
+    private static PropertyMap orNew(PropertyMap properties) {
+        return properties != null ? properties : new PropertyMap(PROPERTIES_CAPACITY);
     }
 }
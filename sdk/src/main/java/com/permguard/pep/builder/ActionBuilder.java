@@ -19,16 +19,14 @@
 package com.permguard.pep.builder;
 
 import com.permguard.pep.model.request.Action;
-
-import java.util.HashMap;
-import java.util.Map;
+import com.permguard.pep.utils.PropertyMap;
 
 /**
  * Builder for creating an Action object.
  */
 public class ActionBuilder {
     private String name;
-    private Map<String, Object> properties = new HashMap<>();
+    private final PropertyMap properties = new PropertyMap();
 
     /**
      * Constructor with required action name.
@@ -51,6 +49,78 @@ public class ActionBuilder {
         return this;
     }
 
+    /**
+     * Adds a boolean property to the action, without boxing it.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ActionBuilder withProperty(String key, boolean value) {
+        properties.putBoolean(key, value);
+        return this;
+    }
+
+    /**
+     * Adds an int property to the action, stored unboxed and read back as an Integer.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ActionBuilder withProperty(String key, int value) {
+        properties.putInt(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a long property to the action, stored unboxed and read back as a Long.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ActionBuilder withProperty(String key, long value) {
+        properties.putLong(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a floating point property to the action, stored unboxed and read back as a Double.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ActionBuilder withProperty(String key, double value) {
+        properties.putDouble(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a float property to the action. The float is boxed, so that it is converted as a float rather than widened to a double.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ActionBuilder withProperty(String key, float value) {
+        properties.put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a char property to the action. The char is boxed, so that it is converted as a string rather than widened to a number.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ActionBuilder withProperty(String key, char value) {
+        properties.put(key, value);
+        return this;
+    }
+
     /**
      * Builds the Action object.
      *
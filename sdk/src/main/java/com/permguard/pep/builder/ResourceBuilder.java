@@ -20,9 +20,7 @@ package com.permguard.pep.builder;
 
 
 import com.permguard.pep.model.request.Resource;
-
-import java.util.HashMap;
-import java.util.Map;
+import com.permguard.pep.utils.PropertyMap;
 
 /**
  * Builder for creating a Resource object.
@@ -30,7 +28,7 @@ import java.util.Map;
 public class ResourceBuilder {
     private String type;
     private String id;
-    private Map<String, Object> properties = new HashMap<>();
+    private final PropertyMap properties = new PropertyMap();
 
     /**
      * Constructor with required resource type.
@@ -64,6 +62,78 @@ public class ResourceBuilder {
         return this;
     }
 
+    /**
+     * Adds a boolean property to the resource, without boxing it.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ResourceBuilder withProperty(String key, boolean value) {
+        properties.putBoolean(key, value);
+        return this;
+    }
+
+    /**
+     * Adds an int property to the resource, stored unboxed and read back as an Integer.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ResourceBuilder withProperty(String key, int value) {
+        properties.putInt(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a long property to the resource, stored unboxed and read back as a Long.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ResourceBuilder withProperty(String key, long value) {
+        properties.putLong(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a floating point property to the resource, stored unboxed and read back as a Double.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ResourceBuilder withProperty(String key, double value) {
+        properties.putDouble(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a float property to the resource. The float is boxed, so that it is converted as a float rather than widened to a double.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ResourceBuilder withProperty(String key, float value) {
+        properties.put(key, value);
+        return this;
+    }
+
+    /**
+     * Adds a char property to the resource. The char is boxed, so that it is converted as a string rather than widened to a number.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     * @return The current builder instance.
+     */
+    public ResourceBuilder withProperty(String key, char value) {
+        properties.put(key, value);
+        return this;
+    }
+
     /**
      * Builds the Resource object.
      *
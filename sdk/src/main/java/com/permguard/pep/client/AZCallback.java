@@ -0,0 +1,42 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.exception.AuthorizationException;
+import com.permguard.pep.model.response.AZResponse;
+
+/**
+ * Callback notified when an asynchronous authorization check completes.
+ */
+public interface AZCallback {
+
+    /**
+     * Called when the PDP returns a response.
+     *
+     * @param response The response from the PDP.
+     */
+    void onSuccess(AZResponse response);
+
+    /**
+     * Called when the authorization check fails.
+     *
+     * @param exception The exception describing the failure.
+     */
+    void onError(AuthorizationException exception);
+}
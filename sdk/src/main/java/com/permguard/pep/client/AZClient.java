@@ -18,24 +18,53 @@
 
 package com.permguard.pep.client;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.config.AZEndpoint;
+import com.permguard.pep.config.AZFallback;
+import com.permguard.pep.exception.AuthorizationCircuitOpenException;
 import com.permguard.pep.exception.AuthorizationException;
+import com.permguard.pep.exception.AuthorizationTimeoutException;
 import com.permguard.pep.internal.proto.AuthorizationCheck;
-import com.permguard.pep.internal.proto.V1PDPServiceGrpc;
 import com.permguard.pep.model.request.*;
 import com.permguard.pep.model.response.AZResponse;
+import io.grpc.Deadline;
 import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Client for interacting with the Policy Decision Point (PDP) authorization service.
  */
 public class AZClient {
     private final AZConfig config;
-    private final ManagedChannel channel;
-    private final V1PDPServiceGrpc.V1PDPServiceBlockingStub blockingStub;
+    private final PdpTransport transport;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final CheckBatcher batcher;
+    private final DecisionCache cache;
+    private final DecisionCache lastKnown;
+    private final ConcurrencyLimiter limiter;
+    private final Map<AuthorizationCheck.AuthorizationCheckRequest,
+            CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> inFlight;
+    private final AZFallback fallback;
     private final Mapper mapper;
+    private final ChannelFactory channelFactory;
+    private final MeasuredCompressor compressor;
 
     /**
      * Constructs a new client with the given configuration.
@@ -45,46 +74,369 @@ public class AZClient {
      */
     public AZClient(AZConfig config) {
         this.config = config;
-        ManagedChannelBuilder<?> builder = ManagedChannelBuilder
-                .forAddress(config.getHost(), config.getPort());
-        if (config.isUsePlaintext()) {
-            builder.usePlaintext();
+        List<AZEndpoint> addresses = config.getEndpoints().isEmpty()
+                ? List.of(new AZEndpoint(config.getHost(), config.getPort()))
+                : config.getEndpoints();
+        this.compressor = config.getCompression() != null
+                ? new MeasuredCompressor(config.getCompression(), config.getCompressionThreshold(), config.getCompressionListener())
+                : null;
+        this.channelFactory = new ChannelFactory(config, compressor);
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (AZEndpoint address : addresses) {
+            List<ManagedChannel> channels = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, config.getChannelCount()); i++) {
+                channels.add(channelFactory.newChannel(address));
+            }
+            CircuitBreaker circuitBreaker = config.isCircuitBreakerEnabled()
+                    ? new CircuitBreaker(address, config.getCircuitBreakerWindowSize(), config.getCircuitBreakerMinimumCalls(),
+                    config.getCircuitBreakerFailureRateThreshold(), config.getCircuitBreakerSlowCallRateThreshold(),
+                    config.getCircuitBreakerSlowCallDuration().toNanos(), config.getCircuitBreakerOpenDuration().toNanos(),
+                    config.getCircuitBreakerHalfOpenCalls(), config.getCircuitBreakerListener())
+                    : null;
+            endpoints.add(new Endpoint(address, new ChannelPool(channels),
+                    config.getEjectionFailureThreshold(), config.getEjectionDuration().toNanos(), circuitBreaker));
         }
-        this.mapper = new Mapper();
-        this.channel = builder.build();
-        this.blockingStub = V1PDPServiceGrpc.newBlockingStub(channel);
+        this.mapper = new Mapper(config.getEntityCacheMaxSize());
+        this.executor = config.getExecutor() != null ? config.getExecutor() : MoreExecutors.directExecutor();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "permguard-azclient-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.transport = new PdpTransport(new LoadBalancer(endpoints, config.getLoadBalancingPolicy()), scheduler, compressor, config);
+        this.batcher = config.isBatchingEnabled()
+                ? new CheckBatcher(grpcRequest -> send(grpcRequest, null), scheduler, config.getBatchMaxSize(), config.getBatchWindow().toNanos())
+                : null;
+        this.cache = config.isCacheEnabled()
+                ? new DecisionCache(config.getCacheMaxSize(), config.getCachePermitTtl().toNanos(), config.getCacheDenyTtl().toNanos())
+                : null;
+        this.limiter = config.isConcurrencyLimitEnabled()
+                ? new ConcurrencyLimiter(config.getConcurrencyLimitInitial(), config.getConcurrencyLimitMin(),
+                config.getConcurrencyLimitMax(), config.getConcurrencyLimitQueueSize(), scheduler)
+                : null;
+        this.inFlight = config.isCoalescingEnabled() ? new ConcurrentHashMap<>() : null;
+        this.fallback = config.isCircuitBreakerEnabled() ? config.getCircuitBreakerFallback() : null;
+        this.lastKnown = fallback != null
+                ? new DecisionCache(config.getCacheMaxSize(), config.getCircuitBreakerLastKnownTtl().toNanos(),
+                config.getCircuitBreakerLastKnownTtl().toNanos())
+                : null;
     }
 
     /**
-     * Closes the channel when it is no longer needed.
+     * Closes the channels when they are no longer needed.
      */
     public void shutdown() {
-        if (channel != null && !channel.isShutdown()) {
-            channel.shutdown();
-        }
+        transport.shutdown();
+        channelFactory.shutdown();
+        scheduler.shutdown();
     }
 
     /**
      * Performs an authorization check against the PDP.
      *
+     * The call is bounded by the default deadline of the configuration.
+     *
      * @param requestPayload The request payload containing the authorization check details.
      * @return The response from the PDP.
+     * @throws AuthorizationTimeoutException If the PDP does not answer before the deadline.
      */
     public AZResponse check(AZRequest requestPayload) {
+        return check(requestPayload, (Deadline) null);
+    }
+
+    /**
+     * Performs an authorization check against the PDP with a specific timeout.
+     *
+     * @param requestPayload The request payload containing the authorization check details.
+     * @param timeout        The maximum time to wait for the PDP, replacing the default deadline.
+     * @return The response from the PDP.
+     * @throws AuthorizationTimeoutException If the PDP does not answer before the timeout.
+     */
+    public AZResponse check(AZRequest requestPayload, Duration timeout) {
+        return check(requestPayload, toDeadline(timeout));
+    }
+
+    private AZResponse check(AZRequest requestPayload, Deadline deadline) {
+        AuthorizationCheck.AuthorizationCheckRequest grpcRequest = null;
         try {
             // Convert to gRPC format
-            AuthorizationCheck.AuthorizationCheckRequest grpcRequest = mapper.mapAuthorizationCheckRequest(requestPayload);
-            AuthorizationCheck.AuthorizationCheckResponse grpcResponse = blockingStub.authorizationCheck(grpcRequest);
+            grpcRequest = mapper.mapAuthorizationCheckRequest(requestPayload);
+            AuthorizationCheck.AuthorizationCheckResponse grpcResponse = await(invoke(grpcRequest, deadline));
 
             // Convert gRPC response back to AZResponse
             return mapper.mapAuthResponsePayload(grpcResponse);
 
-        } catch (StatusRuntimeException e) {
-            throw new AuthorizationException("Authorization check failed due to gRPC error.", e);
         } catch (Exception e) {
-            throw new AuthorizationException("An unexpected error occurred.", e);
+            AuthorizationException exception = toAuthorizationException(e);
+            if (fallback != null && exception instanceof AuthorizationCircuitOpenException) {
+                return fallback(requestPayload, grpcRequest);
+            }
+            throw exception;
         }
     }
 
-}
+    /**
+     * Performs an authorization check against the PDP without blocking the calling thread.
+     * The response is mapped on the configured executor.
+     *
+     * @param requestPayload The request payload containing the authorization check details.
+     * @return A future completed with the response from the PDP, or exceptionally with an AuthorizationException.
+     */
+    public CompletableFuture<AZResponse> checkAsync(AZRequest requestPayload) {
+        return checkAsync(requestPayload, (Duration) null);
+    }
 
+    /**
+     * Performs an authorization check against the PDP with a specific timeout, without blocking the calling thread.
+     * The response is mapped on the configured executor.
+     *
+     * @param requestPayload The request payload containing the authorization check details.
+     * @param timeout        The maximum time to wait for the PDP, replacing the default deadline.
+     * @return A future completed with the response from the PDP, or exceptionally with an AuthorizationException,
+     *         which is an AuthorizationTimeoutException if the PDP does not answer before the timeout.
+     */
+    public CompletableFuture<AZResponse> checkAsync(AZRequest requestPayload, Duration timeout) {
+        CompletableFuture<AZResponse> result = new CompletableFuture<>();
+        checkAsync(requestPayload, toDeadline(timeout), new AZCallback() {
+            @Override
+            public void onSuccess(AZResponse response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void onError(AuthorizationException exception) {
+                result.completeExceptionally(exception);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Performs an authorization check against the PDP without blocking the calling thread.
+     * The response is mapped and the callback is notified on the configured executor.
+     *
+     * @param requestPayload The request payload containing the authorization check details.
+     * @param callback       The callback notified with the response or the failure.
+     */
+    public void checkAsync(AZRequest requestPayload, AZCallback callback) {
+        checkAsync(requestPayload, null, callback);
+    }
+
+    private void checkAsync(AZRequest requestPayload, Deadline deadline, AZCallback callback) {
+        AuthorizationCheck.AuthorizationCheckRequest grpcRequest;
+        CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> grpcFuture;
+        try {
+            grpcRequest = mapper.mapAuthorizationCheckRequest(requestPayload);
+            grpcFuture = invoke(grpcRequest, deadline);
+        } catch (Exception e) {
+            callback.onError(toAuthorizationException(e));
+            return;
+        }
+        grpcFuture.whenCompleteAsync((grpcResponse, error) -> {
+            AZResponse response;
+            try {
+                if (error != null) {
+                    AuthorizationException exception = toAuthorizationException(error);
+                    if (fallback == null || !(exception instanceof AuthorizationCircuitOpenException)) {
+                        callback.onError(exception);
+                        return;
+                    }
+                    response = fallback(requestPayload, grpcRequest);
+                } else {
+                    response = mapper.mapAuthResponsePayload(grpcResponse);
+                }
+            } catch (Exception e) {
+                callback.onError(toAuthorizationException(e));
+                return;
+            }
+            callback.onSuccess(response);
+        }, executor);
+    }
+
+    /**
+     * Opens a session multiplexing authorization checks over a single bidirectional stream to the PDP,
+     * which avoids the per-call stream setup of unary checks. The PDP must implement AuthorizationCheckStream.
+     *
+     * @return The stream session, to be closed when no longer needed.
+     */
+    public AZStreamSession openStream() {
+        try {
+            return new AZStreamSession(mapper, executor, config.getStreamMaxPendingChecks(), transport::openStream);
+        } catch (Exception e) {
+            throw toAuthorizationException(e);
+        }
+    }
+
+    /**
+     * Gets the statistics of the client-side decision cache.
+     *
+     * @return The cache statistics; all counters are zero when the cache is disabled.
+     */
+    public AZCacheStats getCacheStats() {
+        return cache != null ? cache.stats() : new AZCacheStats(0, 0, 0, 0);
+    }
+
+    /**
+     * Gets the statistics of the adaptive concurrency limiter.
+     *
+     * @return The limiter statistics, or null when the concurrency limit is disabled.
+     */
+    public AZLimiterStats getLimiterStats() {
+        return limiter != null ? limiter.stats() : null;
+    }
+
+    /**
+     * Gets the statistics of request compression.
+     *
+     * @return The compression statistics, or null when compression is disabled.
+     */
+    public AZCompressionStats getCompressionStats() {
+        return compressor != null ? compressor.stats() : null;
+    }
+
+    /**
+     * Gets the number of outstanding calls on each channel to the PDP.
+     * With several endpoints, the channels of each endpoint follow those of the previous one.
+     *
+     * @return The outstanding calls, indexed by channel.
+     */
+    public int[] getChannelInFlightCalls() {
+        return Arrays.stream(transport.endpoints())
+                .flatMapToInt(endpoint -> Arrays.stream(endpoint.channelPool().inFlightPerChannel()))
+                .toArray();
+    }
+
+    /**
+     * Gets the statistics of each PDP endpoint.
+     *
+     * @return The endpoint statistics, in the configured order.
+     */
+    public List<AZEndpointStats> getEndpointStats() {
+        return Arrays.stream(transport.endpoints()).map(Endpoint::stats).toList();
+    }
+
+    /** CALL HELPERS **/
+
+    private CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> invoke(AuthorizationCheck.AuthorizationCheckRequest grpcRequest,
+                                                                                    Deadline deadline) {
+        if (cache == null && lastKnown == null && inFlight == null) {
+            return dispatch(grpcRequest, deadline);
+        }
+        AuthorizationCheck.AuthorizationCheckRequest key = DecisionCache.keyOf(grpcRequest);
+        AuthorizationCheck.AuthorizationCheckResponse cached = cache != null ? cache.get(key) : null;
+        if (cached != null) {
+            return CompletableFuture.completedFuture(withRequestId(cached, grpcRequest));
+        }
+        // Checks with their own timeout are not coalesced, since they would inherit the deadline of the first call.
+        if (inFlight != null && deadline == null) {
+            return coalesce(key, grpcRequest);
+        }
+        return fetch(key, grpcRequest, deadline);
+    }
+
+    private CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> coalesce(AuthorizationCheck.AuthorizationCheckRequest key,
+                                                                                      AuthorizationCheck.AuthorizationCheckRequest grpcRequest) {
+        CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> flight = new CompletableFuture<>();
+        CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return existing.thenApply(grpcResponse -> withRequestId(grpcResponse, grpcRequest));
+        }
+        fetch(key, grpcRequest, null).whenComplete((grpcResponse, error) -> {
+            inFlight.remove(key, flight);
+            if (error != null) {
+                flight.completeExceptionally(error);
+            } else {
+                flight.complete(grpcResponse);
+            }
+        });
+        // A copy, so that a caller cancelling its check does not cancel the others.
+        return flight.copy();
+    }
+
+    private CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> fetch(AuthorizationCheck.AuthorizationCheckRequest key,
+                                                                                   AuthorizationCheck.AuthorizationCheckRequest grpcRequest,
+                                                                                   Deadline deadline) {
+        return dispatch(grpcRequest, deadline).thenApply(grpcResponse -> {
+            if (cache != null) {
+                cache.put(key, grpcResponse);
+            }
+            if (lastKnown != null) {
+                lastKnown.put(key, grpcResponse);
+            }
+            return grpcResponse;
+        });
+    }
+
+    private AZResponse fallback(AZRequest requestPayload, AuthorizationCheck.AuthorizationCheckRequest grpcRequest) {
+        AuthorizationCheck.AuthorizationCheckResponse known = grpcRequest != null ? lastKnown.get(DecisionCache.keyOf(grpcRequest)) : null;
+        AZResponse lastKnownResponse = known != null ? mapper.mapAuthResponsePayload(withRequestId(known, grpcRequest)) : null;
+        AZResponse response = fallback.apply(requestPayload, lastKnownResponse);
+        if (response == null) {
+            throw new AuthorizationCircuitOpenException("The circuit breaker of the PDP is open and the fallback gave no response.");
+        }
+        return response;
+    }
+
+    private static AuthorizationCheck.AuthorizationCheckResponse withRequestId(AuthorizationCheck.AuthorizationCheckResponse response,
+                                                                             AuthorizationCheck.AuthorizationCheckRequest grpcRequest) {
+        if (grpcRequest.hasRequestID()) {
+            return grpcRequest.getRequestID().equals(response.getRequestID())
+                    ? response
+                    : response.toBuilder().setRequestID(grpcRequest.getRequestID()).build();
+        }
+        return response.hasRequestID() ? response.toBuilder().clearRequestID().build() : response;
+    }
+
+    private CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> dispatch(AuthorizationCheck.AuthorizationCheckRequest grpcRequest,
+                                                                                      Deadline deadline) {
+        // Batches are sent with the default deadline, so checks with their own timeout are sent alone.
+        if (batcher != null && deadline == null && CheckBatcher.isBatchable(grpcRequest)) {
+            return batcher.submit(grpcRequest);
+        }
+        return send(grpcRequest, deadline);
+    }
+
+    private CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> send(AuthorizationCheck.AuthorizationCheckRequest grpcRequest,
+                                                                                  Deadline deadline) {
+        if (limiter != null) {
+            // The deadline starts when the check is submitted, so the time spent in the queue counts against it.
+            Deadline defaultDeadline = transport.defaultDeadline();
+            return limiter.submit(() -> transport.call(grpcRequest, deadline, defaultDeadline),
+                    deadline != null ? deadline : defaultDeadline);
+        }
+        return transport.call(grpcRequest, deadline);
+    }
+
+    private static Deadline toDeadline(Duration timeout) {
+        return timeout != null ? Deadline.after(timeout.toNanos(), TimeUnit.NANOSECONDS) : null;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new AuthorizationException("Authorization check was interrupted.", e);
+        }
+    }
+
+    static AuthorizationException toAuthorizationException(Throwable t) {
+        if ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            return toAuthorizationException(t.getCause());
+        }
+        if (t instanceof AuthorizationException e) {
+            return e;
+        }
+        if (t instanceof StatusRuntimeException && Status.fromThrowable(t).getCode() == Status.Code.DEADLINE_EXCEEDED) {
+            return new AuthorizationTimeoutException("Authorization check timed out.", t);
+        }
+        if (t instanceof StatusRuntimeException) {
+            return new AuthorizationException("Authorization check failed due to gRPC error.", t);
+        }
+        return new AuthorizationException("An unexpected error occurred.", t);
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+/**
+ * Snapshot of the statistics of request compression.
+ */
+public class AZCompressionStats {
+    private final long compressedCount;
+    private final long skippedCount;
+    private final long uncompressedBytes;
+    private final long compressedBytes;
+    private final long compressionNanos;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param compressedCount   The number of request messages compressed.
+     * @param skippedCount      The number of request messages sent uncompressed because they were below the threshold.
+     * @param uncompressedBytes The total size of the compressed messages before compression.
+     * @param compressedBytes   The total size of the compressed messages after compression.
+     * @param compressionNanos  The total time spent compressing, in nanoseconds.
+     */
+    public AZCompressionStats(long compressedCount, long skippedCount, long uncompressedBytes, long compressedBytes,
+                              long compressionNanos) {
+        this.compressedCount = compressedCount;
+        this.skippedCount = skippedCount;
+        this.uncompressedBytes = uncompressedBytes;
+        this.compressedBytes = compressedBytes;
+        this.compressionNanos = compressionNanos;
+    }
+
+    /**
+     * Gets the number of request messages compressed.
+     *
+     * @return The compressed count.
+     */
+    public long getCompressedCount() {
+        return compressedCount;
+    }
+
+    /**
+     * Gets the number of request messages sent uncompressed because they were below the threshold.
+     *
+     * @return The skipped count.
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Gets the total size of the compressed messages before compression.
+     *
+     * @return The uncompressed bytes.
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * Gets the total size of the compressed messages after compression.
+     *
+     * @return The compressed bytes.
+     */
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Gets the total time spent compressing.
+     *
+     * @return The compression time, in nanoseconds.
+     */
+    public long getCompressionNanos() {
+        return compressionNanos;
+    }
+
+    /**
+     * Gets the compression ratio of the compressed messages.
+     *
+     * @return The uncompressed size divided by the compressed size, or 1.0 when nothing was compressed.
+     */
+    public double getCompressionRatio() {
+        return compressedBytes == 0 ? 1.0 : (double) uncompressedBytes / compressedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "AZCompressionStats{compressedCount=" + compressedCount + ", skippedCount=" + skippedCount
+                + ", uncompressedBytes=" + uncompressedBytes + ", compressedBytes=" + compressedBytes
+                + ", compressionNanos=" + compressionNanos + "}";
+    }
+}
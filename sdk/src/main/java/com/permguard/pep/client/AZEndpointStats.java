@@ -0,0 +1,114 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZCircuitState;
+import com.permguard.pep.config.AZEndpoint;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of the statistics of a PDP endpoint.
+ */
+public class AZEndpointStats {
+    private final AZEndpoint endpoint;
+    private final long callCount;
+    private final int[] channelInFlightCalls;
+    private final boolean ejected;
+    private final AZCircuitState circuitState;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param endpoint             The endpoint address.
+     * @param callCount            The number of calls sent to the endpoint.
+     * @param channelInFlightCalls The outstanding calls on each channel to the endpoint.
+     * @param ejected              Whether the endpoint is currently ejected after consecutive failures.
+     * @param circuitState         The state of the circuit breaker of the endpoint.
+     */
+    public AZEndpointStats(AZEndpoint endpoint, long callCount, int[] channelInFlightCalls, boolean ejected,
+                           AZCircuitState circuitState) {
+        this.endpoint = endpoint;
+        this.callCount = callCount;
+        this.channelInFlightCalls = channelInFlightCalls;
+        this.ejected = ejected;
+        this.circuitState = circuitState;
+    }
+
+    /**
+     * Gets the endpoint address.
+     *
+     * @return The endpoint.
+     */
+    public AZEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Gets the number of calls sent to the endpoint.
+     *
+     * @return The call count.
+     */
+    public long getCallCount() {
+        return callCount;
+    }
+
+    /**
+     * Gets the outstanding calls on each channel to the endpoint.
+     *
+     * @return The outstanding calls, indexed by channel.
+     */
+    public int[] getChannelInFlightCalls() {
+        return channelInFlightCalls.clone();
+    }
+
+    /**
+     * Gets the total number of outstanding calls to the endpoint.
+     *
+     * @return The outstanding calls.
+     */
+    public int getInFlightCalls() {
+        return Arrays.stream(channelInFlightCalls).sum();
+    }
+
+    /**
+     * Checks whether the endpoint is currently ejected after consecutive failures.
+     *
+     * @return True if the endpoint is ejected.
+     */
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    /**
+     * Gets the state of the circuit breaker of the endpoint; it is always CLOSED when the circuit breaker is disabled.
+     *
+     * @return The circuit breaker state.
+     */
+    public AZCircuitState getCircuitState() {
+        return circuitState;
+    }
+
+    @Override
+    public String toString() {
+        return "AZEndpointStats{endpoint=" + endpoint + ", callCount=" + callCount
+                + ", channelInFlightCalls=" + Arrays.toString(channelInFlightCalls) + ", ejected=" + ejected
+                + ", circuitState=" + circuitState + "}";
+    }
+}
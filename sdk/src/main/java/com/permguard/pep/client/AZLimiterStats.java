@@ -0,0 +1,86 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+/**
+ * Snapshot of the statistics of the adaptive concurrency limiter.
+ */
+public class AZLimiterStats {
+    private final int limit;
+    private final int inFlightCalls;
+    private final int queueDepth;
+    private final long rejectedCount;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param limit         The current concurrency limit.
+     * @param inFlightCalls The number of outstanding calls.
+     * @param queueDepth    The number of calls waiting for the limit.
+     * @param rejectedCount The number of calls rejected because the wait queue was full.
+     */
+    public AZLimiterStats(int limit, int inFlightCalls, int queueDepth, long rejectedCount) {
+        this.limit = limit;
+        this.inFlightCalls = inFlightCalls;
+        this.queueDepth = queueDepth;
+        this.rejectedCount = rejectedCount;
+    }
+
+    /**
+     * Gets the current concurrency limit.
+     *
+     * @return The maximum number of outstanding calls.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the number of outstanding calls.
+     *
+     * @return The outstanding calls.
+     */
+    public int getInFlightCalls() {
+        return inFlightCalls;
+    }
+
+    /**
+     * Gets the number of calls waiting for the limit.
+     *
+     * @return The queue depth.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Gets the number of calls rejected because the wait queue was full.
+     *
+     * @return The rejected count.
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "AZLimiterStats{limit=" + limit + ", inFlightCalls=" + inFlightCalls
+                + ", queueDepth=" + queueDepth + ", rejectedCount=" + rejectedCount + "}";
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.request.AZModel;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.request.Action;
+import com.permguard.pep.model.request.Evaluation;
+import com.permguard.pep.model.request.ImmutableAZModel;
+import com.permguard.pep.model.request.ImmutableAction;
+import com.permguard.pep.model.request.ImmutableResource;
+import com.permguard.pep.model.request.ImmutableSubject;
+import com.permguard.pep.model.request.Resource;
+import com.permguard.pep.model.request.Subject;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template of requests sharing the same authorization model, for example all the checks of a user session.
+ * The model (zone, policy store, principal and entities) is mapped to its gRPC form once, when the template
+ * is created, and the requests of the template reuse it, so each check only maps its subject, resource,
+ * action and context. The template keeps an immutable copy of the model, so later changes to the model
+ * passed to {@link #of(AZModel)} do not affect it.
+ * Requests can also be created from immutable subjects, resources and actions, for example values of an
+ * {@code AZInterner}: the request keeps them without copying, and the client converts each immutable value
+ * to its gRPC form once and reuses it for every request that holds the same instance.
+ * Templates are immutable and can be shared across threads.
+ */
+public final class AZRequestTemplate {
+    private final ImmutableAZModel model;
+    private final AuthorizationCheck.AuthorizationModelRequest mappedModel;
+
+    private AZRequestTemplate(ImmutableAZModel model, AuthorizationCheck.AuthorizationModelRequest mappedModel) {
+        this.model = model;
+        this.mappedModel = mappedModel;
+    }
+
+    /**
+     * Creates a template for an authorization model.
+     *
+     * @param model The authorization model shared by the requests of the template, which is copied.
+     * @return The template.
+     */
+    public static AZRequestTemplate of(AZModel model) {
+        if (model == null) {
+            throw new IllegalArgumentException("Expect an authorization model but found: null");
+        }
+        ImmutableAZModel snapshot = ImmutableAZModel.copyOf(model);
+        // The entities are mapped once here, so caching their conversion across requests would not help.
+        return new AZRequestTemplate(snapshot, new Mapper(0).mapAuthorizationModel(snapshot.toAZModel()));
+    }
+
+    /**
+     * Gets the authorization model of the template.
+     *
+     * @return The immutable copy of the authorization model.
+     */
+    public ImmutableAZModel getAuthorizationModel() {
+        return model;
+    }
+
+    /**
+     * Creates an atomic request of the template.
+     *
+     * @param subject  The subject of the request.
+     * @param resource The resource of the request.
+     * @param action   The action of the request.
+     * @param context  The context of the request, or null.
+     * @return The request.
+     */
+    public AZRequest newRequest(Subject subject, Resource resource, Action action, Map<String, Object> context) {
+        return new TemplateRequest(this, subject, resource, action, context, null);
+    }
+
+    /**
+     * Creates an atomic request of the template from immutable values, which the request keeps without copying.
+     *
+     * @param subject  The subject of the request.
+     * @param resource The resource of the request.
+     * @param action   The action of the request.
+     * @param context  The context of the request, or null.
+     * @return The request.
+     */
+    public AZRequest newRequest(ImmutableSubject subject, ImmutableResource resource, ImmutableAction action,
+                                Map<String, Object> context) {
+        TemplateRequest request = new TemplateRequest(this, null, null, null, context, null);
+        request.immutableSubject = subject;
+        request.immutableResource = resource;
+        request.immutableAction = action;
+        return request;
+    }
+
+    /**
+     * Creates a request of the template with multiple evaluations.
+     *
+     * @param evaluations The evaluations of the request.
+     * @return The request.
+     */
+    public AZRequest newRequest(List<Evaluation> evaluations) {
+        return new TemplateRequest(this, null, null, null, null, evaluations);
+    }
+
+    /**
+     * Gets the mapped authorization model of a request created by a template.
+     *
+     * @param request The request.
+     * @return The mapped authorization model, or null if the request was not created by a template
+     *         or its authorization model has been replaced since.
+     */
+    static AuthorizationCheck.AuthorizationModelRequest mappedModelOf(AZRequest request) {
+        if (request instanceof TemplateRequest templated && !templated.modelReplaced) {
+            return templated.template.mappedModel;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the immutable subject of a request created by a template.
+     *
+     * @param request The request.
+     * @return The immutable subject, or null if the request was not created from one or its subject has been replaced since.
+     */
+    static ImmutableSubject immutableSubjectOf(AZRequest request) {
+        return request instanceof TemplateRequest templated ? templated.immutableSubject : null;
+    }
+
+    /**
+     * Gets the immutable resource of a request created by a template.
+     *
+     * @param request The request.
+     * @return The immutable resource, or null if the request was not created from one or its resource has been replaced since.
+     */
+    static ImmutableResource immutableResourceOf(AZRequest request) {
+        return request instanceof TemplateRequest templated ? templated.immutableResource : null;
+    }
+
+    /**
+     * Gets the immutable action of a request created by a template.
+     *
+     * @param request The request.
+     * @return The immutable action, or null if the request was not created from one or its action has been replaced since.
+     */
+    static ImmutableAction immutableActionOf(AZRequest request) {
+        return request instanceof TemplateRequest templated ? templated.immutableAction : null;
+    }
+
+    /**
+     * Request created by a template, which remembers the template to reuse its mapped authorization model.
+     * Until its model is replaced, the request returns a new mutable copy of the model of the template
+     * on each call to {@link #getAuthorizationModel()}, so changes to that copy do not affect the request.
+     * The immutable subject, resource and action of the request are returned the same way until they are replaced.
+     */
+    private static final class TemplateRequest extends AZRequest {
+        private final AZRequestTemplate template;
+        private boolean modelReplaced;
+        private ImmutableSubject immutableSubject;
+        private ImmutableResource immutableResource;
+        private ImmutableAction immutableAction;
+
+        TemplateRequest(AZRequestTemplate template, Subject subject, Resource resource, Action action,
+                        Map<String, Object> context, List<Evaluation> evaluations) {
+            super(null, null, subject, resource, action, context, evaluations);
+            this.template = template;
+        }
+
+        @Override
+        public AZModel getAuthorizationModel() {
+            return modelReplaced ? super.getAuthorizationModel() : template.model.toAZModel();
+        }
+
+        @Override
+        public void setAuthorizationModel(AZModel authorizationModel) {
+            super.setAuthorizationModel(authorizationModel);
+            modelReplaced = true;
+        }
+
+        @Override
+        public Subject getSubject() {
+            return immutableSubject != null ? immutableSubject.toSubject() : super.getSubject();
+        }
+
+        @Override
+        public void setSubject(Subject subject) {
+            super.setSubject(subject);
+            immutableSubject = null;
+        }
+
+        @Override
+        public Resource getResource() {
+            return immutableResource != null ? immutableResource.toResource() : super.getResource();
+        }
+
+        @Override
+        public void setResource(Resource resource) {
+            super.setResource(resource);
+            immutableResource = null;
+        }
+
+        @Override
+        public Action getAction() {
+            return immutableAction != null ? immutableAction.toAction() : super.getAction();
+        }
+
+        @Override
+        public void setAction(Action action) {
+            super.setAction(action);
+            immutableAction = null;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.exception.AuthorizationException;
+import com.permguard.pep.exception.AuthorizationLimitExceededException;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.response.AZResponse;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Session multiplexing authorization checks over a single long-lived bidirectional stream to the PDP.
+ * Each check is sent with a request ID unique within the session, which correlates it with its response;
+ * the caller's request ID is restored in the returned response. Sessions are thread-safe and must be closed.
+ * Checks sent on a stream bypass the decision cache, batching, retries and deadlines of unary checks.
+ * While the transport cannot take more messages, checks wait in the session and are sent once the stream is
+ * ready again; the number of outstanding checks, sent or waiting, is bounded.
+ */
+public class AZStreamSession implements AutoCloseable {
+    private final Mapper mapper;
+    private final Executor executor;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final Object lock = new Object();
+    private final int maxPendingChecks;
+    private final ArrayDeque<AuthorizationCheck.AuthorizationCheckRequest> unsent = new ArrayDeque<>();
+    private StreamObserver<AuthorizationCheck.AuthorizationCheckRequest> requests;
+    private ClientCallStreamObserver<AuthorizationCheck.AuthorizationCheckRequest> flowControl;
+    private AuthorizationException closedCause;
+    private boolean requestsClosed;
+
+    /**
+     * Constructor for AZStreamSession.
+     *
+     * @param mapper           The mapper of requests and responses.
+     * @param executor         The executor responses are mapped on.
+     * @param maxPendingChecks The maximum number of outstanding checks.
+     * @param opener           The function opening the stream with the observer of its responses.
+     */
+    AZStreamSession(Mapper mapper, Executor executor, int maxPendingChecks,
+                    Function<ClientResponseObserver<AuthorizationCheck.AuthorizationCheckRequest, AuthorizationCheck.AuthorizationCheckResponse>,
+                            StreamObserver<AuthorizationCheck.AuthorizationCheckRequest>> opener) {
+        this.mapper = mapper;
+        this.executor = executor;
+        this.maxPendingChecks = Math.max(1, maxPendingChecks);
+        StreamObserver<AuthorizationCheck.AuthorizationCheckRequest> opened = opener.apply(new ResponseObserver());
+        synchronized (lock) {
+            requests = opened;
+        }
+        // The stream may have become ready while it was being opened.
+        drain();
+    }
+
+    /**
+     * Sends an authorization check on the stream.
+     *
+     * @param requestPayload The request payload containing the authorization check details.
+     * @return A future completed with the response from the PDP, or exceptionally with an AuthorizationException,
+     *         which is an AuthorizationLimitExceededException if the session has too many outstanding checks.
+     */
+    public CompletableFuture<AZResponse> check(AZRequest requestPayload) {
+        Pending entry = new Pending(requestPayload.getRequestId());
+        String streamId = Long.toString(nextId.incrementAndGet());
+        try {
+            AuthorizationCheck.AuthorizationCheckRequest grpcRequest = mapper.mapAuthorizationCheckRequest(requestPayload)
+                    .toBuilder()
+                    .setRequestID(streamId)
+                    .build();
+            synchronized (lock) {
+                if (closedCause != null) {
+                    throw closedCause;
+                }
+                if (pending.size() >= maxPendingChecks) {
+                    throw new AuthorizationLimitExceededException("The stream session has too many outstanding checks.");
+                }
+                pending.put(streamId, entry);
+                if (unsent.isEmpty() && isReady()) {
+                    requests.onNext(grpcRequest);
+                } else {
+                    unsent.add(grpcRequest);
+                }
+            }
+        } catch (Exception e) {
+            pending.remove(streamId);
+            entry.future.completeExceptionally(AZClient.toAuthorizationException(e));
+        }
+        return entry.future;
+    }
+
+    /**
+     * Gets the number of checks sent on the stream that are waiting for their response.
+     *
+     * @return The outstanding checks.
+     */
+    public int getPendingChecks() {
+        return pending.size();
+    }
+
+    /**
+     * Half-closes the stream once the checks waiting in the session are sent. Checks already submitted still
+     * receive their response; new checks fail.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closedCause != null) {
+                return;
+            }
+            closedCause = new AuthorizationException("The stream session is closed.");
+        }
+        drain();
+    }
+
+    private boolean isReady() {
+        return requests != null && (flowControl == null || flowControl.isReady());
+    }
+
+    /**
+     * Sends the waiting checks while the stream is ready, and half-closes it once the session is closed
+     * and no check is left waiting.
+     */
+    private void drain() {
+        synchronized (lock) {
+            if (requests == null || requestsClosed) {
+                return;
+            }
+            while (!unsent.isEmpty() && isReady()) {
+                requests.onNext(unsent.poll());
+            }
+            if (unsent.isEmpty() && closedCause != null) {
+                requestsClosed = true;
+                requests.onCompleted();
+            }
+        }
+    }
+
+    private void terminate(AuthorizationException cause) {
+        synchronized (lock) {
+            if (closedCause == null) {
+                closedCause = cause;
+            }
+            unsent.clear();
+            if (!requestsClosed) {
+                requestsClosed = true;
+                if (requests != null) {
+                    // Cancels the request side too, so that the call does not outlive its responses.
+                    requests.onError(cause);
+                }
+            }
+        }
+        List<Pending> failed = new ArrayList<>(pending.values());
+        pending.clear();
+        for (Pending entry : failed) {
+            entry.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Observer correlating the responses of the stream with the pending checks.
+     */
+    private final class ResponseObserver
+            implements ClientResponseObserver<AuthorizationCheck.AuthorizationCheckRequest, AuthorizationCheck.AuthorizationCheckResponse> {
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<AuthorizationCheck.AuthorizationCheckRequest> requestStream) {
+            synchronized (lock) {
+                flowControl = requestStream;
+            }
+            requestStream.setOnReadyHandler(AZStreamSession.this::drain);
+        }
+
+        @Override
+        public void onNext(AuthorizationCheck.AuthorizationCheckResponse grpcResponse) {
+            Pending entry = pending.remove(grpcResponse.getRequestID());
+            if (entry == null) {
+                return;
+            }
+            executor.execute(() -> {
+                try {
+                    AZResponse response = mapper.mapAuthResponsePayload(grpcResponse);
+                    response.setRequestId(entry.requestId != null ? entry.requestId : "");
+                    entry.future.complete(response);
+                } catch (Exception e) {
+                    entry.future.completeExceptionally(AZClient.toAuthorizationException(e));
+                }
+            });
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            terminate(AZClient.toAuthorizationException(t));
+        }
+
+        @Override
+        public void onCompleted() {
+            terminate(new AuthorizationException("The PDP closed the stream before answering every check."));
+        }
+    }
+
+    private static final class Pending {
+        private final String requestId;
+        private final CompletableFuture<AZResponse> future = new CompletableFuture<>();
+
+        Pending(String requestId) {
+            this.requestId = requestId;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.config.AZEndpoint;
+import com.permguard.pep.config.AZTransport;
+import io.grpc.CompressorRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.netty.NettyChannelBuilder;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates the channels to the PDP endpoints over the transport of each endpoint.
+ * TCP channels use the default gRPC transport and event loop group, which prefer epoll when it is available,
+ * unless the configuration sizes the event loop group, disables the native transport or shares the event loop
+ * group of the client with other clients. Unix domain socket channels always use epoll.
+ * The event loop groups are created with the first channel that needs them and released by {@link #shutdown()}.
+ * <p>
+ * Shared groups live in a static registry keyed by transport and thread count. A factory takes one reference
+ * on a shared group when it first needs it and gives it back once in {@link #shutdown()}; the group is shut down
+ * only when its last reference is given back, so closing a client never stops a group another client still uses.
+ * A factory that needs the group again after that point creates a new one.
+ */
+class ChannelFactory {
+    private static final Map<String, SharedGroup> SHARED_GROUPS = new HashMap<>();
+
+    private final boolean usePlaintext;
+    private final int eventLoopThreads;
+    private final boolean nativeTransport;
+    private final boolean sharedEventLoop;
+    private final boolean directExecutor;
+    private final boolean customEventLoop;
+    private final CompressorRegistry compressorRegistry;
+    private EventLoopGroup epollGroup;
+    private EventLoopGroup nioGroup;
+
+    /**
+     * Constructor for ChannelFactory.
+     *
+     * @param config     The client configuration.
+     * @param compressor The compressor of the request messages, or null.
+     */
+    ChannelFactory(AZConfig config, MeasuredCompressor compressor) {
+        this.usePlaintext = config.isUsePlaintext();
+        this.eventLoopThreads = Math.max(0, config.getEventLoopThreads());
+        this.nativeTransport = config.isNativeTransportEnabled() && Epoll.isAvailable();
+        this.sharedEventLoop = config.isSharedEventLoopEnabled();
+        this.directExecutor = config.isDirectExecutorEnabled();
+        this.customEventLoop = eventLoopThreads > 0 || !config.isNativeTransportEnabled() || sharedEventLoop;
+        this.compressorRegistry = compressor != null ? compressor.registry() : null;
+    }
+
+    /**
+     * Creates a channel to an endpoint.
+     *
+     * @param endpoint The endpoint.
+     * @return The channel.
+     * @throws IllegalStateException If the endpoint is a Unix domain socket and native epoll is not available.
+     */
+    synchronized ManagedChannel newChannel(AZEndpoint endpoint) {
+        ManagedChannelBuilder<?> builder;
+        switch (endpoint.getTransport()) {
+            case IN_PROCESS:
+                builder = InProcessChannelBuilder.forName(endpoint.getPath());
+                break;
+            case UNIX_DOMAIN_SOCKET:
+                if (!Epoll.isAvailable()) {
+                    throw new IllegalStateException("Unix domain socket endpoints require the native epoll transport",
+                            Epoll.unavailabilityCause());
+                }
+                builder = NettyChannelBuilder.forAddress(new DomainSocketAddress(endpoint.getPath()))
+                        .eventLoopGroup(eventLoopGroup(true))
+                        .channelType(EpollDomainSocketChannel.class)
+                        // Keep-alive is a TCP option, unknown to domain sockets.
+                        .withOption(ChannelOption.SO_KEEPALIVE, null);
+                break;
+            default:
+                if (customEventLoop) {
+                    builder = NettyChannelBuilder.forAddress(endpoint.getHost(), endpoint.getPort())
+                            .eventLoopGroup(eventLoopGroup(nativeTransport))
+                            .channelType(nativeTransport ? EpollSocketChannel.class : NioSocketChannel.class);
+                } else {
+                    builder = ManagedChannelBuilder.forAddress(endpoint.getHost(), endpoint.getPort());
+                }
+                break;
+        }
+        if (usePlaintext && endpoint.getTransport() != AZTransport.IN_PROCESS) {
+            builder.usePlaintext();
+        }
+        if (directExecutor) {
+            builder.directExecutor();
+        }
+        if (compressorRegistry != null) {
+            builder.compressorRegistry(compressorRegistry);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Releases the event loop groups of the factory. The channels must have been shut down first.
+     */
+    synchronized void shutdown() {
+        if (epollGroup != null) {
+            release(epollGroup, true);
+            epollGroup = null;
+        }
+        if (nioGroup != null) {
+            release(nioGroup, false);
+            nioGroup = null;
+        }
+    }
+
+    /**
+     * Gets the event loop group of a transport, creating or taking a reference on it the first time.
+     *
+     * @param epoll True for the epoll group, false for the NIO group.
+     * @return The event loop group.
+     */
+    synchronized EventLoopGroup eventLoopGroup(boolean epoll) {
+        if (epoll) {
+            if (epollGroup == null) {
+                epollGroup = acquire(true);
+            }
+            return epollGroup;
+        }
+        if (nioGroup == null) {
+            nioGroup = acquire(false);
+        }
+        return nioGroup;
+    }
+
+    private EventLoopGroup acquire(boolean epoll) {
+        if (!sharedEventLoop) {
+            return newGroup(epoll, "permguard-azclient-" + (epoll ? "epoll" : "nio"));
+        }
+        synchronized (SHARED_GROUPS) {
+            SharedGroup shared = SHARED_GROUPS.computeIfAbsent(sharedKey(epoll),
+                    key -> new SharedGroup(newGroup(epoll, "permguard-shared-" + (epoll ? "epoll" : "nio"))));
+            shared.references++;
+            return shared.group;
+        }
+    }
+
+    private void release(EventLoopGroup group, boolean epoll) {
+        if (!sharedEventLoop) {
+            group.shutdownGracefully();
+            return;
+        }
+        synchronized (SHARED_GROUPS) {
+            String key = sharedKey(epoll);
+            SharedGroup shared = SHARED_GROUPS.get(key);
+            // Only the group this factory holds a reference on is released.
+            if (shared != null && shared.group == group && --shared.references == 0) {
+                SHARED_GROUPS.remove(key);
+                shared.group.shutdownGracefully();
+            }
+        }
+    }
+
+    private String sharedKey(boolean epoll) {
+        return (epoll ? "epoll:" : "nio:") + eventLoopThreads;
+    }
+
+    private EventLoopGroup newGroup(boolean epoll, String threadPrefix) {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(threadPrefix, true);
+        return epoll
+                ? new EpollEventLoopGroup(eventLoopThreads, threadFactory)
+                : new NioEventLoopGroup(eventLoopThreads, threadFactory);
+    }
+
+    /**
+     * An event loop group shared by several clients, with the number of clients using it.
+     */
+    private static class SharedGroup {
+        private final EventLoopGroup group;
+        private int references;
+
+        SharedGroup(EventLoopGroup group) {
+            this.group = group;
+        }
+    }
+}
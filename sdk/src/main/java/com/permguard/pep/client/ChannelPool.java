@@ -0,0 +1,144 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.internal.proto.V1PDPServiceGrpc;
+import io.grpc.ManagedChannel;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Pool of channels to the same PDP endpoint.
+ * Each call is sent on the channel with the fewest outstanding calls, so load spreads over
+ * several HTTP/2 connections instead of queueing on the stream limit of a single one.
+ */
+class ChannelPool {
+    private final ManagedChannel[] channels;
+    private final V1PDPServiceGrpc.V1PDPServiceFutureStub[] stubs;
+    private final V1PDPServiceGrpc.V1PDPServiceStub[] asyncStubs;
+    private final AtomicIntegerArray inFlight;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Constructor for ChannelPool.
+     *
+     * @param channels The channels of the pool.
+     */
+    ChannelPool(List<ManagedChannel> channels) {
+        this.channels = channels.toArray(new ManagedChannel[0]);
+        this.stubs = new V1PDPServiceGrpc.V1PDPServiceFutureStub[this.channels.length];
+        this.asyncStubs = new V1PDPServiceGrpc.V1PDPServiceStub[this.channels.length];
+        for (int i = 0; i < this.channels.length; i++) {
+            this.stubs[i] = V1PDPServiceGrpc.newFutureStub(this.channels[i]);
+            this.asyncStubs[i] = V1PDPServiceGrpc.newStub(this.channels[i]);
+        }
+        this.inFlight = new AtomicIntegerArray(this.channels.length);
+    }
+
+    /**
+     * Selects the channel with the fewest outstanding calls and counts a new call on it.
+     * Ties are broken in round-robin order. The call must be completed with {@link #release(int)}.
+     *
+     * @return The index of the selected channel.
+     */
+    int acquire() {
+        int size = channels.length;
+        int start = size == 1 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+        int best = start;
+        int bestLoad = inFlight.get(start);
+        for (int i = 1; i < size && bestLoad > 0; i++) {
+            int index = (start + i) % size;
+            int load = inFlight.get(index);
+            if (load < bestLoad) {
+                best = index;
+                bestLoad = load;
+            }
+        }
+        inFlight.incrementAndGet(best);
+        return best;
+    }
+
+    /**
+     * Counts the completion of a call started with {@link #acquire()}.
+     *
+     * @param index The index of the channel.
+     */
+    void release(int index) {
+        inFlight.decrementAndGet(index);
+    }
+
+    /**
+     * Gets the stub of a channel.
+     *
+     * @param index The index of the channel.
+     * @return The future stub bound to the channel.
+     */
+    V1PDPServiceGrpc.V1PDPServiceFutureStub stub(int index) {
+        return stubs[index];
+    }
+
+    /**
+     * Gets the asynchronous stub of a channel, used for streaming calls.
+     *
+     * @param index The index of the channel.
+     * @return The asynchronous stub bound to the channel.
+     */
+    V1PDPServiceGrpc.V1PDPServiceStub asyncStub(int index) {
+        return asyncStubs[index];
+    }
+
+    /**
+     * Gets the number of outstanding calls on all the channels of the pool.
+     *
+     * @return The total number of outstanding calls.
+     */
+    int inFlight() {
+        int total = 0;
+        for (int i = 0; i < channels.length; i++) {
+            total += inFlight.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of outstanding calls on each channel of the pool.
+     *
+     * @return The outstanding calls, indexed by channel.
+     */
+    int[] inFlightPerChannel() {
+        int[] result = new int[channels.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = inFlight.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Shuts down all the channels of the pool.
+     */
+    void shutdown() {
+        for (ManagedChannel channel : channels) {
+            if (!channel.isShutdown()) {
+                channel.shutdown();
+            }
+        }
+    }
+}
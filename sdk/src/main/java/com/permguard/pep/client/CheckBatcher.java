@@ -0,0 +1,235 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.exception.AuthorizationException;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects concurrent single checks that share the same authorization model and sends them
+ * as one AuthorizationCheck RPC with multiple evaluations.
+ * Evaluations are matched to the checks by their request IDs, or by position when the PDP does not echo them.
+ * A check left unanswered gets the top-level context of the response, which carries the error reported by
+ * the PDP, as a deny; without such a context it fails.
+ */
+class CheckBatcher {
+    private final Function<AuthorizationCheck.AuthorizationCheckRequest,
+            CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> invoker;
+    private final ScheduledExecutorService scheduler;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final Map<AuthorizationCheck.AuthorizationModelRequest, Batch> pending = new HashMap<>();
+
+    /**
+     * Constructor for CheckBatcher.
+     *
+     * @param invoker      The function sending a request to the PDP.
+     * @param scheduler    The scheduler used to flush batches when the window elapses.
+     * @param maxBatchSize The maximum number of checks sent in one request.
+     * @param windowNanos  The maximum time a check waits for other checks to join its batch.
+     */
+    CheckBatcher(Function<AuthorizationCheck.AuthorizationCheckRequest,
+                         CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> invoker,
+                 ScheduledExecutorService scheduler, int maxBatchSize, long windowNanos) {
+        this.invoker = invoker;
+        this.scheduler = scheduler;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * Checks whether a request can be merged into a batch.
+     * Only single checks are batched; requests that already carry evaluations are sent as they are.
+     *
+     * @param request The gRPC request.
+     * @return True if the request is a single check.
+     */
+    static boolean isBatchable(AuthorizationCheck.AuthorizationCheckRequest request) {
+        return request.getEvaluationsCount() == 0
+                && request.hasSubject() && request.hasResource() && request.hasAction();
+    }
+
+    /**
+     * Adds a single check to the batch of its authorization model.
+     *
+     * @param request The gRPC request of a single check.
+     * @return A future completed with the response for this check.
+     */
+    CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> submit(AuthorizationCheck.AuthorizationCheckRequest request) {
+        Entry entry = new Entry(request);
+        Batch full = null;
+        boolean schedule = false;
+        synchronized (pending) {
+            Batch batch = pending.get(request.getAuthorizationModel());
+            if (batch == null) {
+                batch = new Batch(request.getAuthorizationModel());
+                pending.put(batch.model, batch);
+                schedule = true;
+            }
+            batch.entries.add(entry);
+            if (batch.entries.size() >= maxBatchSize) {
+                pending.remove(batch.model);
+                full = batch;
+            } else if (schedule) {
+                Batch scheduled = batch;
+                scheduler.schedule(() -> flush(scheduled), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return entry.future;
+    }
+
+    private void flush(Batch batch) {
+        synchronized (pending) {
+            if (pending.get(batch.model) != batch) {
+                return;
+            }
+            pending.remove(batch.model);
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        if (batch.entries.size() == 1) {
+            Entry entry = batch.entries.get(0);
+            invoker.apply(entry.request).whenComplete((response, error) -> {
+                if (error != null) {
+                    entry.future.completeExceptionally(error);
+                } else {
+                    entry.future.complete(response);
+                }
+            });
+            return;
+        }
+
+        AuthorizationCheck.AuthorizationCheckRequest.Builder builder = AuthorizationCheck.AuthorizationCheckRequest.newBuilder()
+                .setAuthorizationModel(batch.model);
+        for (int i = 0; i < batch.entries.size(); i++) {
+            builder.addEvaluations(toEvaluation(Integer.toString(i), batch.entries.get(i).request));
+        }
+        invoker.apply(builder.build()).whenComplete((response, error) -> {
+            if (error != null) {
+                for (Entry entry : batch.entries) {
+                    entry.future.completeExceptionally(error);
+                }
+                return;
+            }
+            AuthorizationCheck.EvaluationResponse[] evaluations = match(response, batch.entries.size());
+            for (int i = 0; i < evaluations.length; i++) {
+                Entry entry = batch.entries.get(i);
+                if (evaluations[i] != null) {
+                    entry.future.complete(toResponse(entry.request, evaluations[i]));
+                } else if (response.hasContext()) {
+                    // The PDP reported why it did not evaluate the check, for example an invalid request.
+                    entry.future.complete(toResponse(entry.request, AuthorizationCheck.EvaluationResponse.newBuilder()
+                            .setDecision(false)
+                            .setContext(response.getContext())
+                            .build()));
+                } else {
+                    entry.future.completeExceptionally(
+                            new AuthorizationException("The PDP response is missing the evaluation of a batched check."));
+                }
+            }
+        });
+    }
+
+    /** MAPPING HELPERS **/
+
+    private static AuthorizationCheck.EvaluationRequest toEvaluation(String requestId, AuthorizationCheck.AuthorizationCheckRequest request) {
+        AuthorizationCheck.EvaluationRequest.Builder builder = AuthorizationCheck.EvaluationRequest.newBuilder()
+                .setRequestID(requestId)
+                .setSubject(request.getSubject())
+                .setResource(request.getResource())
+                .setAction(request.getAction());
+        if (request.hasContext()) {
+            builder.setContext(request.getContext());
+        }
+        return builder.build();
+    }
+
+    private static AuthorizationCheck.AuthorizationCheckResponse toResponse(AuthorizationCheck.AuthorizationCheckRequest request,
+                                                                            AuthorizationCheck.EvaluationResponse evaluation) {
+        AuthorizationCheck.AuthorizationCheckResponse.Builder builder = AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                .setDecision(evaluation.getDecision());
+        if (request.hasRequestID()) {
+            builder.setRequestID(request.getRequestID());
+        }
+        if (evaluation.hasContext()) {
+            builder.setContext(evaluation.getContext());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Matches the evaluations of a response to the checks of a batch: by the request ID, which is the index of
+     * the check, or by position when the PDP does not echo the request IDs and answers every check.
+     */
+    private static AuthorizationCheck.EvaluationResponse[] match(AuthorizationCheck.AuthorizationCheckResponse response, int size) {
+        AuthorizationCheck.EvaluationResponse[] evaluations = new AuthorizationCheck.EvaluationResponse[size];
+        List<AuthorizationCheck.EvaluationResponse> answered = response.getEvaluationsList();
+        if (answered.size() == size && answered.stream().allMatch(evaluation -> evaluation.getRequestID().isEmpty())) {
+            return answered.toArray(evaluations);
+        }
+        for (AuthorizationCheck.EvaluationResponse evaluation : answered) {
+            int index = indexOf(evaluation.getRequestID(), size);
+            if (index >= 0) {
+                evaluations[index] = evaluation;
+            }
+        }
+        return evaluations;
+    }
+
+    private static int indexOf(String requestId, int size) {
+        try {
+            int index = Integer.parseInt(requestId);
+            return index < size ? index : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Batch {
+        private final AuthorizationCheck.AuthorizationModelRequest model;
+        private final List<Entry> entries = new ArrayList<>();
+
+        Batch(AuthorizationCheck.AuthorizationModelRequest model) {
+            this.model = model;
+        }
+    }
+
+    private static final class Entry {
+        private final AuthorizationCheck.AuthorizationCheckRequest request;
+        private final CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> future = new CompletableFuture<>();
+
+        Entry(AuthorizationCheck.AuthorizationCheckRequest request) {
+            this.request = request;
+        }
+    }
+}
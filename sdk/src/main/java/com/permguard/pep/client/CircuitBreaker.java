@@ -0,0 +1,253 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZCircuitBreakerListener;
+import com.permguard.pep.config.AZCircuitState;
+import com.permguard.pep.config.AZEndpoint;
+
+/**
+ * Circuit breaker of a PDP endpoint.
+ * It records the outcome of the latest calls in a sliding window and opens when the failure rate or the
+ * slow-call rate reaches its threshold. While open, calls are short-circuited; once the open duration has
+ * elapsed, a few trial calls decide whether it closes again or reopens.
+ */
+class CircuitBreaker {
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final AZEndpoint endpoint;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final AZCircuitBreakerListener listener;
+
+    private final byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private volatile AZCircuitState state = AZCircuitState.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * Constructor for CircuitBreaker.
+     *
+     * @param endpoint              The endpoint protected by the circuit breaker.
+     * @param windowSize            The number of latest calls the rates are computed on.
+     * @param minimumCalls          The number of calls needed before the circuit breaker can open.
+     * @param failureRateThreshold  The failure rate, between 0 and 1, that opens the circuit breaker.
+     * @param slowCallRateThreshold The slow-call rate, between 0 and 1, that opens the circuit breaker.
+     * @param slowCallNanos         The latency above which a call is slow.
+     * @param openNanos             How long the circuit breaker stays open.
+     * @param halfOpenCalls         The number of trial calls when half-open.
+     * @param listener              The listener notified of state changes, or null.
+     */
+    CircuitBreaker(AZEndpoint endpoint, int windowSize, int minimumCalls, double failureRateThreshold,
+                   double slowCallRateThreshold, long slowCallNanos, long openNanos, int halfOpenCalls,
+                   AZCircuitBreakerListener listener) {
+        this.endpoint = endpoint;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.listener = listener;
+        this.outcomes = new byte[this.windowSize];
+    }
+
+    /**
+     * Gets the current state.
+     *
+     * @return The state.
+     */
+    AZCircuitState state() {
+        return state;
+    }
+
+    /**
+     * Checks, without taking a permission, whether a call would be permitted.
+     *
+     * @return True if a call would be permitted.
+     */
+    boolean isCallPermitted() {
+        if (state == AZCircuitState.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    return System.nanoTime() - openedAt >= openNanos;
+                default:
+                    return halfOpenPermits > 0;
+            }
+        }
+    }
+
+    /**
+     * Takes the permission to send a call. Every permitted call must be followed by one of the
+     * {@code on*} methods.
+     *
+     * @return True if the call can be sent, false if it must be short-circuited.
+     */
+    boolean tryAcquirePermission() {
+        if (state == AZCircuitState.CLOSED) {
+            return true;
+        }
+        AZCircuitState from;
+        synchronized (this) {
+            from = state;
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.nanoTime() - openedAt < openNanos) {
+                        return false;
+                    }
+                    state = AZCircuitState.HALF_OPEN;
+                    halfOpenPermits = halfOpenCalls - 1;
+                    halfOpenSuccesses = 0;
+                    break;
+                default:
+                    if (halfOpenPermits <= 0) {
+                        return false;
+                    }
+                    halfOpenPermits--;
+                    return true;
+            }
+        }
+        notifyListener(from, AZCircuitState.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * Records a call answered by the endpoint.
+     *
+     * @param latencyNanos The latency of the call.
+     */
+    void onSuccess(long latencyNanos) {
+        record(latencyNanos >= slowCallNanos ? SLOW : SUCCESS);
+    }
+
+    /**
+     * Records a call that failed because of the endpoint.
+     */
+    void onFailure() {
+        record(FAILURE);
+    }
+
+    /**
+     * Records a call whose outcome says nothing about the endpoint, such as a cancelled call.
+     */
+    synchronized void onIgnored() {
+        if (state == AZCircuitState.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    private void record(byte outcome) {
+        AZCircuitState from;
+        AZCircuitState to;
+        synchronized (this) {
+            from = state;
+            to = state == AZCircuitState.HALF_OPEN ? recordHalfOpen(outcome) : recordClosed(outcome);
+        }
+        if (from != to) {
+            notifyListener(from, to);
+        }
+    }
+
+    private AZCircuitState recordClosed(byte outcome) {
+        if (state == AZCircuitState.OPEN) {
+            // A call sent before the circuit breaker opened.
+            return state;
+        }
+        if (recorded == windowSize) {
+            forget(outcomes[next]);
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % windowSize;
+        if (outcome == FAILURE) {
+            failures++;
+        } else if (outcome == SLOW) {
+            slowCalls++;
+        }
+        if (recorded >= minimumCalls
+                && ((double) failures / recorded >= failureRateThreshold
+                || (double) slowCalls / recorded >= slowCallRateThreshold)) {
+            open();
+        }
+        return state;
+    }
+
+    private AZCircuitState recordHalfOpen(byte outcome) {
+        if (outcome != SUCCESS) {
+            open();
+        } else if (++halfOpenSuccesses >= halfOpenCalls) {
+            reset();
+            state = AZCircuitState.CLOSED;
+        }
+        return state;
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == FAILURE) {
+            failures--;
+        } else if (outcome == SLOW) {
+            slowCalls--;
+        }
+    }
+
+    private void open() {
+        reset();
+        state = AZCircuitState.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void reset() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private void notifyListener(AZCircuitState from, AZCircuitState to) {
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.onStateChange(endpoint, from, to);
+        } catch (RuntimeException e) {
+            // A failing listener must not break the call path.
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.exception.AuthorizationCircuitOpenException;
+import com.permguard.pep.exception.AuthorizationLimitExceededException;
+import com.permguard.pep.exception.AuthorizationTimeoutException;
+import io.grpc.Deadline;
+import io.grpc.Status;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive limit of the outstanding calls to the PDP.
+ * The limit follows the gradient between the minimum and the latest round-trip times: it grows while the
+ * latency stays close to the no-load latency and shrinks as soon as calls start queuing in the PDP. The
+ * minimum is taken over the latest two windows of calls, so that it follows lasting latency changes. Calls failing
+ * because the PDP is overloaded cut the limit multiplicatively. Calls over the limit wait in a bounded queue
+ * and are rejected right away once it is full. A queued call fails once its deadline passes, and leaves the queue
+ * as soon as it is completed or cancelled, so abandoned calls do not take the place of live ones.
+ */
+class ConcurrencyLimiter {
+    private static final double SMOOTHING = 0.2;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final int RTT_WINDOW = 500;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueSize;
+    private final ScheduledExecutorService scheduler;
+    private final ArrayDeque<Pending<?>> queue = new ArrayDeque<>();
+    private double limit;
+    private long previousWindowMinRtt = Long.MAX_VALUE;
+    private long windowMinRtt = Long.MAX_VALUE;
+    private int windowSamples;
+    private int inFlight;
+    private long rejected;
+
+    /**
+     * Constructor for ConcurrencyLimiter.
+     *
+     * @param initialLimit The initial limit.
+     * @param minLimit     The lower bound of the limit.
+     * @param maxLimit     The upper bound of the limit.
+     * @param maxQueueSize The maximum number of calls waiting for the limit.
+     * @param scheduler    The scheduler of the deadlines of the queued calls.
+     */
+    ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueueSize, ScheduledExecutorService scheduler) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.maxQueueSize = Math.max(0, maxQueueSize);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sends a call without a deadline within the limit, or queues it until a slot is released.
+     *
+     * @param call The function sending the call.
+     * @param <T>  The type of the response.
+     * @return A future completed with the response, or exceptionally with an AuthorizationLimitExceededException
+     *         if the wait queue is full.
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        return submit(call, null);
+    }
+
+    /**
+     * Sends a call within the limit, or queues it until a slot is released or its deadline passes.
+     *
+     * @param call     The function sending the call.
+     * @param deadline The deadline of the call, or null.
+     * @param <T>      The type of the response.
+     * @return A future completed with the response, or exceptionally with an AuthorizationLimitExceededException
+     *         if the wait queue is full, or with an AuthorizationTimeoutException if the deadline passes in the queue.
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call, Deadline deadline) {
+        Pending<T> pending;
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                pending = null;
+            } else if (queue.size() >= maxQueueSize) {
+                rejected++;
+                return CompletableFuture.failedFuture(new AuthorizationLimitExceededException(
+                        "The concurrency limit of the PDP calls is reached and the wait queue is full."));
+            } else {
+                pending = new Pending<>(call);
+                queue.add(pending);
+                // Scheduled under the lock, so the call cannot leave the queue before its timeout is set.
+                if (deadline != null) {
+                    Pending<T> expiring = pending;
+                    pending.timeout = scheduler.schedule(expiring::expire,
+                            deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if (pending == null) {
+            return start(call);
+        }
+        Pending<T> queued = pending;
+        queued.result.whenComplete((response, error) -> {
+            synchronized (this) {
+                if (!queued.started) {
+                    queue.remove(queued);
+                    queued.cancelTimeout();
+                }
+            }
+        });
+        return queued.result;
+    }
+
+    /**
+     * Gets a snapshot of the limiter statistics.
+     *
+     * @return The limiter statistics.
+     */
+    synchronized AZLimiterStats stats() {
+        return new AZLimiterStats((int) limit, inFlight, queue.size(), rejected);
+    }
+
+    private <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            onComplete(0, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((response, error) -> onComplete(System.nanoTime() - start, error));
+        return future;
+    }
+
+    private void onComplete(long rttNanos, Throwable error) {
+        List<Pending<?>> ready = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            update(rttNanos, error);
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                Pending<?> pending = queue.poll();
+                pending.started = true;
+                pending.cancelTimeout();
+                if (!pending.result.isDone()) {
+                    inFlight++;
+                    ready.add(pending);
+                }
+            }
+        }
+        for (Pending<?> pending : ready) {
+            pending.start();
+        }
+    }
+
+    private void update(long rttNanos, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause != null) {
+            if (isOverload(cause)) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            }
+            // Other failures, such as short-circuited calls, carry no round-trip time.
+            return;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+        windowMinRtt = Math.min(windowMinRtt, rttNanos);
+        long minRtt = Math.min(previousWindowMinRtt, windowMinRtt);
+        if (++windowSamples == RTT_WINDOW) {
+            previousWindowMinRtt = windowMinRtt;
+            windowMinRtt = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * minRtt / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        if (inFlight + 1 < limit / 2 && newLimit > limit) {
+            // The limit is not the bottleneck, so there is nothing to learn about a higher one.
+            return;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+    }
+
+    private static boolean isOverload(Throwable error) {
+        if (error instanceof AuthorizationCircuitOpenException) {
+            return false;
+        }
+        switch (Status.fromThrowable(error).getCode()) {
+            case UNAVAILABLE:
+            case RESOURCE_EXHAUSTED:
+            case DEADLINE_EXCEEDED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * A call waiting for the limit.
+     */
+    private final class Pending<T> {
+        private final Supplier<CompletableFuture<T>> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        // Set under the lock of the limiter when the call leaves the queue.
+        private boolean started;
+        // The timer failing the call if its deadline passes in the queue, set and cancelled under the lock of the limiter.
+        private ScheduledFuture<?> timeout;
+
+        Pending(Supplier<CompletableFuture<T>> call) {
+            this.call = call;
+        }
+
+        void expire() {
+            synchronized (ConcurrencyLimiter.this) {
+                if (started) {
+                    return;
+                }
+                queue.remove(this);
+            }
+            result.completeExceptionally(new AuthorizationTimeoutException(
+                    "The deadline of the call passed while it waited for the concurrency limit.", null));
+        }
+
+        void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel(false);
+                timeout = null;
+            }
+        }
+
+        void start() {
+            CompletableFuture<T> future = ConcurrencyLimiter.this.start(call);
+            future.whenComplete((response, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(response);
+                }
+            });
+            // Cancelling the result cancels the call, which releases its slot when it completes.
+            result.whenComplete((response, error) -> {
+                if (result.isCancelled()) {
+                    future.cancel(false);
+                }
+            });
+        }
+    }
+}
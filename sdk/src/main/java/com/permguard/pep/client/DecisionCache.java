@@ -0,0 +1,123 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded decision cache with separate TTLs for permit and deny decisions.
+ * Eviction follows W-TinyLFU through a {@link StripedTinyLfuCache}: new entries enter a small LRU window, and an entry
+ * leaving the window is admitted to the main segmented LRU only if it has been requested more often than the
+ * entry it would replace.
+ * The hash code of a key is computed, and memoized by the key, before the lock of its cache segment is taken,
+ * and the statistics are counted without locking, so concurrent checks of different requests rarely wait
+ * for each other.
+ */
+class DecisionCache {
+    private final long permitTtlNanos;
+    private final long denyTtlNanos;
+    private final StripedTinyLfuCache<AuthorizationCheck.AuthorizationCheckRequest, Entry> data;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    /**
+     * Constructor for DecisionCache.
+     *
+     * @param maximumSize    The maximum number of cached decisions.
+     * @param permitTtlNanos How long a permit decision is cached; zero or less disables caching of permits.
+     * @param denyTtlNanos   How long a deny decision is cached; zero or less disables caching of denials.
+     */
+    DecisionCache(long maximumSize, long permitTtlNanos, long denyTtlNanos) {
+        this.permitTtlNanos = permitTtlNanos;
+        this.denyTtlNanos = denyTtlNanos;
+        this.data = new StripedTinyLfuCache<>(maximumSize);
+    }
+
+    /**
+     * Gets the cache key of a request: the request without its request ID.
+     *
+     * @param request The gRPC request.
+     * @return The cache key.
+     */
+    static AuthorizationCheck.AuthorizationCheckRequest keyOf(AuthorizationCheck.AuthorizationCheckRequest request) {
+        return request.hasRequestID() ? request.toBuilder().clearRequestID().build() : request;
+    }
+
+    /**
+     * Gets a cached response.
+     *
+     * @param key The cache key.
+     * @return The cached response, without request ID, or null if absent or expired.
+     */
+    AuthorizationCheck.AuthorizationCheckResponse get(AuthorizationCheck.AuthorizationCheckRequest key) {
+        int hash = key.hashCode();
+        Entry entry = data.get(key, hash);
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+        if (entry.expiresAt - System.nanoTime() <= 0) {
+            // Only this entry is removed, not one put by another thread in the meantime.
+            if (data.remove(key, hash, entry)) {
+                expirationCount.increment();
+            }
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return entry.value;
+    }
+
+    /**
+     * Caches a response for the TTL matching its decision.
+     *
+     * @param key      The cache key.
+     * @param response The response from the PDP.
+     */
+    void put(AuthorizationCheck.AuthorizationCheckRequest key, AuthorizationCheck.AuthorizationCheckResponse response) {
+        long ttl = response.getDecision() ? permitTtlNanos : denyTtlNanos;
+        if (ttl <= 0) {
+            return;
+        }
+        AuthorizationCheck.AuthorizationCheckResponse value = response.hasRequestID() ? response.toBuilder().clearRequestID().build() : response;
+        data.put(key, key.hashCode(), new Entry(value, System.nanoTime() + ttl));
+    }
+
+    /**
+     * Gets a snapshot of the cache statistics.
+     *
+     * @return The cache statistics.
+     */
+    AZCacheStats stats() {
+        return new AZCacheStats(hitCount.sum(), missCount.sum(), data.evictionCount() + expirationCount.sum(), data.size());
+    }
+
+    private static final class Entry {
+        private final AuthorizationCheck.AuthorizationCheckResponse value;
+        private final long expiresAt;
+
+        Entry(AuthorizationCheck.AuthorizationCheckResponse value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZCircuitState;
+import com.permguard.pep.config.AZEndpoint;
+import io.grpc.Status;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A PDP endpoint with its channel pool and health state.
+ * The endpoint is ejected for a while after a number of consecutive transport failures, and its optional
+ * circuit breaker short-circuits calls when too many of the latest calls failed or were slow.
+ */
+class Endpoint {
+    private final AZEndpoint address;
+    private final ChannelPool channelPool;
+    private final int ejectionFailureThreshold;
+    private final long ejectionNanos;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong callCount = new AtomicLong();
+    private volatile long ejectedUntil;
+    private volatile boolean ejected;
+
+    /**
+     * Constructor for Endpoint.
+     *
+     * @param address                  The address of the endpoint.
+     * @param channelPool              The channels opened to the endpoint.
+     * @param ejectionFailureThreshold The consecutive failures after which the endpoint is ejected.
+     * @param ejectionNanos            How long the endpoint stays ejected.
+     * @param circuitBreaker           The circuit breaker of the endpoint, or null.
+     */
+    Endpoint(AZEndpoint address, ChannelPool channelPool, int ejectionFailureThreshold, long ejectionNanos,
+             CircuitBreaker circuitBreaker) {
+        this.address = address;
+        this.channelPool = channelPool;
+        this.ejectionFailureThreshold = ejectionFailureThreshold;
+        this.ejectionNanos = ejectionNanos;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Gets the address of the endpoint.
+     *
+     * @return The address.
+     */
+    AZEndpoint address() {
+        return address;
+    }
+
+    /**
+     * Gets the channels opened to the endpoint.
+     *
+     * @return The channel pool.
+     */
+    ChannelPool channelPool() {
+        return channelPool;
+    }
+
+    /**
+     * Checks whether the endpoint can receive calls.
+     * An ejected endpoint becomes available again once its ejection time has elapsed.
+     *
+     * @return True if the endpoint is not ejected and its circuit breaker permits calls.
+     */
+    boolean isAvailable() {
+        return (!ejected || ejectedUntil - System.nanoTime() <= 0) && isCallPermitted();
+    }
+
+    /**
+     * Checks whether the circuit breaker of the endpoint would permit a call.
+     *
+     * @return True if a call would be permitted.
+     */
+    boolean isCallPermitted() {
+        return circuitBreaker == null || circuitBreaker.isCallPermitted();
+    }
+
+    /**
+     * Takes the permission of the circuit breaker to send a call.
+     *
+     * @return True if the call can be sent, false if it must be short-circuited.
+     */
+    boolean tryAcquirePermission() {
+        return circuitBreaker == null || circuitBreaker.tryAcquirePermission();
+    }
+
+    /**
+     * Gets the number of outstanding calls on the endpoint.
+     *
+     * @return The outstanding calls.
+     */
+    int inFlight() {
+        return channelPool.inFlight();
+    }
+
+    /**
+     * Counts a call sent to the endpoint.
+     */
+    void onCall() {
+        callCount.incrementAndGet();
+    }
+
+    /**
+     * Records a successful call, which resets the failure count and readmits an ejected endpoint.
+     *
+     * @param latencyNanos The latency of the call.
+     */
+    void onSuccess(long latencyNanos) {
+        consecutiveFailures.set(0);
+        ejected = false;
+        if (circuitBreaker != null) {
+            circuitBreaker.onSuccess(latencyNanos);
+        }
+    }
+
+    /**
+     * Records a call whose outcome says nothing about the endpoint, such as a call that outlived the short
+     * deadline requested by its caller.
+     */
+    void onIgnored() {
+        if (circuitBreaker != null) {
+            circuitBreaker.onIgnored();
+        }
+    }
+
+    /**
+     * Records a failed call. Only failures that point at an unhealthy endpoint count towards ejection
+     * and towards the failure rate of the circuit breaker.
+     *
+     * @param error        The failure of the call.
+     * @param latencyNanos The latency of the call.
+     */
+    void onFailure(Throwable error, long latencyNanos) {
+        // A call cancelled by the caller, for example a hedge that lost, says nothing about the endpoint.
+        Status.Code code = error instanceof CancellationException ? Status.Code.CANCELLED : Status.fromThrowable(error).getCode();
+        if (circuitBreaker != null) {
+            if (code == Status.Code.CANCELLED) {
+                circuitBreaker.onIgnored();
+            } else if (isEndpointFailure(code)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess(latencyNanos);
+            }
+        }
+        if (!isEndpointFailure(code)) {
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= ejectionFailureThreshold && ejectionFailureThreshold > 0) {
+            consecutiveFailures.set(0);
+            ejectedUntil = System.nanoTime() + ejectionNanos;
+            ejected = true;
+        }
+    }
+
+    /**
+     * Gets a snapshot of the endpoint statistics.
+     *
+     * @return The endpoint statistics.
+     */
+    AZEndpointStats stats() {
+        boolean isEjected = ejected && ejectedUntil - System.nanoTime() > 0;
+        AZCircuitState circuitState = circuitBreaker != null ? circuitBreaker.state() : AZCircuitState.CLOSED;
+        return new AZEndpointStats(address, callCount.get(), channelPool.inFlightPerChannel(), isEjected, circuitState);
+    }
+
+    private static boolean isEndpointFailure(Status.Code code) {
+        switch (code) {
+            case UNAVAILABLE:
+            case DEADLINE_EXCEEDED:
+            case RESOURCE_EXHAUSTED:
+            case INTERNAL:
+            case UNKNOWN:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.google.protobuf.Struct;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.request.Entities;
+import com.permguard.pep.utils.GrpcStructMapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the Cedar entities of a request into the gRPC Entities message.
+ * Items are added one by one to the repeated Items field; an item equal to an earlier item of the request is
+ * dropped, while items with the same uid but different content are all sent, so the PDP sees the conflict.
+ * The Struct of each item is kept in a size-bounded W-TinyLFU cache keyed by an immutable
+ * snapshot of the item, so entity sets sent with many requests are converted once and an item modified after
+ * a request is converted again. Items holding values other than maps, lists, strings, booleans and numbers
+ * are not cached. The deep hash code of an item is computed once per lookup, before taking the lock of the
+ * cache segment, and kept with the snapshot.
+ */
+class EntityEncoder {
+    private static final String UID = "uid";
+    private static final Object UNCACHEABLE = new Object();
+
+    private final StripedTinyLfuCache<ItemKey, Struct> cache;
+
+    /**
+     * Constructor for EntityEncoder.
+     *
+     * @param maximumSize The maximum number of cached entity Structs; zero disables the cache.
+     */
+    EntityEncoder(int maximumSize) {
+        this.cache = maximumSize > 0 ? new StripedTinyLfuCache<>(maximumSize) : null;
+    }
+
+    /**
+     * Encodes the entities of a request.
+     *
+     * @param entities The entities.
+     * @return The gRPC entities.
+     */
+    AuthorizationCheck.Entities encode(Entities entities) {
+        AuthorizationCheck.Entities.Builder builder = AuthorizationCheck.Entities.newBuilder()
+                .setSchema(entities.getSchema());
+        List<Map<String, Object>> items = entities.getItems();
+        if (items == null || items.isEmpty()) {
+            return builder.build();
+        }
+        Map<Object, Object> kept = items.size() > 1 ? new HashMap<>((int) (items.size() / 0.75f) + 1) : null;
+        for (Map<String, Object> item : items) {
+            if (item == null) {
+                continue;
+            }
+            if (kept != null && isDuplicate(kept, item)) {
+                continue;
+            }
+            builder.addItems(toStruct(item));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the number of cached entity Structs.
+     *
+     * @return The cache size.
+     */
+    long cacheSize() {
+        return cache != null ? cache.size() : 0;
+    }
+
+    /**
+     * Checks whether an item equals an item kept before with the same uid, and keeps the item if it does not.
+     *
+     * @param kept The items kept so far by uid: an item, or a list of the items that differ.
+     * @param item The item.
+     * @return True if the item can be dropped.
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean isDuplicate(Map<Object, Object> kept, Map<String, Object> item) {
+        Object uid = item.get(UID);
+        if (uid == null) {
+            return false;
+        }
+        Object previous = kept.putIfAbsent(uid, item);
+        if (previous == null) {
+            return false;
+        }
+        if (previous instanceof Map<?, ?>) {
+            if (previous.equals(item)) {
+                return true;
+            }
+            List<Map<String, Object>> variants = new ArrayList<>(2);
+            variants.add((Map<String, Object>) previous);
+            variants.add(item);
+            kept.put(uid, variants);
+            return false;
+        }
+        List<Map<String, Object>> variants = (List<Map<String, Object>>) previous;
+        if (variants.contains(item)) {
+            return true;
+        }
+        variants.add(item);
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Struct toStruct(Map<String, Object> item) {
+        if (cache == null) {
+            return GrpcStructMapper.toGrpcStruct(item);
+        }
+        int hash = item.hashCode();
+        Struct struct = cache.get(new ItemKey(item, hash), hash);
+        if (struct != null) {
+            return struct;
+        }
+        Object snapshot = freeze(item);
+        if (snapshot == UNCACHEABLE) {
+            return GrpcStructMapper.toGrpcStruct(item);
+        }
+        Map<String, Object> frozen = (Map<String, Object>) snapshot;
+        struct = GrpcStructMapper.toGrpcStruct(frozen);
+        cache.put(new ItemKey(frozen, hash), hash, struct);
+        return struct;
+    }
+
+    /**
+     * Deeply copies a value into unmodifiable maps and lists, so it can be kept as a cache key.
+     *
+     * @param value The value.
+     * @return The immutable copy, or {@link #UNCACHEABLE} if the value holds a type that may be mutable.
+     */
+    private static Object freeze(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Integer
+                || value instanceof Long || value instanceof Short || value instanceof Byte || value instanceof Double
+                || value instanceof Float || value instanceof BigDecimal || value instanceof BigInteger) {
+            return value;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>((int) (map.size() / 0.75f) + 1);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object frozen = freeze(entry.getValue());
+                if (!(entry.getKey() instanceof String) || frozen == UNCACHEABLE) {
+                    return UNCACHEABLE;
+                }
+                copy.put(entry.getKey(), frozen);
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                Object frozen = freeze(element);
+                if (frozen == UNCACHEABLE) {
+                    return UNCACHEABLE;
+                }
+                copy.add(frozen);
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return UNCACHEABLE;
+    }
+
+    /**
+     * Cache key of an entity item with its deep hash code, computed once: the immutable snapshot of a cached item,
+     * or the item of a request when looking it up.
+     */
+    private static final class ItemKey {
+        private final Map<String, Object> item;
+        private final int hash;
+
+        ItemKey(Map<String, Object> item, int hash) {
+            this.item = item;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof ItemKey other && hash == other.hash && item.equals(other.item);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
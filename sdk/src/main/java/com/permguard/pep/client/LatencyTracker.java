@@ -0,0 +1,81 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling window of the latest call latencies used to estimate latency percentiles.
+ * Percentiles are computed from a sorted snapshot that is refreshed at most every few milliseconds,
+ * so reading them on the hot path is cheap.
+ */
+class LatencyTracker {
+    private static final int WINDOW_SIZE = 1024;
+    private static final int MIN_SAMPLES = 32;
+    private static final long SNAPSHOT_NANOS = 50_000_000L;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW_SIZE);
+    private final AtomicLong count = new AtomicLong();
+    private volatile long[] snapshot = new long[0];
+    private volatile long snapshotAt;
+
+    /**
+     * Records the latency of a completed call, or a lower bound of it for a call that was cut short.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    void record(long nanos) {
+        samples.set((int) (count.getAndIncrement() & (WINDOW_SIZE - 1)), nanos);
+    }
+
+    /**
+     * Gets a latency percentile over the latest calls.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @param fallback   The value returned until enough calls have been recorded.
+     * @return The latency percentile in nanoseconds.
+     */
+    long percentile(double percentile, long fallback) {
+        long[] sorted = snapshot();
+        if (sorted.length < MIN_SAMPLES) {
+            return fallback;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private long[] snapshot() {
+        long now = System.nanoTime();
+        long[] current = snapshot;
+        if (now - snapshotAt < SNAPSHOT_NANOS && current.length > 0) {
+            return current;
+        }
+        int size = (int) Math.min(count.get(), WINDOW_SIZE);
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        snapshot = sorted;
+        snapshotAt = now;
+        return sorted;
+    }
+}
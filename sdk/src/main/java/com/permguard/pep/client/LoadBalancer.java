@@ -0,0 +1,117 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZLoadBalancingPolicy;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the PDP endpoint of each call among the configured endpoints.
+ * Ejected endpoints and endpoints with an open circuit breaker are skipped. If every endpoint is ejected,
+ * the endpoints whose circuit breaker permits calls are considered again, so that calls keep probing instead
+ * of failing locally; only when every circuit breaker is open are calls short-circuited.
+ */
+class LoadBalancer {
+    private final Endpoint[] endpoints;
+    private final AZLoadBalancingPolicy policy;
+
+    /**
+     * Constructor for LoadBalancer.
+     *
+     * @param endpoints The endpoints to balance across.
+     * @param policy    The policy used to pick an endpoint.
+     */
+    LoadBalancer(List<Endpoint> endpoints, AZLoadBalancingPolicy policy) {
+        this.endpoints = endpoints.toArray(new Endpoint[0]);
+        this.policy = policy;
+    }
+
+    /**
+     * Gets the endpoints of the balancer.
+     *
+     * @return The endpoints.
+     */
+    Endpoint[] endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Picks the endpoint for a call.
+     *
+     * @param exclude An endpoint to avoid, for example the one already used by the same call, or null.
+     * @return The endpoint.
+     */
+    Endpoint pick(Endpoint exclude) {
+        if (endpoints.length == 1) {
+            return endpoints[0];
+        }
+        Endpoint picked = policy == AZLoadBalancingPolicy.LEAST_REQUEST
+                ? leastRequest(exclude, true)
+                : powerOfTwoChoices(exclude);
+        if (picked == null) {
+            picked = leastRequest(exclude, false);
+        }
+        return picked != null ? picked : endpoints[ThreadLocalRandom.current().nextInt(endpoints.length)];
+    }
+
+    private Endpoint powerOfTwoChoices(Endpoint exclude) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Endpoint first = null;
+        Endpoint second = null;
+        // A few random probes find two healthy endpoints in the common case without scanning.
+        for (int attempt = 0; attempt < 2 * endpoints.length && second == null; attempt++) {
+            Endpoint candidate = endpoints[random.nextInt(endpoints.length)];
+            if (candidate == exclude || candidate == first || !candidate.isAvailable()) {
+                continue;
+            }
+            if (first == null) {
+                first = candidate;
+            } else {
+                second = candidate;
+            }
+        }
+        if (first == null) {
+            return leastRequest(exclude, true);
+        }
+        if (second == null) {
+            return first;
+        }
+        return second.inFlight() < first.inFlight() ? second : first;
+    }
+
+    private Endpoint leastRequest(Endpoint exclude, boolean availableOnly) {
+        int start = ThreadLocalRandom.current().nextInt(endpoints.length);
+        Endpoint best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < endpoints.length; i++) {
+            Endpoint candidate = endpoints[(start + i) % endpoints.length];
+            if (candidate == exclude || !(availableOnly ? candidate.isAvailable() : candidate.isCallPermitted())) {
+                continue;
+            }
+            int load = candidate.inFlight();
+            if (load < bestLoad) {
+                best = candidate;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+}
@@ -1,5 +1,8 @@
 package com.permguard.pep.client;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.Message;
+import com.google.protobuf.Struct;
 import com.permguard.pep.internal.proto.AuthorizationCheck;
 import com.permguard.pep.model.request.*;
 import com.permguard.pep.model.response.AZResponse;
@@ -8,7 +11,37 @@ import com.permguard.pep.model.response.EvaluationResponse;
 import com.permguard.pep.model.response.ReasonResponse;
 import com.permguard.pep.utils.GrpcStructMapper;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
 class Mapper {
+    private static final int DEFAULT_ENTITY_CACHE_SIZE = 10_000;
+
+    private final EntityEncoder entityEncoder;
+    // Converted immutable subjects, resources and actions, keyed by identity and held weakly, so each instance
+    // is converted once for as long as it is in use; interned instances are shared by equal values.
+    private final ConcurrentMap<Object, Message> convertedImmutables = CacheBuilder.newBuilder()
+            .weakKeys()
+            .<Object, Message>build()
+            .asMap();
+
+    /**
+     * Constructor for Mapper with the default size of the entity cache.
+     */
+    Mapper() {
+        this(DEFAULT_ENTITY_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor for Mapper.
+     *
+     * @param entityCacheMaxSize The maximum number of converted entity items kept across requests; zero disables the cache.
+     */
+    Mapper(int entityCacheMaxSize) {
+        this.entityEncoder = new EntityEncoder(entityCacheMaxSize);
+    }
 
     /**
      * Converts an AZRequest into a gRPC-compatible AuthorizationCheckRequest.
@@ -19,23 +52,37 @@ class Mapper {
     AuthorizationCheck.AuthorizationCheckRequest mapAuthorizationCheckRequest(AZRequest request) {
         AuthorizationCheck.AuthorizationCheckRequest.Builder requestBuilder = AuthorizationCheck.AuthorizationCheckRequest.newBuilder()
                 .setRequestID(request.getRequestId() != null ? request.getRequestId() : "")
-                .setAuthorizationModel(mapAuthorizationModel(request.getAuthorizationModel()));
+                .setAuthorizationModel(mapAuthorizationModel(request));
+
+        // Evaluations usually share their subject, resource, action or context with each other or with the
+        // request, so within a request with evaluations each distinct part is converted once.
+        List<Evaluation> evaluations = request.getEvaluations();
+        ConvertedParts parts = evaluations != null && !evaluations.isEmpty() ? new ConvertedParts() : null;
 
-        if (request.getSubject() != null) {
-            requestBuilder.setSubject(mapSubject(request.getSubject()));
+        ImmutableSubject immutableSubject = AZRequestTemplate.immutableSubjectOf(request);
+        if (immutableSubject != null) {
+            requestBuilder.setSubject(mapSubject(immutableSubject));
+        } else if (request.getSubject() != null) {
+            requestBuilder.setSubject(mapSubject(request.getSubject(), parts));
         }
-        if (request.getResource() != null) {
-            requestBuilder.setResource(mapResource(request.getResource()));
+        ImmutableResource immutableResource = AZRequestTemplate.immutableResourceOf(request);
+        if (immutableResource != null) {
+            requestBuilder.setResource(mapResource(immutableResource));
+        } else if (request.getResource() != null) {
+            requestBuilder.setResource(mapResource(request.getResource(), parts));
         }
-        if (request.getAction() != null) {
-            requestBuilder.setAction(mapAction(request.getAction()));
+        ImmutableAction immutableAction = AZRequestTemplate.immutableActionOf(request);
+        if (immutableAction != null) {
+            requestBuilder.setAction(mapAction(immutableAction));
+        } else if (request.getAction() != null) {
+            requestBuilder.setAction(mapAction(request.getAction(), parts));
         }
         if (request.getContext() != null) {
-            requestBuilder.setContext(GrpcStructMapper.toGrpcStruct(request.getContext())); // Use Struct directly
+            requestBuilder.setContext(mapContext(request.getContext(), parts)); // Use Struct directly
         }
-        if (request.getEvaluations() != null) {
-            for (Evaluation eval : request.getEvaluations()) {
-                requestBuilder.addEvaluations(mapEvaluation(eval));
+        if (evaluations != null) {
+            for (Evaluation eval : evaluations) {
+                requestBuilder.addEvaluations(mapEvaluation(eval, parts));
             }
         }
 
@@ -59,12 +106,23 @@ class Mapper {
 
     /** MAPPING HELPERS **/
 
-    private AuthorizationCheck.AuthorizationModelRequest mapAuthorizationModel(AZModel model) {
+    private AuthorizationCheck.AuthorizationModelRequest mapAuthorizationModel(AZRequest request) {
+        AuthorizationCheck.AuthorizationModelRequest mapped = AZRequestTemplate.mappedModelOf(request);
+        return mapped != null ? mapped : mapAuthorizationModel(request.getAuthorizationModel());
+    }
+
+    /**
+     * Converts an authorization model into its gRPC form.
+     *
+     * @param model The authorization model.
+     * @return The gRPC authorization model.
+     */
+    AuthorizationCheck.AuthorizationModelRequest mapAuthorizationModel(AZModel model) {
         return AuthorizationCheck.AuthorizationModelRequest.newBuilder()
                 .setZoneID(model.getZoneId())
                 .setPolicyStore(mapPolicyStore(model.getPolicyStore()))
                 .setPrincipal(mapPrincipal(model.getPrincipal()))
-                .setEntities(mapEntities(model.getEntities()))
+                .setEntities(entityEncoder.encode(model.getEntities()))
                 .build();
     }
 
@@ -83,12 +141,6 @@ class Mapper {
                 .build();
     }
 
-    private AuthorizationCheck.Entities mapEntities(Entities entities) {
-        return AuthorizationCheck.Entities.newBuilder()
-                .setSchema(entities.getSchema())
-                .build();
-    }
-
     private AuthorizationCheck.Subject mapSubject(Subject subject) {
         return AuthorizationCheck.Subject.newBuilder()
                 .setType(subject.getType())
@@ -113,20 +165,91 @@ class Mapper {
                 .build();
     }
 
-    private AuthorizationCheck.EvaluationRequest mapEvaluation(Evaluation evaluation) {
+    private AuthorizationCheck.Subject mapSubject(ImmutableSubject subject) {
+        return (AuthorizationCheck.Subject) convertedImmutables.computeIfAbsent(subject, key ->
+                AuthorizationCheck.Subject.newBuilder()
+                        .setType(subject.getType())
+                        .setID(subject.getId())
+                        .setSource(subject.getSource())
+                        .setProperties(GrpcStructMapper.toGrpcStruct(subject.getProperties()))
+                        .build());
+    }
+
+    private AuthorizationCheck.Resource mapResource(ImmutableResource resource) {
+        return (AuthorizationCheck.Resource) convertedImmutables.computeIfAbsent(resource, key ->
+                AuthorizationCheck.Resource.newBuilder()
+                        .setType(resource.getType())
+                        .setID(resource.getId())
+                        .setProperties(GrpcStructMapper.toGrpcStruct(resource.getProperties()))
+                        .build());
+    }
+
+    private AuthorizationCheck.Action mapAction(ImmutableAction action) {
+        return (AuthorizationCheck.Action) convertedImmutables.computeIfAbsent(action, key ->
+                AuthorizationCheck.Action.newBuilder()
+                        .setName(action.getName())
+                        .setProperties(GrpcStructMapper.toGrpcStruct(action.getProperties()))
+                        .build());
+    }
+
+    private AuthorizationCheck.EvaluationRequest mapEvaluation(Evaluation evaluation, ConvertedParts parts) {
         AuthorizationCheck.EvaluationRequest.Builder builder = AuthorizationCheck.EvaluationRequest.newBuilder()
                 .setRequestID(evaluation.getRequestId() != null ? evaluation.getRequestId() : "")
-                .setSubject(mapSubject(evaluation.getSubject()))
-                .setResource(mapResource(evaluation.getResource()))
-                .setAction(mapAction(evaluation.getAction()));
+                .setSubject(mapSubject(evaluation.getSubject(), parts))
+                .setResource(mapResource(evaluation.getResource(), parts))
+                .setAction(mapAction(evaluation.getAction(), parts));
 
         if (evaluation.getContext() != null) {
-            builder.setContext(GrpcStructMapper.toGrpcStruct(evaluation.getContext()));
+            builder.setContext(mapContext(evaluation.getContext(), parts));
         }
 
         return builder.build();
     }
 
+    private AuthorizationCheck.Subject mapSubject(Subject subject, ConvertedParts parts) {
+        AuthorizationCheck.Subject mapped = parts != null ? parts.get(subject) : null;
+        if (mapped == null) {
+            mapped = mapSubject(subject);
+            if (parts != null) {
+                parts.put(subject, mapped);
+            }
+        }
+        return mapped;
+    }
+
+    private AuthorizationCheck.Resource mapResource(Resource resource, ConvertedParts parts) {
+        AuthorizationCheck.Resource mapped = parts != null ? parts.get(resource) : null;
+        if (mapped == null) {
+            mapped = mapResource(resource);
+            if (parts != null) {
+                parts.put(resource, mapped);
+            }
+        }
+        return mapped;
+    }
+
+    private AuthorizationCheck.Action mapAction(Action action, ConvertedParts parts) {
+        AuthorizationCheck.Action mapped = parts != null ? parts.get(action) : null;
+        if (mapped == null) {
+            mapped = mapAction(action);
+            if (parts != null) {
+                parts.put(action, mapped);
+            }
+        }
+        return mapped;
+    }
+
+    private Struct mapContext(Map<String, Object> context, ConvertedParts parts) {
+        Struct mapped = parts != null ? parts.get(context) : null;
+        if (mapped == null) {
+            mapped = GrpcStructMapper.toGrpcStruct(context);
+            if (parts != null) {
+                parts.put(context, mapped);
+            }
+        }
+        return mapped;
+    }
+
     private EvaluationResponse mapEvaluationResponse(AuthorizationCheck.EvaluationResponse response) {
         return new EvaluationResponse(
                 response.getDecision(),
@@ -135,8 +258,6 @@ class Mapper {
         );
     }
 
-
-
     private ContextResponse mapContextResponse(AuthorizationCheck.ContextResponse grpcContext) {
         return new ContextResponse(
                 grpcContext.getID(),
@@ -145,7 +266,6 @@ class Mapper {
         );
     }
 
-
     private ReasonResponse mapReasonResponse(AuthorizationCheck.ReasonResponse grpcReason) {
         return new ReasonResponse(
                 grpcReason.getCode(),
@@ -153,5 +273,20 @@ class Mapper {
         );
     }
 
+    /**
+     * The parts of a single request already converted, with their gRPC messages, which are immutable and can
+     * be set on several evaluations. Parts are matched by identity.
+     */
+    private static final class ConvertedParts {
+        private final Map<Object, Message> byIdentity = new IdentityHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        <T extends Message> T get(Object part) {
+            return (T) byIdentity.get(part);
+        }
 
+        void put(Object part, Message mapped) {
+            byIdentity.put(part, mapped);
+        }
+    }
 }
@@ -0,0 +1,161 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.google.common.io.CountingOutputStream;
+import com.permguard.pep.config.AZCompressionListener;
+import io.grpc.Compressor;
+import io.grpc.CompressorRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compressor of request messages that delegates to a registered gRPC compressor and records the size
+ * of each message before and after compression and the time spent compressing it.
+ * Messages smaller than the threshold are sent uncompressed.
+ */
+class MeasuredCompressor implements Compressor {
+    private final Compressor delegate;
+    private final int threshold;
+    private final AZCompressionListener listener;
+    private final LongAdder compressedCount = new LongAdder();
+    private final LongAdder skippedCount = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+
+    /**
+     * Constructor for MeasuredCompressor.
+     *
+     * @param name      The name of a compressor of the default gRPC compressor registry, for example "gzip".
+     * @param threshold The size in bytes below which messages are not compressed.
+     * @param listener  The listener notified of each compressed message, or null.
+     * @throws IllegalArgumentException If no compressor is registered with the name.
+     */
+    MeasuredCompressor(String name, int threshold, AZCompressionListener listener) {
+        this.delegate = CompressorRegistry.getDefaultInstance().lookupCompressor(name);
+        if (delegate == null) {
+            throw new IllegalArgumentException("Unknown compressor: " + name);
+        }
+        this.threshold = threshold;
+        this.listener = listener;
+    }
+
+    /**
+     * Creates a compressor registry holding this compressor, for the channels of the client.
+     *
+     * @return The compressor registry.
+     */
+    CompressorRegistry registry() {
+        CompressorRegistry registry = CompressorRegistry.newEmptyInstance();
+        registry.register(this);
+        return registry;
+    }
+
+    /**
+     * Decides whether a message is compressed, and counts the messages below the threshold.
+     *
+     * @param size The serialized size of the message.
+     * @return True if the message must be compressed.
+     */
+    boolean shouldCompress(int size) {
+        if (size < threshold) {
+            skippedCount.increment();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String getMessageEncoding() {
+        return delegate.getMessageEncoding();
+    }
+
+    @Override
+    public OutputStream compress(OutputStream os) throws IOException {
+        CountingOutputStream sink = new CountingOutputStream(os);
+        return new MeasuredOutputStream(delegate.compress(sink), sink);
+    }
+
+    /**
+     * Gets a snapshot of the compression statistics.
+     *
+     * @return The compression statistics.
+     */
+    AZCompressionStats stats() {
+        return new AZCompressionStats(compressedCount.sum(), skippedCount.sum(), uncompressedBytes.sum(),
+                compressedBytes.sum(), compressionNanos.sum());
+    }
+
+    private void record(long uncompressed, long compressed, long nanos) {
+        compressedCount.increment();
+        uncompressedBytes.add(uncompressed);
+        compressedBytes.add(compressed);
+        compressionNanos.add(nanos);
+        if (listener != null) {
+            listener.onCompressed(uncompressed, compressed, nanos);
+        }
+    }
+
+    /**
+     * Compressing stream of one message, which times the writes to the compressor and records the message when closed.
+     */
+    private final class MeasuredOutputStream extends OutputStream {
+        private final OutputStream compressing;
+        private final CountingOutputStream sink;
+        private long written;
+        private long nanos;
+
+        MeasuredOutputStream(OutputStream compressing, CountingOutputStream sink) {
+            this.compressing = compressing;
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            compressing.write(b);
+            nanos += System.nanoTime() - start;
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            compressing.write(b, off, len);
+            nanos += System.nanoTime() - start;
+            written += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            compressing.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            long start = System.nanoTime();
+            compressing.close();
+            nanos += System.nanoTime() - start;
+            record(written, sink.getCount(), nanos);
+        }
+    }
+}
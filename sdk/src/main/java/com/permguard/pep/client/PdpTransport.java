@@ -0,0 +1,494 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.exception.AuthorizationCircuitOpenException;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.internal.proto.V1PDPServiceGrpc;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends authorization checks to the PDP endpoints picked by the load balancer.
+ * When hedging is enabled, a check that is still outstanding after the configured latency percentile
+ * is sent once more to another endpoint or channel; the first answer wins and the other call is cancelled.
+ * Hedges are bounded by a token bucket refilled by regular calls, so they cannot amplify an overload.
+ * Every call carries a deadline, either the one requested by the caller or the configured default, which
+ * in adaptive mode is derived from the latency percentile of recent calls, counting the ones that timed out so that
+ * it can widen again. A call that outlives a caller deadline shorter than the default one does not count as a failure
+ * of the endpoint.
+ * Calls failing with a retryable status are retried after a jittered exponential backoff within the same
+ * deadline; retries are bounded by a token bucket refilled by successful calls.
+ */
+class PdpTransport {
+    private static final int HEDGE_BURST = 10;
+    private static final int RETRY_BURST = 10;
+
+    private final LoadBalancer loadBalancer;
+    private final ScheduledExecutorService scheduler;
+    private final LatencyTracker latency = new LatencyTracker();
+    private final boolean hedgingEnabled;
+    private final double hedgingDelayPercentile;
+    private final long hedgingMinDelayNanos;
+    private final TokenBucket hedgeBudget;
+    private final long deadlineNanos;
+    private final boolean adaptiveDeadlineEnabled;
+    private final double adaptiveDeadlinePercentile;
+    private final double adaptiveDeadlineMultiplier;
+    private final long adaptiveDeadlineMinimumNanos;
+    private final int retryMaxAttempts;
+    private final long retryInitialBackoffNanos;
+    private final long retryMaxBackoffNanos;
+    private final double retryBackoffMultiplier;
+    private final Set<Status.Code> retryableStatusCodes;
+    private final TokenBucket retryBudget;
+    private final MeasuredCompressor compressor;
+
+    /**
+     * Constructor for PdpTransport.
+     *
+     * @param loadBalancer The load balancer of the PDP endpoints.
+     * @param scheduler    The scheduler used to time hedges.
+     * @param compressor   The compressor of the request messages, or null.
+     * @param config       The client configuration.
+     */
+    PdpTransport(LoadBalancer loadBalancer, ScheduledExecutorService scheduler, MeasuredCompressor compressor, AZConfig config) {
+        this.loadBalancer = loadBalancer;
+        this.scheduler = scheduler;
+        this.compressor = compressor;
+        this.hedgingEnabled = config.isHedgingEnabled();
+        this.hedgingDelayPercentile = config.getHedgingDelayPercentile();
+        this.hedgingMinDelayNanos = config.getHedgingMinDelay().toNanos();
+        this.hedgeBudget = new TokenBucket(config.getHedgingBudgetRatio(), HEDGE_BURST);
+        this.deadlineNanos = config.getDeadline() != null ? config.getDeadline().toNanos() : 0;
+        this.adaptiveDeadlineEnabled = config.isAdaptiveDeadlineEnabled();
+        this.adaptiveDeadlinePercentile = config.getAdaptiveDeadlinePercentile();
+        this.adaptiveDeadlineMultiplier = config.getAdaptiveDeadlineMultiplier();
+        this.adaptiveDeadlineMinimumNanos = config.getAdaptiveDeadlineMinimum().toNanos();
+        this.retryMaxAttempts = config.getRetryMaxAttempts();
+        this.retryInitialBackoffNanos = config.getRetryInitialBackoff().toNanos();
+        this.retryMaxBackoffNanos = config.getRetryMaxBackoff().toNanos();
+        this.retryBackoffMultiplier = config.getRetryBackoffMultiplier();
+        this.retryableStatusCodes = config.getRetryableStatusCodes().isEmpty()
+                ? EnumSet.noneOf(Status.Code.class)
+                : EnumSet.copyOf(config.getRetryableStatusCodes());
+        this.retryBudget = new TokenBucket(config.getRetryBudgetRatio(), RETRY_BURST);
+    }
+
+    /**
+     * Gets the endpoints calls are sent to.
+     *
+     * @return The endpoints.
+     */
+    Endpoint[] endpoints() {
+        return loadBalancer.endpoints();
+    }
+
+    /**
+     * Gets the latencies of the latest calls, with a lower bound for the ones cut short.
+     *
+     * @return The latency tracker.
+     */
+    LatencyTracker latency() {
+        return latency;
+    }
+
+    /**
+     * Sends an authorization check to the PDP.
+     *
+     * @param request  The gRPC request.
+     * @param deadline The deadline requested by the caller, or null to use the default deadline.
+     * @return A future completed with the gRPC response, or exceptionally with an AuthorizationCircuitOpenException
+     *         if the call is short-circuited; cancelling it cancels the outstanding calls.
+     */
+    CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> call(AuthorizationCheck.AuthorizationCheckRequest request,
+                                                                          Deadline deadline) {
+        return call(request, deadline, defaultDeadline());
+    }
+
+    /**
+     * Sends an authorization check to the PDP with a default deadline computed beforehand, for example when
+     * the call was queued.
+     *
+     * @param request         The gRPC request.
+     * @param deadline        The deadline requested by the caller, or null to use the default deadline.
+     * @param defaultDeadline The default deadline, or null if calls have no deadline by default.
+     * @return A future completed with the gRPC response, or exceptionally with an AuthorizationCircuitOpenException
+     *         if the call is short-circuited; cancelling it cancels the outstanding calls.
+     */
+    CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> call(AuthorizationCheck.AuthorizationCheckRequest request,
+                                                                          Deadline deadline, Deadline defaultDeadline) {
+        Deadline effective = deadline != null ? deadline : defaultDeadline;
+        // Only a deadline at least as long as the default one says that the endpoint is too slow.
+        boolean countDeadline = deadline == null || (defaultDeadline != null && !deadline.isBefore(defaultDeadline));
+        if (retryMaxAttempts <= 1) {
+            // Callers such as the batcher only complete their checks from the future, so nothing is thrown.
+            try {
+                return callOnce(request, effective, countDeadline);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        AtomicReference<CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> current = new AtomicReference<>();
+        CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> result = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> call = current.get();
+                if (call != null) {
+                    call.cancel(mayInterruptIfRunning);
+                }
+                return cancelled;
+            }
+        };
+        callWithRetry(request, effective, countDeadline, 1, result, current);
+        return result;
+    }
+
+    /**
+     * Gets the deadline of a call for which the caller did not request one.
+     *
+     * @return The default deadline, or null if calls have no deadline by default.
+     */
+    Deadline defaultDeadline() {
+        if (deadlineNanos <= 0) {
+            return null;
+        }
+        if (!adaptiveDeadlineEnabled) {
+            return Deadline.after(deadlineNanos, TimeUnit.NANOSECONDS);
+        }
+        long percentile = latency.percentile(adaptiveDeadlinePercentile, deadlineNanos);
+        long adaptive = (long) Math.min(deadlineNanos, percentile * adaptiveDeadlineMultiplier);
+        return Deadline.after(Math.max(adaptiveDeadlineMinimumNanos, adaptive), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Opens a bidirectional stream of checks on an endpoint and channel picked as for a call.
+     * The stream counts as one outstanding call on its channel until it terminates.
+     *
+     * @param responseObserver The observer receiving the responses of the stream, which is given the request side
+     *                         of the call before it starts, for flow control.
+     * @return The observer the requests are sent to.
+     */
+    StreamObserver<AuthorizationCheck.AuthorizationCheckRequest> openStream(
+            ClientResponseObserver<AuthorizationCheck.AuthorizationCheckRequest, AuthorizationCheck.AuthorizationCheckResponse> responseObserver) {
+        Endpoint endpoint = loadBalancer.pick(null);
+        if (!endpoint.tryAcquirePermission()) {
+            throw new AuthorizationCircuitOpenException("The circuit breaker of the PDP is open.");
+        }
+        ChannelPool channelPool = endpoint.channelPool();
+        int index = channelPool.acquire();
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        // The request side of the call, given to beforeStart while the call is started by the stub.
+        AtomicReference<ClientCallStreamObserver<AuthorizationCheck.AuthorizationCheckRequest>> requests = new AtomicReference<>();
+        endpoint.onCall();
+        ClientResponseObserver<AuthorizationCheck.AuthorizationCheckRequest, AuthorizationCheck.AuthorizationCheckResponse> observer =
+                new ClientResponseObserver<>() {
+            @Override
+            public void beforeStart(ClientCallStreamObserver<AuthorizationCheck.AuthorizationCheckRequest> requestStream) {
+                requests.set(requestStream);
+                responseObserver.beforeStart(requestStream);
+            }
+
+            @Override
+            public void onNext(AuthorizationCheck.AuthorizationCheckResponse response) {
+                responseObserver.onNext(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (released.compareAndSet(false, true)) {
+                    channelPool.release(index);
+                    endpoint.onFailure(t, System.nanoTime() - start);
+                }
+                responseObserver.onError(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                if (released.compareAndSet(false, true)) {
+                    channelPool.release(index);
+                    endpoint.onSuccess(0);
+                }
+                responseObserver.onCompleted();
+            }
+        };
+        try {
+            if (compressor == null) {
+                return channelPool.asyncStub(index).authorizationCheckStream(observer);
+            }
+            channelPool.asyncStub(index)
+                    .withCompression(compressor.getMessageEncoding())
+                    .authorizationCheckStream(observer);
+            return compressing(requests.get());
+        } catch (RuntimeException e) {
+            if (released.compareAndSet(false, true)) {
+                channelPool.release(index);
+                endpoint.onFailure(e, System.nanoTime() - start);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Wraps the request observer of a stream so that each message is compressed only above the compression threshold.
+     */
+    private StreamObserver<AuthorizationCheck.AuthorizationCheckRequest> compressing(
+            ClientCallStreamObserver<AuthorizationCheck.AuthorizationCheckRequest> requests) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(AuthorizationCheck.AuthorizationCheckRequest request) {
+                requests.setMessageCompression(compressor.shouldCompress(request.getSerializedSize()));
+                requests.onNext(request);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                requests.onError(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                requests.onCompleted();
+            }
+        };
+    }
+
+    /**
+     * Closes the channels of every endpoint.
+     */
+    void shutdown() {
+        for (Endpoint endpoint : loadBalancer.endpoints()) {
+            endpoint.channelPool().shutdown();
+        }
+    }
+
+    /** CALL HELPERS **/
+
+    private void callWithRetry(AuthorizationCheck.AuthorizationCheckRequest request, Deadline deadline, boolean countDeadline,
+                               int attempt, CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> result,
+                               AtomicReference<CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> current) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> call;
+        try {
+            call = callOnce(request, deadline, countDeadline);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        current.set(call);
+        if (result.isDone()) {
+            call.cancel(true);
+            return;
+        }
+        call.whenComplete((response, error) -> {
+            if (error == null) {
+                result.complete(response);
+                return;
+            }
+            long backoff = backoff(attempt);
+            if (attempt >= retryMaxAttempts
+                    || !retryableStatusCodes.contains(Status.fromThrowable(error).getCode())
+                    || (deadline != null && deadline.timeRemaining(TimeUnit.NANOSECONDS) <= backoff)
+                    || !retryBudget.tryAcquire()) {
+                result.completeExceptionally(error);
+                return;
+            }
+            scheduler.schedule(() -> callWithRetry(request, deadline, countDeadline, attempt + 1, result, current),
+                    backoff, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    private long backoff(int attempt) {
+        // Full jitter: a random delay up to the exponential backoff spreads out the retries of concurrent callers.
+        double ceiling = Math.min(retryMaxBackoffNanos, retryInitialBackoffNanos * Math.pow(retryBackoffMultiplier, attempt - 1));
+        return (long) (ThreadLocalRandom.current().nextDouble() * ceiling);
+    }
+
+    private CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> callOnce(AuthorizationCheck.AuthorizationCheckRequest request,
+                                                                                      Deadline deadline, boolean countDeadline) {
+        if (!hedgingEnabled) {
+            return attempt(request, deadline, countDeadline, null).future();
+        }
+        return hedged(request, deadline, countDeadline);
+    }
+
+    private CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> hedged(AuthorizationCheck.AuthorizationCheckRequest request,
+                                                                            Deadline deadline, boolean countDeadline) {
+        Attempt primary = attempt(request, deadline, countDeadline, null);
+        hedgeBudget.deposit();
+        AtomicReference<Attempt> hedge = new AtomicReference<>();
+        // Number of calls that can still answer; the check fails only once all of them have failed.
+        AtomicInteger pending = new AtomicInteger(1);
+        CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> result = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                cancelAttempts(primary, hedge.get());
+                return cancelled;
+            }
+        };
+        primary.future().whenComplete((response, error) -> onAttemptComplete(result, pending, response, error, primary, hedge.get()));
+
+        long delay = Math.max(hedgingMinDelayNanos, latency.percentile(hedgingDelayPercentile, hedgingMinDelayNanos));
+        ScheduledFuture<?> timer = scheduler.schedule(() -> {
+            if (result.isDone() || !hedgeBudget.tryAcquire()) {
+                return;
+            }
+            if (pending.getAndUpdate(count -> count == 0 ? 0 : count + 1) == 0) {
+                return;
+            }
+            Attempt second;
+            try {
+                second = attempt(request, deadline, countDeadline, primary.endpoint());
+            } catch (RuntimeException e) {
+                if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                }
+                return;
+            }
+            hedge.set(second);
+            if (result.isDone()) {
+                second.future().cancel(true);
+                return;
+            }
+            second.future().whenComplete((response, error) -> onAttemptComplete(result, pending, response, error, primary, second));
+        }, delay, TimeUnit.NANOSECONDS);
+        result.whenComplete((response, error) -> timer.cancel(false));
+        return result;
+    }
+
+    private static void onAttemptComplete(CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> result, AtomicInteger pending,
+                                          AuthorizationCheck.AuthorizationCheckResponse response, Throwable error,
+                                          Attempt primary, Attempt hedge) {
+        if (error == null) {
+            if (result.complete(response)) {
+                cancelAttempts(primary, hedge);
+            }
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(error);
+        }
+    }
+
+    private static void cancelAttempts(Attempt primary, Attempt hedge) {
+        primary.future().cancel(true);
+        if (hedge != null) {
+            hedge.future().cancel(true);
+        }
+    }
+
+    private Attempt attempt(AuthorizationCheck.AuthorizationCheckRequest request, Deadline deadline, boolean countDeadline,
+                            Endpoint exclude) {
+        Endpoint endpoint = loadBalancer.pick(exclude);
+        if (!endpoint.tryAcquirePermission()) {
+            throw new AuthorizationCircuitOpenException("The circuit breaker of the PDP is open.");
+        }
+        ChannelPool channelPool = endpoint.channelPool();
+        int index = channelPool.acquire();
+        long start = System.nanoTime();
+        CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> future;
+        try {
+            endpoint.onCall();
+            V1PDPServiceGrpc.V1PDPServiceFutureStub stub = channelPool.stub(index);
+            if (deadline != null) {
+                stub = stub.withDeadline(deadline);
+            }
+            if (compressor != null && compressor.shouldCompress(request.getSerializedSize())) {
+                stub = stub.withCompression(compressor.getMessageEncoding());
+            }
+            future = toCompletableFuture(stub.authorizationCheck(request));
+        } catch (RuntimeException e) {
+            channelPool.release(index);
+            endpoint.onFailure(e, System.nanoTime() - start);
+            throw e;
+        }
+        future.whenComplete((response, error) -> {
+            channelPool.release(index);
+            long elapsed = System.nanoTime() - start;
+            if (error == null) {
+                latency.record(elapsed);
+                retryBudget.deposit();
+                endpoint.onSuccess(elapsed);
+                return;
+            }
+            boolean timedOut = Status.fromThrowable(error).getCode() == Status.Code.DEADLINE_EXCEEDED;
+            if (error instanceof CancellationException || (timedOut && countDeadline)) {
+                // A call cut short would have taken at least this long; leaving it out would bias the percentiles low.
+                latency.record(elapsed);
+            }
+            if (timedOut && !countDeadline) {
+                endpoint.onIgnored();
+            } else {
+                endpoint.onFailure(error, elapsed);
+            }
+        });
+        return new Attempt(endpoint, future);
+    }
+
+    private static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                future.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    /**
+     * A call sent to one endpoint.
+     */
+    private record Attempt(Endpoint endpoint, CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> future) {
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+/**
+ * Thread-safe W-TinyLFU cache split into segments, each a {@link TinyLfuCache} with its own lock and an equal share
+ * of the maximum size. A key belongs to the segment picked by its hash code, which callers compute before calling,
+ * outside of any lock, so requests for different keys rarely wait for each other.
+ * Caches too small to give each segment a useful share are not split.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+class StripedTinyLfuCache<K, V> {
+    private static final int MIN_SEGMENT_SIZE = 128;
+
+    private final TinyLfuCache<K, V>[] segments;
+    private final int shift;
+
+    /**
+     * Constructor for StripedTinyLfuCache.
+     *
+     * @param maximumSize The maximum number of entries.
+     */
+    @SuppressWarnings("unchecked")
+    StripedTinyLfuCache(long maximumSize) {
+        long bySize = Math.max(1, maximumSize / MIN_SEGMENT_SIZE);
+        int byThreads = 4 * Runtime.getRuntime().availableProcessors();
+        int count = Integer.highestOneBit((int) Math.min(bySize, Math.min(byThreads, 1 << 16)));
+        this.segments = new TinyLfuCache[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new TinyLfuCache<>(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+        }
+        this.shift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * Gets a value and records the request of its key.
+     *
+     * @param key  The key.
+     * @param hash The hash code of the key.
+     * @return The value, or null if absent.
+     */
+    V get(K key, int hash) {
+        TinyLfuCache<K, V> segment = segmentFor(hash);
+        synchronized (segment) {
+            return segment.get(key, hash);
+        }
+    }
+
+    /**
+     * Adds or replaces a value, evicting entries of its segment beyond the segment size.
+     *
+     * @param key   The key, which must not be modified afterwards.
+     * @param hash  The hash code of the key.
+     * @param value The value.
+     */
+    void put(K key, int hash, V value) {
+        TinyLfuCache<K, V> segment = segmentFor(hash);
+        synchronized (segment) {
+            segment.put(key, hash, value);
+        }
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key  The key.
+     * @param hash The hash code of the key.
+     */
+    void remove(K key, int hash) {
+        TinyLfuCache<K, V> segment = segmentFor(hash);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * Removes an entry if it still holds a value.
+     *
+     * @param key   The key.
+     * @param hash  The hash code of the key.
+     * @param value The value expected, compared by identity.
+     * @return True if the entry was removed.
+     */
+    boolean remove(K key, int hash, V value) {
+        TinyLfuCache<K, V> segment = segmentFor(hash);
+        synchronized (segment) {
+            return segment.remove(key, value);
+        }
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The size.
+     */
+    long size() {
+        long size = 0;
+        for (TinyLfuCache<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of entries evicted to respect the maximum size.
+     *
+     * @return The eviction count.
+     */
+    long evictionCount() {
+        long count = 0;
+        for (TinyLfuCache<K, V> segment : segments) {
+            synchronized (segment) {
+                count += segment.evictionCount();
+            }
+        }
+        return count;
+    }
+
+    private TinyLfuCache<K, V> segmentFor(int hash) {
+        // The high bits of the mixed hash pick the segment; the HashMap of the segment uses the low bits.
+        return shift == 32 ? segments[0] : segments[(hash * 0x9e3779b9) >>> shift];
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded map with W-TinyLFU eviction: new entries enter a small LRU window, and an entry leaving the window
+ * is admitted to the main segmented LRU only if it has been requested more often than the entry it would replace,
+ * as estimated by a {@link FrequencySketch}. The hash code of each key is taken once, when the key is added,
+ * and the methods taking a hash code let callers compute it before synchronizing. It is not thread-safe;
+ * callers synchronize access, or use a {@link StripedTinyLfuCache}.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+class TinyLfuCache<K, V> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final long maximumSize;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final FrequencySketch sketch;
+    private final Map<K, Node<K, V>> data = new HashMap<>();
+    private final Node<K, V> window = new Node<>(null, 0, null);
+    private final Node<K, V> probation = new Node<>(null, 0, null);
+    private final Node<K, V> protectedSegment = new Node<>(null, 0, null);
+    private long windowSize;
+    private long protectedSize;
+    private long evictionCount;
+
+    /**
+     * Constructor for TinyLfuCache.
+     *
+     * @param maximumSize The maximum number of entries.
+     */
+    TinyLfuCache(long maximumSize) {
+        this.maximumSize = Math.max(1, maximumSize);
+        this.windowMaximum = Math.max(1, this.maximumSize / 100);
+        this.protectedMaximum = (long) ((this.maximumSize - windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch(this.maximumSize);
+    }
+
+    /**
+     * Gets a value and records the request of its key.
+     *
+     * @param key The key.
+     * @return The value, or null if absent.
+     */
+    V get(K key) {
+        return get(key, key.hashCode());
+    }
+
+    /**
+     * Gets a value and records the request of its key.
+     *
+     * @param key  The key.
+     * @param hash The hash code of the key.
+     * @return The value, or null if absent.
+     */
+    V get(K key, int hash) {
+        sketch.increment(hash);
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * Adds or replaces a value, evicting entries beyond the maximum size.
+     *
+     * @param key   The key, which must not be modified afterwards.
+     * @param value The value.
+     */
+    void put(K key, V value) {
+        put(key, key.hashCode(), value);
+    }
+
+    /**
+     * Adds or replaces a value, evicting entries beyond the maximum size.
+     *
+     * @param key   The key, which must not be modified afterwards.
+     * @param hash  The hash code of the key.
+     * @param value The value.
+     */
+    void put(K key, int hash, V value) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            node.value = value;
+            onAccess(node);
+            return;
+        }
+        node = new Node<>(key, hash, value);
+        data.put(key, node);
+        linkLast(window, node);
+        windowSize++;
+        evict();
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key The key.
+     */
+    void remove(K key) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            remove(node);
+        }
+    }
+
+    /**
+     * Removes an entry if it still holds a value.
+     *
+     * @param key   The key.
+     * @param value The value expected, compared by identity.
+     * @return True if the entry was removed.
+     */
+    boolean remove(K key, V value) {
+        Node<K, V> node = data.get(key);
+        if (node == null || node.value != value) {
+            return false;
+        }
+        remove(node);
+        return true;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The size.
+     */
+    long size() {
+        return data.size();
+    }
+
+    /**
+     * Gets the number of entries evicted to respect the maximum size.
+     *
+     * @return The eviction count.
+     */
+    long evictionCount() {
+        return evictionCount;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.region) {
+            case WINDOW:
+                unlink(node);
+                linkLast(window, node);
+                break;
+            case PROBATION:
+                unlink(node);
+                node.region = PROTECTED;
+                linkLast(protectedSegment, node);
+                protectedSize++;
+                while (protectedSize > protectedMaximum && protectedSegment.next != protectedSegment) {
+                    Node<K, V> demoted = protectedSegment.next;
+                    unlink(demoted);
+                    protectedSize--;
+                    demoted.region = PROBATION;
+                    linkLast(probation, demoted);
+                }
+                break;
+            default:
+                unlink(node);
+                linkLast(protectedSegment, node);
+                break;
+        }
+    }
+
+    private void evict() {
+        while (windowSize > windowMaximum) {
+            Node<K, V> candidate = window.next;
+            unlink(candidate);
+            windowSize--;
+            candidate.region = PROBATION;
+            linkLast(probation, candidate);
+            if (data.size() <= maximumSize) {
+                continue;
+            }
+            Node<K, V> victim = probation.next != candidate ? probation.next : protectedSegment.next;
+            if (victim == protectedSegment
+                    || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                victim = candidate;
+            }
+            remove(victim);
+            evictionCount++;
+        }
+        while (data.size() > maximumSize) {
+            Node<K, V> victim = probation.next != probation ? probation.next
+                    : protectedSegment.next != protectedSegment ? protectedSegment.next : window.next;
+            remove(victim);
+            evictionCount++;
+        }
+    }
+
+    private void remove(Node<K, V> node) {
+        unlink(node);
+        if (node.region == WINDOW) {
+            windowSize--;
+        } else if (node.region == PROTECTED) {
+            protectedSize--;
+        }
+        data.remove(node.key);
+    }
+
+    private static <K, V> void linkLast(Node<K, V> head, Node<K, V> node) {
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+    }
+
+    private static <K, V> void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final int hash;
+        private V value;
+        private int region = WINDOW;
+        private Node<K, V> prev = this;
+        private Node<K, V> next = this;
+
+        Node(K key, int hash, V value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket used to bound extra calls, such as hedges and retries, to a fraction of the regular traffic.
+ * Every regular call deposits a fraction of a token and every extra call takes a whole token.
+ */
+class TokenBucket {
+    private static final long SCALE = 1000;
+
+    private final long maxTokens;
+    private final long depositPerCall;
+    private final AtomicLong tokens;
+
+    /**
+     * Constructor for TokenBucket.
+     *
+     * @param ratio     The number of extra calls allowed per regular call, for example 0.1 for 10%.
+     * @param maxTokens The maximum number of extra calls that can be saved up for a burst.
+     */
+    TokenBucket(double ratio, int maxTokens) {
+        this.maxTokens = Math.max(1, maxTokens) * SCALE;
+        this.depositPerCall = Math.max(0, Math.round(ratio * SCALE));
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    /**
+     * Deposits the share of a regular call.
+     */
+    void deposit() {
+        if (depositPerCall == 0) {
+            return;
+        }
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= maxTokens) {
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(maxTokens, current + depositPerCall)));
+    }
+
+    /**
+     * Takes a token for an extra call.
+     *
+     * @return True if the extra call is within the budget.
+     */
+    boolean tryAcquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
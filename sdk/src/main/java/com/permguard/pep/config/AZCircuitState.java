@@ -0,0 +1,37 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.config;
+
+/**
+ * State of the circuit breaker of a PDP endpoint.
+ */
+public enum AZCircuitState {
+    /**
+     * Calls are sent to the endpoint and their outcome is recorded.
+     */
+    CLOSED,
+    /**
+     * Calls to the endpoint are short-circuited until the open duration elapses.
+     */
+    OPEN,
+    /**
+     * A limited number of trial calls are sent to decide whether the endpoint has recovered.
+     */
+    HALF_OPEN
+}
@@ -0,0 +1,36 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.config;
+
+/**
+ * Listener notified of each request message compressed by the client, to tune the compression threshold.
+ * It is called on the thread that sends the request and must not block.
+ */
+@FunctionalInterface
+public interface AZCompressionListener {
+
+    /**
+     * Called when a request message has been compressed.
+     *
+     * @param uncompressedBytes The size of the message before compression.
+     * @param compressedBytes   The size of the message after compression.
+     * @param compressionNanos  The time spent compressing the message, in nanoseconds.
+     */
+    void onCompressed(long uncompressedBytes, long compressedBytes, long compressionNanos);
+}
@@ -18,6 +18,17 @@
 
 package com.permguard.pep.config;
 
+import io.grpc.CompressorRegistry;
+import io.grpc.Status;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
 /**
  * Configuration class for the AZClient.
  * This class holds the settings required to connect to the Policy Decision Point (PDP) service.
@@ -26,6 +37,60 @@ public class AZConfig {
     private String host;
     private int port;
     private boolean usePlaintext;
+    private int channelCount = 1;
+    private List<AZEndpoint> endpoints = new ArrayList<>();
+    private AZLoadBalancingPolicy loadBalancingPolicy = AZLoadBalancingPolicy.POWER_OF_TWO_CHOICES;
+    private int ejectionFailureThreshold = 5;
+    private Duration ejectionDuration = Duration.ofSeconds(30);
+    private Executor executor;
+    private int eventLoopThreads;
+    private boolean nativeTransportEnabled = true;
+    private boolean sharedEventLoopEnabled;
+    private boolean directExecutorEnabled;
+    private String compression;
+    private int compressionThreshold = 1024;
+    private AZCompressionListener compressionListener;
+    private int entityCacheMaxSize = 10_000;
+    private boolean batchingEnabled;
+    private int batchMaxSize = 64;
+    private Duration batchWindow = Duration.ofMillis(1);
+    private boolean cacheEnabled;
+    private long cacheMaxSize = 10_000;
+    private Duration cachePermitTtl = Duration.ofSeconds(30);
+    private Duration cacheDenyTtl = Duration.ofSeconds(5);
+    private boolean hedgingEnabled;
+    private double hedgingDelayPercentile = 95.0;
+    private Duration hedgingMinDelay = Duration.ofMillis(5);
+    private double hedgingBudgetRatio = 0.1;
+    private Duration deadline = Duration.ofSeconds(5);
+    private boolean adaptiveDeadlineEnabled;
+    private double adaptiveDeadlinePercentile = 99.0;
+    private double adaptiveDeadlineMultiplier = 3.0;
+    private Duration adaptiveDeadlineMinimum = Duration.ofMillis(50);
+    private int retryMaxAttempts = 1;
+    private Duration retryInitialBackoff = Duration.ofMillis(50);
+    private Duration retryMaxBackoff = Duration.ofSeconds(1);
+    private double retryBackoffMultiplier = 2.0;
+    private Set<Status.Code> retryableStatusCodes = EnumSet.of(Status.Code.UNAVAILABLE);
+    private double retryBudgetRatio = 0.1;
+    private boolean circuitBreakerEnabled;
+    private double circuitBreakerFailureRateThreshold = 0.5;
+    private double circuitBreakerSlowCallRateThreshold = 1.0;
+    private Duration circuitBreakerSlowCallDuration = Duration.ofSeconds(1);
+    private int circuitBreakerWindowSize = 100;
+    private int circuitBreakerMinimumCalls = 20;
+    private Duration circuitBreakerOpenDuration = Duration.ofSeconds(10);
+    private int circuitBreakerHalfOpenCalls = 5;
+    private AZFallback circuitBreakerFallback;
+    private Duration circuitBreakerLastKnownTtl = Duration.ofMinutes(5);
+    private AZCircuitBreakerListener circuitBreakerListener;
+    private boolean coalescingEnabled;
+    private boolean concurrencyLimitEnabled;
+    private int concurrencyLimitInitial = 20;
+    private int concurrencyLimitMin = 1;
+    private int concurrencyLimitMax = 1000;
+    private int concurrencyLimitQueueSize = 100;
+    private int streamMaxPendingChecks = 1000;
 
     /**
      * Default constructor with default settings.
@@ -103,4 +168,1096 @@ public class AZConfig {
     public void setUsePlaintext(boolean usePlaintext) {
         this.usePlaintext = usePlaintext;
     }
+
+    /**
+     * Gets the number of channels, and so of HTTP/2 connections, opened to the PDP service.
+     *
+     * @return The channel count.
+     */
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    /**
+     * Sets the number of channels opened to the PDP service.
+     * Calls are spread across the channels by the least number of outstanding calls.
+     *
+     * @param channelCount The channel count.
+     * @throws IllegalArgumentException If the channel count is less than 1.
+     */
+    public void setChannelCount(int channelCount) {
+        this.channelCount = requireAtLeast(channelCount, 1, "channelCount");
+    }
+
+    /**
+     * Gets the PDP endpoints the client balances calls across.
+     *
+     * @return The endpoints; when empty, the client connects to the configured host and port.
+     */
+    public List<AZEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Sets the PDP endpoints the client balances calls across, replacing the single host and port.
+     * Each endpoint gets its own pool of {@link #getChannelCount()} channels.
+     * Endpoints can also be Unix domain sockets or in-process servers, see {@link AZEndpoint#unixSocket(String)}
+     * and {@link AZEndpoint#inProcess(String)}.
+     *
+     * @param endpoints The endpoints, for example {@code AZEndpoint.parseList("pdp-1:9094,pdp-2:9094")}.
+     * @throws IllegalArgumentException If an endpoint is null.
+     */
+    public void setEndpoints(List<AZEndpoint> endpoints) {
+        if (endpoints != null && endpoints.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("endpoints must not contain null");
+        }
+        this.endpoints = endpoints != null ? new ArrayList<>(endpoints) : new ArrayList<>();
+    }
+
+    /**
+     * Gets the policy used to pick the endpoint of each call.
+     *
+     * @return The load balancing policy.
+     */
+    public AZLoadBalancingPolicy getLoadBalancingPolicy() {
+        return loadBalancingPolicy;
+    }
+
+    /**
+     * Sets the policy used to pick the endpoint of each call.
+     *
+     * @param loadBalancingPolicy The load balancing policy.
+     * @throws IllegalArgumentException If the policy is null.
+     */
+    public void setLoadBalancingPolicy(AZLoadBalancingPolicy loadBalancingPolicy) {
+        this.loadBalancingPolicy = requireNonNull(loadBalancingPolicy, "loadBalancingPolicy");
+    }
+
+    /**
+     * Gets the number of consecutive failures after which an endpoint is ejected.
+     *
+     * @return The ejection failure threshold.
+     */
+    public int getEjectionFailureThreshold() {
+        return ejectionFailureThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive transport failures after which an endpoint is ejected.
+     * A value of zero disables ejection.
+     *
+     * @param ejectionFailureThreshold The ejection failure threshold.
+     * @throws IllegalArgumentException If the threshold is negative.
+     */
+    public void setEjectionFailureThreshold(int ejectionFailureThreshold) {
+        this.ejectionFailureThreshold = requireAtLeast(ejectionFailureThreshold, 0, "ejectionFailureThreshold");
+    }
+
+    /**
+     * Gets how long an ejected endpoint receives no calls.
+     *
+     * @return The ejection duration.
+     */
+    public Duration getEjectionDuration() {
+        return ejectionDuration;
+    }
+
+    /**
+     * Sets how long an ejected endpoint receives no calls.
+     *
+     * @param ejectionDuration The ejection duration.
+     * @throws IllegalArgumentException If the duration is null or negative.
+     */
+    public void setEjectionDuration(Duration ejectionDuration) {
+        this.ejectionDuration = requireNonNegative(ejectionDuration, "ejectionDuration");
+    }
+
+    /**
+     * Gets the executor used to map responses of asynchronous checks.
+     *
+     * @return The executor, or null to map responses on the gRPC transport thread.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used to map responses of asynchronous checks and to notify callbacks.
+     * When not set, responses are mapped directly on the gRPC transport thread.
+     *
+     * @param executor The executor, or null to map responses on the gRPC transport thread.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the number of threads of the event loop group handling the network I/O of the channels.
+     *
+     * @return The number of event loop threads, or 0 for the default.
+     */
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    /**
+     * Sets the number of threads of the event loop group handling the network I/O of the channels.
+     * By default the channels of all the clients use the event loop group shared by gRPC, with twice as many threads
+     * as available processors. With a number of threads set, the client gets its own event loop group;
+     * a few threads are usually enough, since each thread serves many connections.
+     *
+     * @param eventLoopThreads The number of event loop threads, or 0 for the default.
+     * @throws IllegalArgumentException If the number of threads is negative.
+     */
+    public void setEventLoopThreads(int eventLoopThreads) {
+        this.eventLoopThreads = requireAtLeast(eventLoopThreads, 0, "eventLoopThreads");
+    }
+
+    /**
+     * Checks if the native epoll transport is used for TCP channels when it is available (default true).
+     *
+     * @return True if the native epoll transport is preferred to the NIO transport.
+     */
+    public boolean isNativeTransportEnabled() {
+        return nativeTransportEnabled;
+    }
+
+    /**
+     * Sets whether TCP channels use the native epoll transport when it is available, on Linux.
+     * It makes fewer system calls and produces less garbage than the NIO transport, which is used elsewhere
+     * or when this option is disabled. Disabling it gives the client its own NIO event loop group.
+     *
+     * @param nativeTransportEnabled True to prefer the native epoll transport, false to always use NIO.
+     */
+    public void setNativeTransportEnabled(boolean nativeTransportEnabled) {
+        this.nativeTransportEnabled = nativeTransportEnabled;
+    }
+
+    /**
+     * Checks if the event loop group is shared with the other clients of the JVM.
+     *
+     * @return True if the event loop group is shared.
+     */
+    public boolean isSharedEventLoopEnabled() {
+        return sharedEventLoopEnabled;
+    }
+
+    /**
+     * Shares the event loop group of the client with the other clients of the JVM that use the same transport
+     * and number of event loop threads, instead of giving each client its own threads. The group is released when the
+     * last client using it is shut down. This only matters when the client does not use the default gRPC event loop
+     * group, which is always shared.
+     *
+     * @param sharedEventLoopEnabled True to share the event loop group.
+     */
+    public void setSharedEventLoopEnabled(boolean sharedEventLoopEnabled) {
+        this.sharedEventLoopEnabled = sharedEventLoopEnabled;
+    }
+
+    /**
+     * Checks if responses are delivered directly on the event loop threads.
+     *
+     * @return True if responses are delivered on the event loop threads.
+     */
+    public boolean isDirectExecutorEnabled() {
+        return directExecutorEnabled;
+    }
+
+    /**
+     * Delivers responses directly on the event loop threads instead of handing them over to a gRPC thread pool.
+     * This saves a thread switch per call, but the mapping of responses and the callbacks then run on the event loop,
+     * so they must not block; otherwise set an executor with {@link #setExecutor(Executor)}.
+     *
+     * @param directExecutorEnabled True to deliver responses on the event loop threads.
+     */
+    public void setDirectExecutorEnabled(boolean directExecutorEnabled) {
+        this.directExecutorEnabled = directExecutorEnabled;
+    }
+
+    /**
+     * Gets the compressor of the request messages sent to the PDP.
+     *
+     * @return The name of the compressor, or null if requests are not compressed.
+     */
+    public String getCompression() {
+        return compression;
+    }
+
+    /**
+     * Sets the compressor of the request messages sent to the PDP, for example "gzip".
+     * Any compressor registered in the default gRPC compressor registry can be used, and the PDP must support it.
+     * Compression pays off for requests carrying many entities or a large context, especially across zones.
+     *
+     * @param compression The name of the compressor, or null to send requests uncompressed.
+     * @throws IllegalArgumentException If no compressor is registered with the name.
+     */
+    public void setCompression(String compression) {
+        if (compression != null && CompressorRegistry.getDefaultInstance().lookupCompressor(compression) == null) {
+            throw new IllegalArgumentException("Unknown compressor: " + compression);
+        }
+        this.compression = compression;
+    }
+
+    /**
+     * Gets the size below which request messages are sent uncompressed.
+     *
+     * @return The compression threshold, in bytes.
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Sets the size below which request messages are sent uncompressed, since compressing small messages
+     * costs CPU time without saving much network traffic.
+     *
+     * @param compressionThreshold The compression threshold, in bytes.
+     * @throws IllegalArgumentException If the threshold is negative.
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = requireAtLeast(compressionThreshold, 0, "compressionThreshold");
+    }
+
+    /**
+     * Gets the listener notified of each compressed request message.
+     *
+     * @return The compression listener, or null.
+     */
+    public AZCompressionListener getCompressionListener() {
+        return compressionListener;
+    }
+
+    /**
+     * Sets the listener notified of each compressed request message with its size before and after compression
+     * and the time spent compressing it, to tune the compression threshold.
+     *
+     * @param compressionListener The compression listener, or null.
+     */
+    public void setCompressionListener(AZCompressionListener compressionListener) {
+        this.compressionListener = compressionListener;
+    }
+
+    /**
+     * Gets the maximum number of converted entity items kept across requests.
+     *
+     * @return The maximum size of the entity cache.
+     */
+    public int getEntityCacheMaxSize() {
+        return entityCacheMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of converted entity items kept across requests (default 10000).
+     * Entity items equal to an item of an earlier request reuse its gRPC representation. The cache keeps
+     * an immutable copy of each item, so items modified after a request are converted again.
+     *
+     * @param entityCacheMaxSize The maximum size of the entity cache, or 0 to convert the items of every request.
+     * @throws IllegalArgumentException If the size is negative.
+     */
+    public void setEntityCacheMaxSize(int entityCacheMaxSize) {
+        this.entityCacheMaxSize = requireAtLeast(entityCacheMaxSize, 0, "entityCacheMaxSize");
+    }
+
+    /**
+     * Checks if micro-batching of concurrent single checks is enabled.
+     *
+     * @return True if single checks sharing the same authorization model are sent in one request.
+     */
+    public boolean isBatchingEnabled() {
+        return batchingEnabled;
+    }
+
+    /**
+     * Sets whether concurrent single checks sharing the same authorization model are sent as one
+     * request with multiple evaluations.
+     *
+     * @param batchingEnabled True to enable micro-batching.
+     */
+    public void setBatchingEnabled(boolean batchingEnabled) {
+        this.batchingEnabled = batchingEnabled;
+    }
+
+    /**
+     * Gets the maximum number of checks sent in one batched request.
+     *
+     * @return The maximum batch size.
+     */
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of checks sent in one batched request.
+     *
+     * @param batchMaxSize The maximum batch size.
+     * @throws IllegalArgumentException If the size is less than 1.
+     */
+    public void setBatchMaxSize(int batchMaxSize) {
+        this.batchMaxSize = requireAtLeast(batchMaxSize, 1, "batchMaxSize");
+    }
+
+    /**
+     * Gets the maximum time a check waits for other checks to join its batch.
+     *
+     * @return The batch window.
+     */
+    public Duration getBatchWindow() {
+        return batchWindow;
+    }
+
+    /**
+     * Sets the maximum time a check waits for other checks to join its batch.
+     *
+     * @param batchWindow The batch window.
+     * @throws IllegalArgumentException If the window is null or negative.
+     */
+    public void setBatchWindow(Duration batchWindow) {
+        this.batchWindow = requireNonNegative(batchWindow, "batchWindow");
+    }
+
+    /**
+     * Checks if the client-side decision cache is enabled.
+     *
+     * @return True if decisions are cached.
+     */
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Sets whether decisions returned by the PDP are cached in the client.
+     *
+     * @param cacheEnabled True to enable the decision cache.
+     */
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    /**
+     * Gets the maximum number of cached decisions.
+     *
+     * @return The maximum cache size.
+     */
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of cached decisions.
+     *
+     * @param cacheMaxSize The maximum cache size.
+     * @throws IllegalArgumentException If the size is less than 1.
+     */
+    public void setCacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = requireAtLeast(cacheMaxSize, 1, "cacheMaxSize");
+    }
+
+    /**
+     * Gets how long a permit decision is cached.
+     *
+     * @return The TTL of permit decisions.
+     */
+    public Duration getCachePermitTtl() {
+        return cachePermitTtl;
+    }
+
+    /**
+     * Sets how long a permit decision is cached. A zero duration disables caching of permits.
+     *
+     * @param cachePermitTtl The TTL of permit decisions.
+     * @throws IllegalArgumentException If the duration is null or negative.
+     */
+    public void setCachePermitTtl(Duration cachePermitTtl) {
+        this.cachePermitTtl = requireNonNegative(cachePermitTtl, "cachePermitTtl");
+    }
+
+    /**
+     * Gets how long a deny decision is cached.
+     *
+     * @return The TTL of deny decisions.
+     */
+    public Duration getCacheDenyTtl() {
+        return cacheDenyTtl;
+    }
+
+    /**
+     * Sets how long a deny decision is cached. A zero duration disables caching of denials.
+     *
+     * @param cacheDenyTtl The TTL of deny decisions.
+     * @throws IllegalArgumentException If the duration is null or negative.
+     */
+    public void setCacheDenyTtl(Duration cacheDenyTtl) {
+        this.cacheDenyTtl = requireNonNegative(cacheDenyTtl, "cacheDenyTtl");
+    }
+
+    /**
+     * Checks if hedged calls are enabled.
+     *
+     * @return True if slow checks are hedged.
+     */
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+
+    /**
+     * Sets whether a check that is still outstanding after the hedging delay is sent once more
+     * to another endpoint or channel. The first answer is used and the other call is cancelled.
+     *
+     * @param hedgingEnabled True to enable hedging.
+     */
+    public void setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+    }
+
+    /**
+     * Gets the latency percentile used as the hedging delay.
+     *
+     * @return The hedging delay percentile.
+     */
+    public double getHedgingDelayPercentile() {
+        return hedgingDelayPercentile;
+    }
+
+    /**
+     * Sets the percentile of the recent call latencies after which a check is hedged, for example 95.0.
+     *
+     * @param hedgingDelayPercentile The hedging delay percentile, between 0 and 100.
+     * @throws IllegalArgumentException If the percentile is not between 0 and 100.
+     */
+    public void setHedgingDelayPercentile(double hedgingDelayPercentile) {
+        this.hedgingDelayPercentile = requireBetween(hedgingDelayPercentile, 0, 100, "hedgingDelayPercentile");
+    }
+
+    /**
+     * Gets the minimum hedging delay.
+     *
+     * @return The minimum hedging delay.
+     */
+    public Duration getHedgingMinDelay() {
+        return hedgingMinDelay;
+    }
+
+    /**
+     * Sets the minimum hedging delay. It is also used until enough latencies have been observed.
+     *
+     * @param hedgingMinDelay The minimum hedging delay.
+     * @throws IllegalArgumentException If the delay is null or negative.
+     */
+    public void setHedgingMinDelay(Duration hedgingMinDelay) {
+        this.hedgingMinDelay = requireNonNegative(hedgingMinDelay, "hedgingMinDelay");
+    }
+
+    /**
+     * Gets the hedge budget.
+     *
+     * @return The maximum number of hedges per regular call.
+     */
+    public double getHedgingBudgetRatio() {
+        return hedgingBudgetRatio;
+    }
+
+    /**
+     * Sets the hedge budget as the maximum number of hedges per regular call, for example 0.1 for 10%.
+     *
+     * @param hedgingBudgetRatio The hedge budget ratio.
+     * @throws IllegalArgumentException If the ratio is negative or not a number.
+     */
+    public void setHedgingBudgetRatio(double hedgingBudgetRatio) {
+        this.hedgingBudgetRatio = requireBetween(hedgingBudgetRatio, 0, Double.MAX_VALUE, "hedgingBudgetRatio");
+    }
+
+    /**
+     * Gets the default deadline of a call to the PDP.
+     *
+     * @return The default deadline, or null if calls have no deadline.
+     */
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Sets the default deadline of a call to the PDP. Checks that do not complete in time fail with an
+     * AuthorizationTimeoutException. A null or zero duration disables the default deadline.
+     *
+     * @param deadline The default deadline.
+     * @throws IllegalArgumentException If the duration is negative.
+     */
+    public void setDeadline(Duration deadline) {
+        this.deadline = deadline != null ? requireNonNegative(deadline, "deadline") : null;
+    }
+
+    /**
+     * Checks if the default deadline adapts to the observed PDP latency.
+     *
+     * @return True if the adaptive deadline is enabled.
+     */
+    public boolean isAdaptiveDeadlineEnabled() {
+        return adaptiveDeadlineEnabled;
+    }
+
+    /**
+     * Sets whether the default deadline is derived from a percentile of the recent call latencies.
+     * The adaptive deadline never exceeds the configured deadline.
+     *
+     * @param adaptiveDeadlineEnabled True to enable the adaptive deadline.
+     */
+    public void setAdaptiveDeadlineEnabled(boolean adaptiveDeadlineEnabled) {
+        this.adaptiveDeadlineEnabled = adaptiveDeadlineEnabled;
+    }
+
+    /**
+     * Gets the latency percentile the adaptive deadline is derived from.
+     *
+     * @return The adaptive deadline percentile.
+     */
+    public double getAdaptiveDeadlinePercentile() {
+        return adaptiveDeadlinePercentile;
+    }
+
+    /**
+     * Sets the latency percentile the adaptive deadline is derived from, for example 99.0.
+     *
+     * @param adaptiveDeadlinePercentile The adaptive deadline percentile, between 0 and 100.
+     * @throws IllegalArgumentException If the percentile is not between 0 and 100.
+     */
+    public void setAdaptiveDeadlinePercentile(double adaptiveDeadlinePercentile) {
+        this.adaptiveDeadlinePercentile = requireBetween(adaptiveDeadlinePercentile, 0, 100, "adaptiveDeadlinePercentile");
+    }
+
+    /**
+     * Gets the factor applied to the latency percentile to obtain the adaptive deadline.
+     *
+     * @return The adaptive deadline multiplier.
+     */
+    public double getAdaptiveDeadlineMultiplier() {
+        return adaptiveDeadlineMultiplier;
+    }
+
+    /**
+     * Sets the factor applied to the latency percentile to obtain the adaptive deadline.
+     *
+     * @param adaptiveDeadlineMultiplier The adaptive deadline multiplier.
+     * @throws IllegalArgumentException If the multiplier is not positive.
+     */
+    public void setAdaptiveDeadlineMultiplier(double adaptiveDeadlineMultiplier) {
+        this.adaptiveDeadlineMultiplier = requireBetween(adaptiveDeadlineMultiplier, Double.MIN_VALUE, Double.MAX_VALUE, "adaptiveDeadlineMultiplier");
+    }
+
+    /**
+     * Gets the lower bound of the adaptive deadline.
+     *
+     * @return The minimum adaptive deadline.
+     */
+    public Duration getAdaptiveDeadlineMinimum() {
+        return adaptiveDeadlineMinimum;
+    }
+
+    /**
+     * Sets the lower bound of the adaptive deadline.
+     *
+     * @param adaptiveDeadlineMinimum The minimum adaptive deadline.
+     * @throws IllegalArgumentException If the duration is null or negative.
+     */
+    public void setAdaptiveDeadlineMinimum(Duration adaptiveDeadlineMinimum) {
+        this.adaptiveDeadlineMinimum = requireNonNegative(adaptiveDeadlineMinimum, "adaptiveDeadlineMinimum");
+    }
+
+    /**
+     * Gets the maximum number of attempts of a call to the PDP.
+     *
+     * @return The maximum number of attempts.
+     */
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    /**
+     * Sets the maximum number of attempts of a call to the PDP, including the first one.
+     * The default of 1 disables retries.
+     *
+     * @param retryMaxAttempts The maximum number of attempts.
+     * @throws IllegalArgumentException If the number of attempts is less than 1.
+     */
+    public void setRetryMaxAttempts(int retryMaxAttempts) {
+        this.retryMaxAttempts = requireAtLeast(retryMaxAttempts, 1, "retryMaxAttempts");
+    }
+
+    /**
+     * Gets the backoff before the first retry.
+     *
+     * @return The initial retry backoff.
+     */
+    public Duration getRetryInitialBackoff() {
+        return retryInitialBackoff;
+    }
+
+    /**
+     * Sets the backoff before the first retry. Each retry waits a random time up to the current backoff.
+     *
+     * @param retryInitialBackoff The initial retry backoff.
+     * @throws IllegalArgumentException If the backoff is null or negative.
+     */
+    public void setRetryInitialBackoff(Duration retryInitialBackoff) {
+        this.retryInitialBackoff = requireNonNegative(retryInitialBackoff, "retryInitialBackoff");
+    }
+
+    /**
+     * Gets the upper bound of the retry backoff.
+     *
+     * @return The maximum retry backoff.
+     */
+    public Duration getRetryMaxBackoff() {
+        return retryMaxBackoff;
+    }
+
+    /**
+     * Sets the upper bound of the retry backoff.
+     *
+     * @param retryMaxBackoff The maximum retry backoff.
+     * @throws IllegalArgumentException If the backoff is null or negative.
+     */
+    public void setRetryMaxBackoff(Duration retryMaxBackoff) {
+        this.retryMaxBackoff = requireNonNegative(retryMaxBackoff, "retryMaxBackoff");
+    }
+
+    /**
+     * Gets the factor the retry backoff grows by after each attempt.
+     *
+     * @return The retry backoff multiplier.
+     */
+    public double getRetryBackoffMultiplier() {
+        return retryBackoffMultiplier;
+    }
+
+    /**
+     * Sets the factor the retry backoff grows by after each attempt.
+     *
+     * @param retryBackoffMultiplier The retry backoff multiplier.
+     * @throws IllegalArgumentException If the multiplier is less than 1.
+     */
+    public void setRetryBackoffMultiplier(double retryBackoffMultiplier) {
+        this.retryBackoffMultiplier = requireBetween(retryBackoffMultiplier, 1, Double.MAX_VALUE, "retryBackoffMultiplier");
+    }
+
+    /**
+     * Gets the gRPC status codes of the failures that are retried.
+     *
+     * @return The retryable status codes.
+     */
+    public Set<Status.Code> getRetryableStatusCodes() {
+        return retryableStatusCodes;
+    }
+
+    /**
+     * Sets the gRPC status codes of the failures that are retried.
+     *
+     * @param retryableStatusCodes The retryable status codes.
+     * @throws IllegalArgumentException If the status codes are null.
+     */
+    public void setRetryableStatusCodes(Set<Status.Code> retryableStatusCodes) {
+        this.retryableStatusCodes = requireNonNull(retryableStatusCodes, "retryableStatusCodes");
+    }
+
+    /**
+     * Gets the retry budget.
+     *
+     * @return The maximum number of retries per successful call.
+     */
+    public double getRetryBudgetRatio() {
+        return retryBudgetRatio;
+    }
+
+    /**
+     * Sets the retry budget as the maximum number of retries per successful call, for example 0.1 for 10%.
+     * When the PDP keeps failing, the budget runs out and failures are reported without retrying.
+     *
+     * @param retryBudgetRatio The retry budget ratio.
+     * @throws IllegalArgumentException If the ratio is negative or not a number.
+     */
+    public void setRetryBudgetRatio(double retryBudgetRatio) {
+        this.retryBudgetRatio = requireBetween(retryBudgetRatio, 0, Double.MAX_VALUE, "retryBudgetRatio");
+    }
+
+    /**
+     * Checks if the circuit breaker of each PDP endpoint is enabled.
+     *
+     * @return True if the circuit breaker is enabled.
+     */
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+
+    /**
+     * Sets whether each PDP endpoint has a circuit breaker that short-circuits calls while the endpoint is failing.
+     *
+     * @param circuitBreakerEnabled True to enable the circuit breaker.
+     */
+    public void setCircuitBreakerEnabled(boolean circuitBreakerEnabled) {
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+    }
+
+    /**
+     * Gets the failure rate that opens the circuit breaker.
+     *
+     * @return The failure rate threshold.
+     */
+    public double getCircuitBreakerFailureRateThreshold() {
+        return circuitBreakerFailureRateThreshold;
+    }
+
+    /**
+     * Sets the failure rate of the latest calls, between 0 and 1, that opens the circuit breaker.
+     *
+     * @param circuitBreakerFailureRateThreshold The failure rate threshold.
+     * @throws IllegalArgumentException If the rate is not greater than 0 and at most 1.
+     */
+    public void setCircuitBreakerFailureRateThreshold(double circuitBreakerFailureRateThreshold) {
+        this.circuitBreakerFailureRateThreshold = requireBetween(circuitBreakerFailureRateThreshold, Double.MIN_VALUE, 1, "circuitBreakerFailureRateThreshold");
+    }
+
+    /**
+     * Gets the slow-call rate that opens the circuit breaker.
+     *
+     * @return The slow-call rate threshold.
+     */
+    public double getCircuitBreakerSlowCallRateThreshold() {
+        return circuitBreakerSlowCallRateThreshold;
+    }
+
+    /**
+     * Sets the rate of slow calls among the latest calls, between 0 and 1, that opens the circuit breaker.
+     *
+     * @param circuitBreakerSlowCallRateThreshold The slow-call rate threshold.
+     * @throws IllegalArgumentException If the rate is not greater than 0 and at most 1.
+     */
+    public void setCircuitBreakerSlowCallRateThreshold(double circuitBreakerSlowCallRateThreshold) {
+        this.circuitBreakerSlowCallRateThreshold = requireBetween(circuitBreakerSlowCallRateThreshold, Double.MIN_VALUE, 1, "circuitBreakerSlowCallRateThreshold");
+    }
+
+    /**
+     * Gets the latency above which a call is slow.
+     *
+     * @return The slow-call duration.
+     */
+    public Duration getCircuitBreakerSlowCallDuration() {
+        return circuitBreakerSlowCallDuration;
+    }
+
+    /**
+     * Sets the latency above which a call counts as slow for the circuit breaker.
+     *
+     * @param circuitBreakerSlowCallDuration The slow-call duration.
+     * @throws IllegalArgumentException If the duration is null or negative.
+     */
+    public void setCircuitBreakerSlowCallDuration(Duration circuitBreakerSlowCallDuration) {
+        this.circuitBreakerSlowCallDuration = requireNonNegative(circuitBreakerSlowCallDuration, "circuitBreakerSlowCallDuration");
+    }
+
+    /**
+     * Gets the number of latest calls the circuit breaker rates are computed on.
+     *
+     * @return The window size.
+     */
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+
+    /**
+     * Sets the number of latest calls the circuit breaker rates are computed on.
+     *
+     * @param circuitBreakerWindowSize The window size.
+     * @throws IllegalArgumentException If the size is less than 1.
+     */
+    public void setCircuitBreakerWindowSize(int circuitBreakerWindowSize) {
+        this.circuitBreakerWindowSize = requireAtLeast(circuitBreakerWindowSize, 1, "circuitBreakerWindowSize");
+    }
+
+    /**
+     * Gets the number of calls needed before the circuit breaker can open.
+     *
+     * @return The minimum number of calls.
+     */
+    public int getCircuitBreakerMinimumCalls() {
+        return circuitBreakerMinimumCalls;
+    }
+
+    /**
+     * Sets the number of calls needed before the circuit breaker can open.
+     *
+     * @param circuitBreakerMinimumCalls The minimum number of calls.
+     * @throws IllegalArgumentException If the number of calls is less than 1.
+     */
+    public void setCircuitBreakerMinimumCalls(int circuitBreakerMinimumCalls) {
+        this.circuitBreakerMinimumCalls = requireAtLeast(circuitBreakerMinimumCalls, 1, "circuitBreakerMinimumCalls");
+    }
+
+    /**
+     * Gets how long the circuit breaker stays open.
+     *
+     * @return The open duration.
+     */
+    public Duration getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+
+    /**
+     * Sets how long the circuit breaker stays open before trial calls are sent.
+     *
+     * @param circuitBreakerOpenDuration The open duration.
+     * @throws IllegalArgumentException If the duration is null or negative.
+     */
+    public void setCircuitBreakerOpenDuration(Duration circuitBreakerOpenDuration) {
+        this.circuitBreakerOpenDuration = requireNonNegative(circuitBreakerOpenDuration, "circuitBreakerOpenDuration");
+    }
+
+    /**
+     * Gets the number of trial calls when the circuit breaker is half-open.
+     *
+     * @return The number of trial calls.
+     */
+    public int getCircuitBreakerHalfOpenCalls() {
+        return circuitBreakerHalfOpenCalls;
+    }
+
+    /**
+     * Sets the number of trial calls when the circuit breaker is half-open.
+     * The circuit breaker closes when all of them succeed.
+     *
+     * @param circuitBreakerHalfOpenCalls The number of trial calls.
+     * @throws IllegalArgumentException If the number of calls is less than 1.
+     */
+    public void setCircuitBreakerHalfOpenCalls(int circuitBreakerHalfOpenCalls) {
+        this.circuitBreakerHalfOpenCalls = requireAtLeast(circuitBreakerHalfOpenCalls, 1, "circuitBreakerHalfOpenCalls");
+    }
+
+    /**
+     * Gets the fallback of short-circuited checks.
+     *
+     * @return The fallback, or null.
+     */
+    public AZFallback getCircuitBreakerFallback() {
+        return circuitBreakerFallback;
+    }
+
+    /**
+     * Sets the fallback providing the response of short-circuited checks, for example {@link AZFallback#deny()} or
+     * {@link AZFallback#lastKnownDecision(AZFallback)}. Without a fallback, short-circuited checks fail with an
+     * AuthorizationCircuitOpenException.
+     *
+     * @param circuitBreakerFallback The fallback.
+     */
+    public void setCircuitBreakerFallback(AZFallback circuitBreakerFallback) {
+        this.circuitBreakerFallback = circuitBreakerFallback;
+    }
+
+    /**
+     * Gets how long the last decision of each request is kept for the fallback.
+     *
+     * @return The TTL of last known decisions.
+     */
+    public Duration getCircuitBreakerLastKnownTtl() {
+        return circuitBreakerLastKnownTtl;
+    }
+
+    /**
+     * Sets how long the last decision of each request is kept for the fallback.
+     * Decisions are only kept when a fallback is set.
+     *
+     * @param circuitBreakerLastKnownTtl The TTL of last known decisions.
+     * @throws IllegalArgumentException If the duration is null or negative.
+     */
+    public void setCircuitBreakerLastKnownTtl(Duration circuitBreakerLastKnownTtl) {
+        this.circuitBreakerLastKnownTtl = requireNonNegative(circuitBreakerLastKnownTtl, "circuitBreakerLastKnownTtl");
+    }
+
+    /**
+     * Gets the listener notified of circuit breaker state changes.
+     *
+     * @return The listener, or null.
+     */
+    public AZCircuitBreakerListener getCircuitBreakerListener() {
+        return circuitBreakerListener;
+    }
+
+    /**
+     * Sets the listener notified when the circuit breaker of an endpoint changes state.
+     *
+     * @param circuitBreakerListener The listener.
+     */
+    public void setCircuitBreakerListener(AZCircuitBreakerListener circuitBreakerListener) {
+        this.circuitBreakerListener = circuitBreakerListener;
+    }
+
+    /**
+     * Checks if identical concurrent checks are coalesced.
+     *
+     * @return True if identical checks share one call to the PDP.
+     */
+    public boolean isCoalescingEnabled() {
+        return coalescingEnabled;
+    }
+
+    /**
+     * Sets whether a check identical to one already in flight, apart from its request ID, waits for the
+     * response of that check instead of sending its own call to the PDP.
+     *
+     * @param coalescingEnabled True to enable request coalescing.
+     */
+    public void setCoalescingEnabled(boolean coalescingEnabled) {
+        this.coalescingEnabled = coalescingEnabled;
+    }
+
+    /**
+     * Checks if the adaptive concurrency limit is enabled.
+     *
+     * @return True if outstanding calls to the PDP are limited.
+     */
+    public boolean isConcurrencyLimitEnabled() {
+        return concurrencyLimitEnabled;
+    }
+
+    /**
+     * Sets whether the number of outstanding calls to the PDP is limited by a limit that adapts to the
+     * observed round-trip times and overload errors.
+     *
+     * @param concurrencyLimitEnabled True to enable the adaptive concurrency limit.
+     */
+    public void setConcurrencyLimitEnabled(boolean concurrencyLimitEnabled) {
+        this.concurrencyLimitEnabled = concurrencyLimitEnabled;
+    }
+
+    /**
+     * Gets the initial concurrency limit.
+     *
+     * @return The initial limit.
+     */
+    public int getConcurrencyLimitInitial() {
+        return concurrencyLimitInitial;
+    }
+
+    /**
+     * Sets the initial concurrency limit.
+     *
+     * @param concurrencyLimitInitial The initial limit.
+     * @throws IllegalArgumentException If the limit is less than 1.
+     */
+    public void setConcurrencyLimitInitial(int concurrencyLimitInitial) {
+        this.concurrencyLimitInitial = requireAtLeast(concurrencyLimitInitial, 1, "concurrencyLimitInitial");
+    }
+
+    /**
+     * Gets the lower bound of the concurrency limit.
+     *
+     * @return The minimum limit.
+     */
+    public int getConcurrencyLimitMin() {
+        return concurrencyLimitMin;
+    }
+
+    /**
+     * Sets the lower bound of the concurrency limit.
+     *
+     * @param concurrencyLimitMin The minimum limit.
+     * @throws IllegalArgumentException If the limit is less than 1.
+     */
+    public void setConcurrencyLimitMin(int concurrencyLimitMin) {
+        this.concurrencyLimitMin = requireAtLeast(concurrencyLimitMin, 1, "concurrencyLimitMin");
+    }
+
+    /**
+     * Gets the upper bound of the concurrency limit.
+     *
+     * @return The maximum limit.
+     */
+    public int getConcurrencyLimitMax() {
+        return concurrencyLimitMax;
+    }
+
+    /**
+     * Sets the upper bound of the concurrency limit.
+     *
+     * @param concurrencyLimitMax The maximum limit.
+     * @throws IllegalArgumentException If the limit is less than 1.
+     */
+    public void setConcurrencyLimitMax(int concurrencyLimitMax) {
+        this.concurrencyLimitMax = requireAtLeast(concurrencyLimitMax, 1, "concurrencyLimitMax");
+    }
+
+    /**
+     * Gets the maximum number of calls waiting for the concurrency limit.
+     *
+     * @return The wait queue size.
+     */
+    public int getConcurrencyLimitQueueSize() {
+        return concurrencyLimitQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of calls waiting for the concurrency limit. Checks arriving when the queue
+     * is full fail at once with an AuthorizationLimitExceededException.
+     *
+     * @param concurrencyLimitQueueSize The wait queue size.
+     * @throws IllegalArgumentException If the size is negative.
+     */
+    public void setConcurrencyLimitQueueSize(int concurrencyLimitQueueSize) {
+        this.concurrencyLimitQueueSize = requireAtLeast(concurrencyLimitQueueSize, 0, "concurrencyLimitQueueSize");
+    }
+
+    /**
+     * Gets the maximum number of outstanding checks of a stream session.
+     *
+     * @return The maximum number of outstanding checks.
+     */
+    public int getStreamMaxPendingChecks() {
+        return streamMaxPendingChecks;
+    }
+
+    /**
+     * Sets the maximum number of outstanding checks of a stream session, including the checks waiting for
+     * the stream to be ready. Checks beyond it fail at once with an AuthorizationLimitExceededException.
+     *
+     * @param streamMaxPendingChecks The maximum number of outstanding checks.
+     * @throws IllegalArgumentException If the number of checks is less than 1.
+     */
+    public void setStreamMaxPendingChecks(int streamMaxPendingChecks) {
+        this.streamMaxPendingChecks = requireAtLeast(streamMaxPendingChecks, 1, "streamMaxPendingChecks");
+    }
+
+    /** VALIDATION HELPERS **/
+
+    private static <T> T requireNonNull(T value, String name) {
+        if (value == null) {
+            throw new IllegalArgumentException(name + " must not be null");
+        }
+        return value;
+    }
+
+    private static int requireAtLeast(int value, int minimum, String name) {
+        if (value < minimum) {
+            throw new IllegalArgumentException(name + " must be at least " + minimum + ": " + value);
+        }
+        return value;
+    }
+
+    private static long requireAtLeast(long value, long minimum, String name) {
+        if (value < minimum) {
+            throw new IllegalArgumentException(name + " must be at least " + minimum + ": " + value);
+        }
+        return value;
+    }
+
+    private static double requireBetween(double value, double minimum, double maximum, String name) {
+        // Written so that NaN is rejected too.
+        if (!(value >= minimum && value <= maximum)) {
+            throw new IllegalArgumentException(name + " is out of range: " + value);
+        }
+        return value;
+    }
+
+    private static Duration requireNonNegative(Duration value, String name) {
+        if (value == null || value.isNegative()) {
+            throw new IllegalArgumentException(name + " must not be null or negative: " + value);
+        }
+        return value;
+    }
 }
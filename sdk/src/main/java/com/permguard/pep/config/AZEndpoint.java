@@ -0,0 +1,195 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Address of a Policy Decision Point (PDP) service instance.
+ * An endpoint is reached over TCP by default; {@link #unixSocket(String)} and {@link #inProcess(String)}
+ * create endpoints for a sidecar PDP listening on a Unix domain socket and for a PDP server running in the same JVM.
+ */
+public class AZEndpoint {
+    private static final String UNIX_PREFIX = "unix:";
+    private static final String IN_PROCESS_PREFIX = "in-process:";
+
+    private final AZTransport transport;
+    private final String host;
+    private final int port;
+    private final String path;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param host The hostname or IP address of the PDP service.
+     * @param port The port number of the PDP service.
+     */
+    public AZEndpoint(String host, int port) {
+        this(AZTransport.TCP, host, port, null);
+    }
+
+    private AZEndpoint(AZTransport transport, String host, int port, String path) {
+        this.transport = transport;
+        this.host = host;
+        this.port = port;
+        this.path = path;
+    }
+
+    /**
+     * Creates an endpoint for a PDP listening on a Unix domain socket.
+     *
+     * @param path The path of the socket file, for example "/var/run/permguard/pdp.sock".
+     * @return The endpoint.
+     */
+    public static AZEndpoint unixSocket(String path) {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("Invalid endpoint, expected a socket path but found: " + path);
+        }
+        return new AZEndpoint(AZTransport.UNIX_DOMAIN_SOCKET, null, 0, path);
+    }
+
+    /**
+     * Creates an endpoint for a PDP server running in the same JVM, for example an {@code AZServer}
+     * started with {@code startInProcess(name)}.
+     *
+     * @param name The name the in-process server was started with.
+     * @return The endpoint.
+     */
+    public static AZEndpoint inProcess(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Invalid endpoint, expected an in-process server name but found: " + name);
+        }
+        return new AZEndpoint(AZTransport.IN_PROCESS, null, 0, name);
+    }
+
+    /**
+     * Parses an endpoint in the host:port format.
+     * The "unix:/path/to/socket" and "in-process:name" formats create a Unix domain socket and an in-process endpoint.
+     *
+     * @param address The endpoint address.
+     * @return The endpoint.
+     */
+    public static AZEndpoint parse(String address) {
+        String value = address.trim();
+        if (value.startsWith(UNIX_PREFIX)) {
+            String path = value.substring(UNIX_PREFIX.length());
+            // The gRPC target syntax unix:///path/to/socket is accepted as well.
+            return unixSocket(path.startsWith("//") ? path.substring(2) : path);
+        }
+        if (value.startsWith(IN_PROCESS_PREFIX)) {
+            return inProcess(value.substring(IN_PROCESS_PREFIX.length()));
+        }
+        int separator = value.lastIndexOf(':');
+        if (separator <= 0 || separator == value.length() - 1) {
+            throw new IllegalArgumentException("Invalid endpoint, expected host:port but found: " + address);
+        }
+        String host = value.substring(0, separator);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        try {
+            return new AZEndpoint(host, Integer.parseInt(value.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid endpoint port: " + address, e);
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of endpoints in the host:port format.
+     *
+     * @param addresses The endpoint addresses, for example "pdp-1:9094,pdp-2:9094".
+     * @return The endpoints.
+     */
+    public static List<AZEndpoint> parseList(String addresses) {
+        List<AZEndpoint> endpoints = new ArrayList<>();
+        for (String address : addresses.split(",")) {
+            if (!address.isBlank()) {
+                endpoints.add(parse(address));
+            }
+        }
+        return endpoints;
+    }
+
+    /**
+     * Gets the transport used to reach the PDP service.
+     *
+     * @return The transport.
+     */
+    public AZTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Gets the host of the PDP service.
+     *
+     * @return The host address, or null if the endpoint is not reached over TCP.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Gets the port of the PDP service.
+     *
+     * @return The port number.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Gets the socket path of a Unix domain socket endpoint, or the server name of an in-process endpoint.
+     *
+     * @return The socket path or server name, or null for a TCP endpoint.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AZEndpoint other)) {
+            return false;
+        }
+        return transport == other.transport && port == other.port
+                && Objects.equals(host, other.host) && Objects.equals(path, other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(transport, host, port, path);
+    }
+
+    @Override
+    public String toString() {
+        switch (transport) {
+            case UNIX_DOMAIN_SOCKET:
+                return UNIX_PREFIX + path;
+            case IN_PROCESS:
+                return IN_PROCESS_PREFIX + path;
+            default:
+                return host + ":" + port;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.config;
+
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.request.Evaluation;
+import com.permguard.pep.model.response.AZResponse;
+import com.permguard.pep.model.response.EvaluationResponse;
+
+import java.util.List;
+
+/**
+ * Fallback providing the response of a check that is short-circuited because the circuit breaker is open.
+ */
+@FunctionalInterface
+public interface AZFallback {
+
+    /**
+     * Provides the response of a short-circuited check.
+     *
+     * @param request           The request of the check.
+     * @param lastKnownResponse The last response of the PDP to the same request, or null if none is known.
+     * @return The response returned to the caller.
+     */
+    AZResponse apply(AZRequest request, AZResponse lastKnownResponse);
+
+    /**
+     * Fallback that denies every short-circuited check (fail closed).
+     *
+     * @return The deny fallback.
+     */
+    static AZFallback deny() {
+        return (request, lastKnownResponse) -> {
+            List<Evaluation> evaluations = request.getEvaluations() != null ? request.getEvaluations() : List.of();
+            return new AZResponse(false, request.getRequestId(), null, evaluations.stream()
+                    .map(evaluation -> new EvaluationResponse(false, evaluation.getRequestId(), null))
+                    .toList());
+        };
+    }
+
+    /**
+     * Fallback that returns the last decision of the PDP for the same request, or delegates to another
+     * fallback when no decision is known.
+     *
+     * @param otherwise The fallback used when no decision is known.
+     * @return The last known decision fallback.
+     */
+    static AZFallback lastKnownDecision(AZFallback otherwise) {
+        return (request, lastKnownResponse) -> lastKnownResponse != null
+                ? lastKnownResponse
+                : otherwise.apply(request, null);
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.config;
+
+/**
+ * Transport used to reach a PDP endpoint.
+ */
+public enum AZTransport {
+    /**
+     * Connects to the host and port of the endpoint over TCP.
+     */
+    TCP,
+
+    /**
+     * Connects to a Unix domain socket, for a PDP running as a sidecar on the same host.
+     * Requires the native epoll transport, available on Linux.
+     */
+    UNIX_DOMAIN_SOCKET,
+
+    /**
+     * Calls a PDP server running in the same JVM, without any socket or serialization to the network.
+     */
+    IN_PROCESS
+}
@@ -0,0 +1,35 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.exception;
+
+/**
+ * Exception thrown when an authorization request is rejected because the concurrency limit of the calls
+ * to the PDP is reached and the wait queue is full, or because a stream session has too many outstanding checks.
+ */
+public class AuthorizationLimitExceededException extends AuthorizationException {
+
+    /**
+     * Constructs an AuthorizationLimitExceededException with a specific message.
+     *
+     * @param message The error message describing the failure.
+     */
+    public AuthorizationLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -14033,13 +14033,17 @@ public final class AuthorizationCheck {
       "\003 \001(\0132$.policydecisionpoint.ContextRespo" +
       "nseH\001\210\001\001\022<\n\013Evaluations\030\004 \003(\0132\'.policyde" +
       "cisionpoint.EvaluationResponseB\014\n\n_Reque" +
-      "stIDB\n\n\010_Context2\207\001\n\014V1PDPService\022w\n\022Aut" +
+      "stIDB\n\n\010_Context2\213\002\n\014V1PDPService\022w\n\022Aut" +
       "horizationCheck\022..policydecisionpoint.Au" +
       "thorizationCheckRequest\032/.policydecision" +
-      "point.AuthorizationCheckResponse\"\000Bp\n co" +
-      "m.permguard.pep.internal.protoB\022Authoriz" +
-      "ationCheckZ8github.com/permguard/permgua" +
-      "rd/internal/hosts/api/pdp/v1b\006proto3"
+      "point.AuthorizationCheckResponse\"\000\022\201\001\n\030A" +
+      "uthorizationCheckStream\022..policydecision" +
+      "point.AuthorizationCheckRequest\032/.policy" +
+      "decisionpoint.AuthorizationCheckResponse" +
+      "\"\000(\0010\001Bp\n com.permguard.pep.internal.pro" +
+      "toB\022AuthorizationCheckZ8github.com/permg" +
+      "uard/permguard/internal/hosts/api/pdp/v1" +
+      "b\006proto3"
     };
     descriptor = com.google.protobuf.Descriptors.FileDescriptor
       .internalBuildGeneratedFileFrom(descriptorData,
@@ -49,6 +49,37 @@ public final class V1PDPServiceGrpc {
     return getAuthorizationCheckMethod;
   }
 
+  private static volatile io.grpc.MethodDescriptor<com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckRequest,
+      com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse> getAuthorizationCheckStreamMethod;
+
+  @io.grpc.stub.annotations.RpcMethod(
+      fullMethodName = SERVICE_NAME + '/' + "AuthorizationCheckStream",
+      requestType = com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckRequest.class,
+      responseType = com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse.class,
+      methodType = io.grpc.MethodDescriptor.MethodType.BIDI_STREAMING)
+  public static io.grpc.MethodDescriptor<com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckRequest,
+      com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse> getAuthorizationCheckStreamMethod() {
+    io.grpc.MethodDescriptor<com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckRequest, com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse> getAuthorizationCheckStreamMethod;
+    if ((getAuthorizationCheckStreamMethod = V1PDPServiceGrpc.getAuthorizationCheckStreamMethod) == null) {
+      synchronized (V1PDPServiceGrpc.class) {
+        if ((getAuthorizationCheckStreamMethod = V1PDPServiceGrpc.getAuthorizationCheckStreamMethod) == null) {
+          V1PDPServiceGrpc.getAuthorizationCheckStreamMethod = getAuthorizationCheckStreamMethod =
+              io.grpc.MethodDescriptor.<com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckRequest, com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse>newBuilder()
+              .setType(io.grpc.MethodDescriptor.MethodType.BIDI_STREAMING)
+              .setFullMethodName(generateFullMethodName(SERVICE_NAME, "AuthorizationCheckStream"))
+              .setSampledToLocalTracing(true)
+              .setRequestMarshaller(io.grpc.protobuf.ProtoUtils.marshaller(
+                  com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckRequest.getDefaultInstance()))
+              .setResponseMarshaller(io.grpc.protobuf.ProtoUtils.marshaller(
+                  com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse.getDefaultInstance()))
+              .setSchemaDescriptor(new V1PDPServiceMethodDescriptorSupplier("AuthorizationCheckStream"))
+              .build();
+        }
+      }
+    }
+    return getAuthorizationCheckStreamMethod;
+  }
+
   /**
    * Creates a new async stub that supports all call types for the service
    */
@@ -106,6 +137,16 @@ public final class V1PDPServiceGrpc {
         io.grpc.stub.StreamObserver<com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse> responseObserver) {
       io.grpc.stub.ServerCalls.asyncUnimplementedUnaryCall(getAuthorizationCheckMethod(), responseObserver);
     }
+
+    /**
+     * <pre>
+     * AuthorizationCheckStream multiplexes checks over a long-lived stream, responses are correlated by RequestID.
+     * </pre>
+     */
+    default io.grpc.stub.StreamObserver<com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckRequest> authorizationCheckStream(
+        io.grpc.stub.StreamObserver<com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse> responseObserver) {
+      return io.grpc.stub.ServerCalls.asyncUnimplementedStreamingCall(getAuthorizationCheckStreamMethod(), responseObserver);
+    }
   }
 
   /**
@@ -148,6 +189,17 @@ public final class V1PDPServiceGrpc {
       io.grpc.stub.ClientCalls.asyncUnaryCall(
           getChannel().newCall(getAuthorizationCheckMethod(), getCallOptions()), request, responseObserver);
     }
+
+    /**
+     * <pre>
+     * AuthorizationCheckStream multiplexes checks over a long-lived stream, responses are correlated by RequestID.
+     * </pre>
+     */
+    public io.grpc.stub.StreamObserver<com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckRequest> authorizationCheckStream(
+        io.grpc.stub.StreamObserver<com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse> responseObserver) {
+      return io.grpc.stub.ClientCalls.asyncBidiStreamingCall(
+          getChannel().newCall(getAuthorizationCheckStreamMethod(), getCallOptions()), responseObserver);
+    }
   }
 
   /**
@@ -206,6 +258,7 @@ public final class V1PDPServiceGrpc {
   }
 
   private static final int METHODID_AUTHORIZATION_CHECK = 0;
+  private static final int METHODID_AUTHORIZATION_CHECK_STREAM = 1;
 
   private static final class MethodHandlers<Req, Resp> implements
       io.grpc.stub.ServerCalls.UnaryMethod<Req, Resp>,
@@ -238,6 +291,9 @@ public final class V1PDPServiceGrpc {
     public io.grpc.stub.StreamObserver<Req> invoke(
         io.grpc.stub.StreamObserver<Resp> responseObserver) {
       switch (methodId) {
+        case METHODID_AUTHORIZATION_CHECK_STREAM:
+          return (io.grpc.stub.StreamObserver<Req>) serviceImpl.authorizationCheckStream(
+              (io.grpc.stub.StreamObserver<com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse>) responseObserver);
         default:
           throw new AssertionError();
       }
@@ -253,6 +309,13 @@ public final class V1PDPServiceGrpc {
               com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckRequest,
               com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse>(
                 service, METHODID_AUTHORIZATION_CHECK)))
+        .addMethod(
+          getAuthorizationCheckStreamMethod(),
+          io.grpc.stub.ServerCalls.asyncBidiStreamingCall(
+            new MethodHandlers<
+              com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckRequest,
+              com.permguard.pep.internal.proto.AuthorizationCheck.AuthorizationCheckResponse>(
+                service, METHODID_AUTHORIZATION_CHECK_STREAM)))
         .build();
   }
 
@@ -302,6 +365,7 @@ public final class V1PDPServiceGrpc {
           serviceDescriptor = result = io.grpc.ServiceDescriptor.newBuilder(SERVICE_NAME)
               .setSchemaDescriptor(new V1PDPServiceFileDescriptorSupplier())
               .addMethod(getAuthorizationCheckMethod())
+              .addMethod(getAuthorizationCheckStreamMethod())
               .build();
         }
       }
@@ -0,0 +1,136 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.model.request;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Interning pool of immutable request model values.
+ * Equal values interned by the same pool are the same instance, so hot subjects and resources can be shared
+ * across threads and compared by reference. The pool holds its values weakly: a value no longer used
+ * anywhere else is removed from the pool by the garbage collector. Pools are thread-safe.
+ * <p>
+ * Interned subjects, resources and actions are passed to a request with {@code AZRequestTemplate.newRequest},
+ * which keeps them without copying; the client converts each canonical instance to its gRPC form once and reuses
+ * the conversion for every request holding it.
+ */
+public final class AZInterner {
+    private final Interner<Object> interner = Interners.newWeakInterner();
+
+    /**
+     * Interns a subject.
+     *
+     * @param subject The subject, copied into an {@link ImmutableSubject}.
+     * @return The canonical value equal to the subject.
+     */
+    public ImmutableSubject intern(Subject subject) {
+        return intern(ImmutableSubject.copyOf(subject));
+    }
+
+    /**
+     * Interns an immutable subject.
+     *
+     * @param subject The immutable subject.
+     * @return The canonical value equal to the subject.
+     */
+    public ImmutableSubject intern(ImmutableSubject subject) {
+        return (ImmutableSubject) interner.intern(subject);
+    }
+
+    /**
+     * Interns a resource.
+     *
+     * @param resource The resource, copied into an {@link ImmutableResource}.
+     * @return The canonical value equal to the resource.
+     */
+    public ImmutableResource intern(Resource resource) {
+        return intern(ImmutableResource.copyOf(resource));
+    }
+
+    /**
+     * Interns an immutable resource.
+     *
+     * @param resource The immutable resource.
+     * @return The canonical value equal to the resource.
+     */
+    public ImmutableResource intern(ImmutableResource resource) {
+        return (ImmutableResource) interner.intern(resource);
+    }
+
+    /**
+     * Interns an action.
+     *
+     * @param action The action, copied into an {@link ImmutableAction}.
+     * @return The canonical value equal to the action.
+     */
+    public ImmutableAction intern(Action action) {
+        return intern(ImmutableAction.copyOf(action));
+    }
+
+    /**
+     * Interns an immutable action.
+     *
+     * @param action The immutable action.
+     * @return The canonical value equal to the action.
+     */
+    public ImmutableAction intern(ImmutableAction action) {
+        return (ImmutableAction) interner.intern(action);
+    }
+
+    /**
+     * Interns a principal.
+     *
+     * @param principal The principal, copied into an {@link ImmutablePrincipal}.
+     * @return The canonical value equal to the principal.
+     */
+    public ImmutablePrincipal intern(Principal principal) {
+        return intern(ImmutablePrincipal.copyOf(principal));
+    }
+
+    /**
+     * Interns an immutable principal.
+     *
+     * @param principal The immutable principal.
+     * @return The canonical value equal to the principal.
+     */
+    public ImmutablePrincipal intern(ImmutablePrincipal principal) {
+        return (ImmutablePrincipal) interner.intern(principal);
+    }
+
+    /**
+     * Interns an authorization model.
+     *
+     * @param model The authorization model, copied into an {@link ImmutableAZModel}.
+     * @return The canonical value equal to the authorization model.
+     */
+    public ImmutableAZModel intern(AZModel model) {
+        return intern(ImmutableAZModel.copyOf(model));
+    }
+
+    /**
+     * Interns an immutable authorization model.
+     *
+     * @param model The immutable authorization model.
+     * @return The canonical value equal to the authorization model.
+     */
+    public ImmutableAZModel intern(ImmutableAZModel model) {
+        return (ImmutableAZModel) interner.intern(model);
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.model.request;
+
+import java.util.Objects;
+
+/**
+ * Immutable authorization model with structural equality and a cached hash code,
+ * usable as a cache key and shareable across threads.
+ * The policy store, principal and entities are copied into their immutable variants when the model is created.
+ * It is a value type, not an {@link AZModel}: {@link #copyOf(AZModel)} creates it from a mutable model
+ * and {@link #toAZModel()} converts it back.
+ */
+public final class ImmutableAZModel {
+    private final long zoneId;
+    private final ImmutablePolicyStore policyStore;
+    private final ImmutablePrincipal principal;
+    private final ImmutableEntities entities;
+    private final int hash;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param zoneId      The zone identifier.
+     * @param policyStore The policy store.
+     * @param principal   The principal making the request.
+     * @param entities    The entities of the request.
+     */
+    public ImmutableAZModel(long zoneId, PolicyStore policyStore, Principal principal, Entities entities) {
+        this.zoneId = zoneId;
+        this.policyStore = ImmutablePolicyStore.copyOf(policyStore);
+        this.principal = ImmutablePrincipal.copyOf(principal);
+        this.entities = ImmutableEntities.copyOf(entities);
+        this.hash = Objects.hash(this.zoneId, this.policyStore, this.principal, this.entities);
+    }
+
+    /**
+     * Gets an immutable copy of an authorization model.
+     *
+     * @param model The authorization model, or null.
+     * @return The immutable copy, or null.
+     */
+    public static ImmutableAZModel copyOf(AZModel model) {
+        if (model == null) {
+            return null;
+        }
+        return new ImmutableAZModel(model.getZoneId(), model.getPolicyStore(), model.getPrincipal(), model.getEntities());
+    }
+
+    /**
+     * Gets the zone identifier.
+     *
+     * @return The zone identifier.
+     */
+    public long getZoneId() {
+        return zoneId;
+    }
+
+    /**
+     * Gets the policy store.
+     *
+     * @return The policy store.
+     */
+    public ImmutablePolicyStore getPolicyStore() {
+        return policyStore;
+    }
+
+    /**
+     * Gets the principal making the request.
+     *
+     * @return The principal making the request.
+     */
+    public ImmutablePrincipal getPrincipal() {
+        return principal;
+    }
+
+    /**
+     * Gets the entities of the request.
+     *
+     * @return The entities of the request.
+     */
+    public ImmutableEntities getEntities() {
+        return entities;
+    }
+
+    /**
+     * Creates a mutable authorization model with the same values, holding mutable copies of the policy store,
+     * principal and entities.
+     *
+     * @return The mutable authorization model.
+     */
+    public AZModel toAZModel() {
+        return new AZModel(zoneId,
+                policyStore != null ? policyStore.toPolicyStore() : null,
+                principal != null ? principal.toPrincipal() : null,
+                entities != null ? entities.toEntities() : null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutableAZModel other) || hash != other.hash) {
+            return false;
+        }
+        return zoneId == other.zoneId
+                && Objects.equals(policyStore, other.policyStore)
+                && Objects.equals(principal, other.principal)
+                && Objects.equals(entities, other.entities);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
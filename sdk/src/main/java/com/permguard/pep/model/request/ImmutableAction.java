@@ -0,0 +1,106 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.model.request;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable action with structural equality and a cached hash code,
+ * usable as a cache key and shareable across threads.
+ * The properties are copied into unmodifiable maps and lists when the action is created; values of other types
+ * are kept as they are and must not be modified.
+ * It is a value type, not an {@link Action}: {@link #copyOf(Action)} creates it from a mutable action
+ * and {@link #toAction()} converts it back.
+ */
+public final class ImmutableAction {
+    private final String name;
+    private final Map<String, Object> properties;
+    private final int hash;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param name       The name of the action.
+     * @param properties Optional properties associated with the action.
+     */
+    public ImmutableAction(String name, Map<String, Object> properties) {
+        this.name = name;
+        this.properties = Values.freeze(properties);
+        this.hash = Objects.hash(this.name, this.properties);
+    }
+
+    /**
+     * Gets an immutable copy of a action.
+     *
+     * @param action The action, or null.
+     * @return The immutable copy, or null.
+     */
+    public static ImmutableAction copyOf(Action action) {
+        if (action == null) {
+            return null;
+        }
+        return new ImmutableAction(action.getName(), action.getProperties());
+    }
+
+    /**
+     * Gets the name of the action.
+     *
+     * @return The name of the action.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the properties associated with the action.
+     *
+     * @return The unmodifiable properties of the action, or null.
+     */
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Creates a mutable action with the same values. It shares the unmodifiable properties of this action,
+     * which can be replaced with its setter.
+     *
+     * @return The mutable action.
+     */
+    public Action toAction() {
+        return new Action(name, properties);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutableAction other) || hash != other.hash) {
+            return false;
+        }
+        return Objects.equals(name, other.name)
+                && Objects.equals(properties, other.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
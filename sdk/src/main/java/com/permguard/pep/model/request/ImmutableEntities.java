@@ -0,0 +1,107 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.model.request;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable entity set with structural equality and a cached hash code,
+ * usable as a cache key and shareable across threads.
+ * The items are copied into unmodifiable maps and lists when the entity set is created; values of other types
+ * are kept as they are and must not be modified.
+ * It is a value type, not a {@link Entities}: {@link #copyOf(Entities)} creates it from a mutable entity set
+ * and {@link #toEntities()} converts it back.
+ */
+public final class ImmutableEntities {
+    private final String schema;
+    private final List<Map<String, Object>> items;
+    private final int hash;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param schema The schema associated with the entities.
+     * @param items  The list of entity items.
+     */
+    public ImmutableEntities(String schema, List<Map<String, Object>> items) {
+        this.schema = schema;
+        this.items = Values.freezeItems(items);
+        this.hash = Objects.hash(this.schema, this.items);
+    }
+
+    /**
+     * Gets an immutable copy of an entity set.
+     *
+     * @param entities The entity set, or null.
+     * @return The immutable copy, or null.
+     */
+    public static ImmutableEntities copyOf(Entities entities) {
+        if (entities == null) {
+            return null;
+        }
+        return new ImmutableEntities(entities.getSchema(), entities.getItems());
+    }
+
+    /**
+     * Gets the schema associated with the entities.
+     *
+     * @return The schema associated with the entities.
+     */
+    public String getSchema() {
+        return schema;
+    }
+
+    /**
+     * Gets the list of entity items.
+     *
+     * @return The unmodifiable list of entity items, or null.
+     */
+    public List<Map<String, Object>> getItems() {
+        return items;
+    }
+
+    /**
+     * Creates a mutable entity set with the same values. It shares the unmodifiable items of this entity set,
+     * which can be replaced with its setter.
+     *
+     * @return The mutable entity set.
+     */
+    public Entities toEntities() {
+        return new Entities(schema, items);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutableEntities other) || hash != other.hash) {
+            return false;
+        }
+        return Objects.equals(schema, other.schema)
+                && Objects.equals(items, other.items);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
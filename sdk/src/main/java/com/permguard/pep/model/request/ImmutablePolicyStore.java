@@ -0,0 +1,102 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.model.request;
+
+import java.util.Objects;
+
+/**
+ * Immutable policy store with structural equality and a cached hash code,
+ * usable as a cache key and shareable across threads.
+ * It is a value type, not a {@link PolicyStore}: {@link #copyOf(PolicyStore)} creates it from a mutable policy store
+ * and {@link #toPolicyStore()} converts it back.
+ */
+public final class ImmutablePolicyStore {
+    private final String kind;
+    private final String id;
+    private final int hash;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param kind The kind of the policy store.
+     * @param id   The unique identifier of the policy store.
+     */
+    public ImmutablePolicyStore(String kind, String id) {
+        this.kind = kind;
+        this.id = id;
+        this.hash = Objects.hash(this.kind, this.id);
+    }
+
+    /**
+     * Gets an immutable copy of a policy store.
+     *
+     * @param policyStore The policy store, or null.
+     * @return The immutable copy, or null.
+     */
+    public static ImmutablePolicyStore copyOf(PolicyStore policyStore) {
+        if (policyStore == null) {
+            return null;
+        }
+        return new ImmutablePolicyStore(policyStore.getKind(), policyStore.getId());
+    }
+
+    /**
+     * Gets the kind of the policy store.
+     *
+     * @return The kind of the policy store.
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the unique identifier of the policy store.
+     *
+     * @return The unique identifier of the policy store.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Creates a mutable policy store with the same values.
+     *
+     * @return The mutable policy store.
+     */
+    public PolicyStore toPolicyStore() {
+        return new PolicyStore(kind, id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutablePolicyStore other) || hash != other.hash) {
+            return false;
+        }
+        return Objects.equals(kind, other.kind)
+                && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.model.request;
+
+import java.util.Objects;
+
+/**
+ * Immutable principal with structural equality and a cached hash code,
+ * usable as a cache key and shareable across threads.
+ * It is a value type, not a {@link Principal}: {@link #copyOf(Principal)} creates it from a mutable principal
+ * and {@link #toPrincipal()} converts it back.
+ */
+public final class ImmutablePrincipal {
+    private final String type;
+    private final String id;
+    private final String source;
+    private final String identityToken;
+    private final String accessToken;
+    private final int hash;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param type          The type of the principal.
+     * @param id            The unique identifier of the principal.
+     * @param source        The source system of the principal.
+     * @param identityToken The identity token of the principal.
+     * @param accessToken   The access token of the principal.
+     */
+    public ImmutablePrincipal(String type, String id, String source, String identityToken, String accessToken) {
+        this.type = type;
+        this.id = id;
+        this.source = source;
+        this.identityToken = identityToken;
+        this.accessToken = accessToken;
+        this.hash = Objects.hash(this.type, this.id, this.source, this.identityToken, this.accessToken);
+    }
+
+    /**
+     * Gets an immutable copy of a principal.
+     *
+     * @param principal The principal, or null.
+     * @return The immutable copy, or null.
+     */
+    public static ImmutablePrincipal copyOf(Principal principal) {
+        if (principal == null) {
+            return null;
+        }
+        return new ImmutablePrincipal(principal.getType(), principal.getId(), principal.getSource(), principal.getIdentityToken(), principal.getAccessToken());
+    }
+
+    /**
+     * Gets the type of the principal.
+     *
+     * @return The type of the principal.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets the unique identifier of the principal.
+     *
+     * @return The unique identifier of the principal.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the source system of the principal.
+     *
+     * @return The source system of the principal.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the identity token of the principal.
+     *
+     * @return The identity token of the principal.
+     */
+    public String getIdentityToken() {
+        return identityToken;
+    }
+
+    /**
+     * Gets the access token of the principal.
+     *
+     * @return The access token of the principal.
+     */
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    /**
+     * Creates a mutable principal with the same values.
+     *
+     * @return The mutable principal.
+     */
+    public Principal toPrincipal() {
+        return new Principal(type, id, source, identityToken, accessToken);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutablePrincipal other) || hash != other.hash) {
+            return false;
+        }
+        return Objects.equals(type, other.type)
+                && Objects.equals(id, other.id)
+                && Objects.equals(source, other.source)
+                && Objects.equals(identityToken, other.identityToken)
+                && Objects.equals(accessToken, other.accessToken);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
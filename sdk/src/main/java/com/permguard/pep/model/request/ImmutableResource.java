@@ -0,0 +1,119 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.model.request;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable resource with structural equality and a cached hash code,
+ * usable as a cache key and shareable across threads.
+ * The properties are copied into unmodifiable maps and lists when the resource is created; values of other types
+ * are kept as they are and must not be modified.
+ * It is a value type, not a {@link Resource}: {@link #copyOf(Resource)} creates it from a mutable resource
+ * and {@link #toResource()} converts it back.
+ */
+public final class ImmutableResource {
+    private final String type;
+    private final String id;
+    private final Map<String, Object> properties;
+    private final int hash;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param type       The type of the resource.
+     * @param id         The unique identifier of the resource.
+     * @param properties Optional properties associated with the resource.
+     */
+    public ImmutableResource(String type, String id, Map<String, Object> properties) {
+        this.type = type;
+        this.id = id;
+        this.properties = Values.freeze(properties);
+        this.hash = Objects.hash(this.type, this.id, this.properties);
+    }
+
+    /**
+     * Gets an immutable copy of a resource.
+     *
+     * @param resource The resource, or null.
+     * @return The immutable copy, or null.
+     */
+    public static ImmutableResource copyOf(Resource resource) {
+        if (resource == null) {
+            return null;
+        }
+        return new ImmutableResource(resource.getType(), resource.getId(), resource.getProperties());
+    }
+
+    /**
+     * Gets the type of the resource.
+     *
+     * @return The type of the resource.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets the unique identifier of the resource.
+     *
+     * @return The unique identifier of the resource.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the properties associated with the resource.
+     *
+     * @return The unmodifiable properties of the resource, or null.
+     */
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Creates a mutable resource with the same values. It shares the unmodifiable properties of this resource,
+     * which can be replaced with its setter.
+     *
+     * @return The mutable resource.
+     */
+    public Resource toResource() {
+        return new Resource(type, id, properties);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutableResource other) || hash != other.hash) {
+            return false;
+        }
+        return Objects.equals(type, other.type)
+                && Objects.equals(id, other.id)
+                && Objects.equals(properties, other.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
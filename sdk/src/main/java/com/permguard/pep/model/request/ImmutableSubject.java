@@ -0,0 +1,132 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.model.request;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable subject with structural equality and a cached hash code,
+ * usable as a cache key and shareable across threads.
+ * The properties are copied into unmodifiable maps and lists when the subject is created; values of other types
+ * are kept as they are and must not be modified.
+ * It is a value type, not a {@link Subject}: {@link #copyOf(Subject)} creates it from a mutable subject
+ * and {@link #toSubject()} converts it back.
+ */
+public final class ImmutableSubject {
+    private final String type;
+    private final String id;
+    private final String source;
+    private final Map<String, Object> properties;
+    private final int hash;
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param type       The type of the subject.
+     * @param id         The unique identifier of the subject.
+     * @param source     The source system of the subject.
+     * @param properties Optional properties associated with the subject.
+     */
+    public ImmutableSubject(String type, String id, String source, Map<String, Object> properties) {
+        this.type = type;
+        this.id = id;
+        this.source = source;
+        this.properties = Values.freeze(properties);
+        this.hash = Objects.hash(this.type, this.id, this.source, this.properties);
+    }
+
+    /**
+     * Gets an immutable copy of a subject.
+     *
+     * @param subject The subject, or null.
+     * @return The immutable copy, or null.
+     */
+    public static ImmutableSubject copyOf(Subject subject) {
+        if (subject == null) {
+            return null;
+        }
+        return new ImmutableSubject(subject.getType(), subject.getId(), subject.getSource(), subject.getProperties());
+    }
+
+    /**
+     * Gets the type of the subject.
+     *
+     * @return The type of the subject.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets the unique identifier of the subject.
+     *
+     * @return The unique identifier of the subject.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the source system of the subject.
+     *
+     * @return The source system of the subject.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the properties associated with the subject.
+     *
+     * @return The unmodifiable properties of the subject, or null.
+     */
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Creates a mutable subject with the same values. It shares the unmodifiable properties of this subject,
+     * which can be replaced with its setter.
+     *
+     * @return The mutable subject.
+     */
+    public Subject toSubject() {
+        return new Subject(type, id, source, properties);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutableSubject other) || hash != other.hash) {
+            return false;
+        }
+        return Objects.equals(type, other.type)
+                && Objects.equals(id, other.id)
+                && Objects.equals(source, other.source)
+                && Objects.equals(properties, other.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
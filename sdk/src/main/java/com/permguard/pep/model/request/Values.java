@@ -0,0 +1,100 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.model.request;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Helpers of the immutable value types of the request model.
+ */
+final class Values {
+
+    private Values() {
+    }
+
+    /**
+     * Copies a property map into an unmodifiable map, recursively.
+     * Nested maps become unmodifiable maps, sets become unmodifiable sets, and other collections and arrays become
+     * unmodifiable lists; this keeps their conversion to protobuf unchanged. Other values are kept as they are.
+     *
+     * @param map The map to copy, or null.
+     * @return The unmodifiable copy, or null.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> freeze(Map<String, Object> map) {
+        return map != null ? (Map<String, Object>) freezeValue(map) : null;
+    }
+
+    /**
+     * Copies entity items into an unmodifiable list of unmodifiable maps.
+     *
+     * @param items The items to copy, or null.
+     * @return The unmodifiable copy, or null.
+     */
+    static List<Map<String, Object>> freezeItems(List<Map<String, Object>> items) {
+        if (items == null) {
+            return null;
+        }
+        List<Map<String, Object>> copy = new ArrayList<>(items.size());
+        for (Map<String, Object> item : items) {
+            copy.add(freeze(item));
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    private static Object freezeValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>((int) (map.size() / 0.75f) + 1);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(entry.getKey(), freezeValue(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof Set<?> set) {
+            // A set stays a set, so that two equal sets built in different orders freeze into equal values.
+            Set<Object> copy = new LinkedHashSet<>((int) (set.size() / 0.75f) + 1);
+            for (Object item : set) {
+                copy.add(freezeValue(item));
+            }
+            return Collections.unmodifiableSet(copy);
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> copy = new ArrayList<>(collection.size());
+            for (Object item : collection) {
+                copy.add(freezeValue(item));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        if (value instanceof Object[] array) {
+            List<Object> copy = new ArrayList<>(array.length);
+            for (Object item : array) {
+                copy.add(freezeValue(item));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+}
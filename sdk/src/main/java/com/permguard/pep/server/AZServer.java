@@ -22,6 +22,14 @@ import com.permguard.pep.internal.proto.AuthorizationCheck;
 import com.permguard.pep.internal.proto.V1PDPServiceGrpc;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 
 import java.io.IOException;
 
@@ -31,6 +39,8 @@ import java.io.IOException;
 public class AZServer {
 
     private Server server;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
 
     /**
      * Starts the gRPC server on the specified port.
@@ -47,6 +57,47 @@ public class AZServer {
         System.out.println("✅ gRPC Server started on port " + port);
     }
 
+    /**
+     * Starts the gRPC server on a Unix domain socket, for clients running on the same host.
+     * Requires the native epoll transport, available on Linux.
+     *
+     * @param path The path of the socket file, which must not exist yet.
+     * @throws IOException If the server fails to start.
+     */
+    public void startUnixSocket(String path) throws IOException {
+        if (!Epoll.isAvailable()) {
+            throw new IOException("Unix domain sockets require the native epoll transport", Epoll.unavailabilityCause());
+        }
+        bossGroup = new EpollEventLoopGroup(1);
+        workerGroup = new EpollEventLoopGroup();
+        server = NettyServerBuilder.forAddress(new DomainSocketAddress(path))
+                .channelType(EpollServerDomainSocketChannel.class)
+                .bossEventLoopGroup(bossGroup)
+                .workerEventLoopGroup(workerGroup)
+                // Keep-alive is a TCP option, unknown to domain sockets.
+                .withChildOption(ChannelOption.SO_KEEPALIVE, null)
+                .addService(new V1PDPServiceImpl())
+                .build()
+                .start();
+
+        System.out.println("✅ gRPC Server started on unix:" + path);
+    }
+
+    /**
+     * Starts the gRPC server in process, for clients running in the same JVM.
+     *
+     * @param name The name of the server, used by the clients to connect.
+     * @throws IOException If the server fails to start.
+     */
+    public void startInProcess(String name) throws IOException {
+        server = InProcessServerBuilder.forName(name)
+                .addService(new V1PDPServiceImpl())
+                .build()
+                .start();
+
+        System.out.println("✅ gRPC Server started in process as " + name);
+    }
+
     /**
      * Stops the gRPC server.
      */
@@ -55,6 +106,12 @@ public class AZServer {
             server.shutdown();
             System.out.println("⛔ gRPC Server stopped.");
         }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully();
+            workerGroup.shutdownGracefully();
+            bossGroup = null;
+            workerGroup = null;
+        }
     }
 
     /**
@@ -74,15 +131,49 @@ public class AZServer {
         @Override
         public void authorizationCheck(AuthorizationCheck.AuthorizationCheckRequest request,
                                        io.grpc.stub.StreamObserver<AuthorizationCheck.AuthorizationCheckResponse> responseObserver) {
+            responseObserver.onNext(check(request));
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public io.grpc.stub.StreamObserver<AuthorizationCheck.AuthorizationCheckRequest> authorizationCheckStream(
+                io.grpc.stub.StreamObserver<AuthorizationCheck.AuthorizationCheckResponse> responseObserver) {
+            return new io.grpc.stub.StreamObserver<>() {
+                @Override
+                public void onNext(AuthorizationCheck.AuthorizationCheckRequest request) {
+                    responseObserver.onNext(check(request));
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    // The client cancelled the stream, there is nobody left to answer.
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+
+        private static AuthorizationCheck.AuthorizationCheckResponse check(AuthorizationCheck.AuthorizationCheckRequest request) {
             boolean decision = request.getRequestID().hashCode() % 2 == 0; // Mock decision logic
 
-            AuthorizationCheck.AuthorizationCheckResponse response = AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+            AuthorizationCheck.AuthorizationCheckResponse.Builder responseBuilder = AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                    .setRequestID(request.getRequestID());
+            if (request.getEvaluationsCount() > 0) {
+                decision = true;
+                for (AuthorizationCheck.EvaluationRequest evaluation : request.getEvaluationsList()) {
+                    boolean evaluationDecision = evaluation.getRequestID().hashCode() % 2 == 0; // Mock decision logic
+                    responseBuilder.addEvaluations(AuthorizationCheck.EvaluationResponse.newBuilder()
+                            .setDecision(evaluationDecision)
+                            .setRequestID(evaluation.getRequestID()));
+                    decision &= evaluationDecision;
+                }
+            }
+            return responseBuilder
                     .setDecision(decision)
-                    .setRequestID(request.getRequestID())
                     .build();
-
-            responseObserver.onNext(response);
-            responseObserver.onCompleted();
         }
     }
 }
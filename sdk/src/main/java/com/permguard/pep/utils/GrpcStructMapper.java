@@ -18,11 +18,17 @@
 
 package com.permguard.pep.utils;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.NullValue;
 import com.google.protobuf.Struct;
-import com.google.protobuf.util.JsonFormat;
+import com.google.protobuf.Value;
 
-import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -32,35 +38,182 @@ public class GrpcStructMapper {
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    private static final Value NULL_VALUE = Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+    private static final Value TRUE_VALUE = Value.newBuilder().setBoolValue(true).build();
+    private static final Value FALSE_VALUE = Value.newBuilder().setBoolValue(false).build();
+
     /**
      * Converts a Map<String, Object> to a Protobuf Struct.
+     * Maps, collections, arrays, strings, booleans and numbers are converted directly; any other value is
+     * serialized with Jackson, so the result is the same as the JSON representation of the map.
      *
      * @param map The Java Map to convert.
      * @return A Protobuf Struct representation of the map.
      */
     public static Struct toGrpcStruct(Map<String, Object> map) {
+        if (map == null) {
+            throw new RuntimeException("❌ Failed to convert Map to Struct",
+                    new IllegalArgumentException("Expect a map object but found: null"));
+        }
         try {
-            String json = objectMapper.writeValueAsString(map);
-            Struct.Builder structBuilder = Struct.newBuilder();
-            JsonFormat.parser().merge(json, structBuilder);
-            return structBuilder.build();
-        } catch (IOException e) {
+            return toStruct(map);
+        } catch (IllegalArgumentException e) {
             throw new RuntimeException("❌ Failed to convert Map to Struct", e);
         }
     }
 
+    /**
+     * Converts a Java object to a Protobuf Value, following the same rules as {@link #toGrpcStruct(Map)}.
+     *
+     * @param value The Java object to convert.
+     * @return A Protobuf Value representation of the object.
+     */
+    public static Value toGrpcValue(Object value) {
+        try {
+            return toValue(value);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("❌ Failed to convert Object to Value", e);
+        }
+    }
+
     /**
      * Converts a Protobuf Struct to a Java Map<String, Object>.
+     * The returned map is a read-only {@link StructMap} view that converts values only when they are read;
+     * use {@link StructMap#materialize()} to obtain a mutable copy.
      *
      * @param struct The Protobuf Struct to convert.
      * @return A Java Map representation of the Struct.
      */
     public static Map<String, Object> fromGrpcStruct(Struct struct) {
-        try {
-            String json = JsonFormat.printer().print(struct);
-            return objectMapper.readValue(json, Map.class);
-        } catch (IOException e) {
-            throw new RuntimeException("❌ Failed to convert Struct to Map", e);
+        return new StructMap(struct);
+    }
+
+    /** CONVERSION HELPERS **/
+
+    private static Struct toStruct(Map<?, ?> map) {
+        if (map instanceof PropertyMap properties) {
+            return toStruct(properties);
+        }
+        Struct.Builder builder = Struct.newBuilder();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!(entry.getKey() instanceof String key)) {
+                // Non-string keys follow Jackson's key serialization rules.
+                return fromJsonNode(objectMapper.valueToTree(map)).getStructValue();
+            }
+            builder.putFields(key, toValue(entry.getValue()));
+        }
+        return builder.build();
+    }
+
+    private static Struct toStruct(PropertyMap properties) {
+        // Walks the slots of the table directly, without iterator or entry objects.
+        Struct.Builder builder = Struct.newBuilder();
+        for (int i = 0, capacity = properties.capacity(); i < capacity; i++) {
+            String key = properties.keyAt(i);
+            if (key != null) {
+                builder.putFields(key, toValue(properties, i));
+            }
+        }
+        return builder.build();
+    }
+
+    private static Value toValue(PropertyMap properties, int index) {
+        // Unboxed values are written straight to the Value, as their boxed forms would be.
+        if (properties.isIntAt(index) || properties.isLongAt(index)) {
+            return Value.newBuilder().setNumberValue(properties.primitiveAt(index)).build();
+        }
+        if (properties.isDoubleAt(index)) {
+            return numberValue(Double.longBitsToDouble(properties.primitiveAt(index)));
+        }
+        return toValue(properties.valueAt(index));
+    }
+
+    private static Value toValue(Object value) {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+        if (value instanceof String s) {
+            return Value.newBuilder().setStringValue(s).build();
+        }
+        if (value instanceof Boolean b) {
+            return b ? TRUE_VALUE : FALSE_VALUE;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return Value.newBuilder().setNumberValue(((Number) value).longValue()).build();
+        }
+        if (value instanceof Double d) {
+            return numberValue(d);
+        }
+        if (value instanceof Float f) {
+            // Jackson writes the shortest decimal representation of the float, which is then parsed as a double.
+            return f.isNaN() || f.isInfinite() ? numberValue(f.doubleValue()) : numberValue(Double.parseDouble(f.toString()));
+        }
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            return numberValue(((Number) value).doubleValue());
+        }
+        if (value instanceof Map<?, ?> map) {
+            return Value.newBuilder().setStructValue(toStruct(map)).build();
+        }
+        if (value instanceof Collection<?> collection) {
+            ListValue.Builder list = ListValue.newBuilder();
+            for (Object item : collection) {
+                list.addValues(toValue(item));
+            }
+            return Value.newBuilder().setListValue(list).build();
+        }
+        if (value instanceof Object[] array) {
+            ListValue.Builder list = ListValue.newBuilder();
+            for (Object item : array) {
+                list.addValues(toValue(item));
+            }
+            return Value.newBuilder().setListValue(list).build();
+        }
+        return fromJsonNode(objectMapper.valueToTree(value));
+    }
+
+    private static Value numberValue(double d) {
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            // JSON has no literal for these, Jackson writes them as strings.
+            return Value.newBuilder().setStringValue(Double.toString(d)).build();
+        }
+        return Value.newBuilder().setNumberValue(d).build();
+    }
+
+    private static Value fromJsonNode(JsonNode node) {
+        switch (node.getNodeType()) {
+            case NULL:
+            case MISSING:
+                return NULL_VALUE;
+            case BOOLEAN:
+                return node.booleanValue() ? TRUE_VALUE : FALSE_VALUE;
+            case NUMBER:
+                if (node.isBigInteger()) {
+                    return numberValue(node.bigIntegerValue().doubleValue());
+                }
+                if (node.isFloat()) {
+                    return toValue(node.floatValue());
+                }
+                return numberValue(node.doubleValue());
+            case STRING:
+            case BINARY:
+                return Value.newBuilder().setStringValue(node.asText()).build();
+            case ARRAY: {
+                ListValue.Builder list = ListValue.newBuilder();
+                for (JsonNode item : node) {
+                    list.addValues(fromJsonNode(item));
+                }
+                return Value.newBuilder().setListValue(list).build();
+            }
+            case OBJECT: {
+                Struct.Builder struct = Struct.newBuilder();
+                for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> field = it.next();
+                    struct.putFields(field.getKey(), fromJsonNode(field.getValue()));
+                }
+                return Value.newBuilder().setStructValue(struct).build();
+            }
+            default:
+                return Value.newBuilder().setStringValue(node.asText()).build();
         }
     }
 }
@@ -0,0 +1,539 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact Map for the handful of properties of a subject, resource or action.
+ * Keys are kept in an open addressing table with linear probing and values in a parallel array, so there is
+ * no node per entry and small maps fit in a few slots. Keys are strings and cannot be null; values can be null.
+ * Values put with {@link #putInt(String, int)}, {@link #putLong(String, long)} and {@link #putDouble(String, double)}
+ * are kept unboxed in a third array and boxed only when they are read through the Map interface, as Integer, Long
+ * and Double.
+ * Iteration follows the table order. The map is not thread-safe.
+ */
+public final class PropertyMap extends AbstractMap<String, Object> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    // Marks the slot of a removed key, so that the probe sequences of the other keys are not broken.
+    private static final String REMOVED = new String("");
+    // Mark the slots whose value is the int, the long, or the bits of the double, in the primitives array.
+    private static final Object INT = new Object();
+    private static final Object LONG = new Object();
+    private static final Object DOUBLE = new Object();
+    private static final String[] EMPTY_KEYS = {};
+    private static final Object[] EMPTY_VALUES = {};
+
+    private String[] keys;
+    private Object[] values;
+    private long[] primitives;
+    private int size;
+    private int used;
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * Constructor for an empty map. The table is allocated with room for a few properties on the first put.
+     */
+    public PropertyMap() {
+        this.keys = EMPTY_KEYS;
+        this.values = EMPTY_VALUES;
+    }
+
+    /**
+     * Constructor for an empty map with room for the expected number of properties.
+     *
+     * @param expectedSize The number of properties the map holds without growing.
+     */
+    public PropertyMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        int capacity = expectedSize > 0 ? capacityFor(expectedSize) : 0;
+        this.keys = capacity > 0 ? new String[capacity] : EMPTY_KEYS;
+        this.values = capacity > 0 ? new Object[capacity] : EMPTY_VALUES;
+    }
+
+    /**
+     * Constructor copying the entries of a map. Unboxed values of another PropertyMap stay unboxed.
+     *
+     * @param map The map to copy.
+     */
+    public PropertyMap(Map<String, ?> map) {
+        if (map instanceof PropertyMap other) {
+            this.keys = other.keys.length > 0 ? other.keys.clone() : EMPTY_KEYS;
+            this.values = other.values.length > 0 ? other.values.clone() : EMPTY_VALUES;
+            this.primitives = other.primitives != null ? other.primitives.clone() : null;
+            this.size = other.size;
+            this.used = other.used;
+        } else {
+            int capacity = map.isEmpty() ? 0 : capacityFor(map.size());
+            this.keys = capacity > 0 ? new String[capacity] : EMPTY_KEYS;
+            this.values = capacity > 0 ? new Object[capacity] : EMPTY_VALUES;
+            putAll(map);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String s && indexOf(s) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String s)) {
+            return null;
+        }
+        int index = indexOf(s);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int index = slotOf(key);
+        Object previous = valueAt(index);
+        values[index] = value;
+        return previous;
+    }
+
+    /**
+     * Puts a boolean value. Booleans are stored as the canonical Boolean instances, so no object is allocated.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     */
+    public void putBoolean(String key, boolean value) {
+        int index = slotOf(key);
+        values[index] = value ? Boolean.TRUE : Boolean.FALSE;
+    }
+
+    /**
+     * Puts an int value without boxing it. It is read back as an Integer.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     */
+    public void putInt(String key, int value) {
+        int index = slotOf(key);
+        primitives()[index] = value;
+        values[index] = INT;
+    }
+
+    /**
+     * Puts a long value without boxing it.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     */
+    public void putLong(String key, long value) {
+        int index = slotOf(key);
+        primitives()[index] = value;
+        values[index] = LONG;
+    }
+
+    /**
+     * Puts a double value without boxing it.
+     *
+     * @param key   The property key.
+     * @param value The property value.
+     */
+    public void putDouble(String key, double value) {
+        int index = slotOf(key);
+        primitives()[index] = Double.doubleToRawLongBits(value);
+        values[index] = DOUBLE;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (!(key instanceof String s)) {
+            return null;
+        }
+        int index = indexOf(s);
+        if (index < 0) {
+            return null;
+        }
+        Object previous = valueAt(index);
+        removeAt(index);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (used > 0) {
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+            size = 0;
+            used = 0;
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        String[] ks = keys;
+        for (int i = 0; i < ks.length; i++) {
+            String k = ks[i];
+            if (k != null && k != REMOVED) {
+                action.accept(k, valueAt(i));
+            }
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < keys.length; i++) {
+            String k = keys[i];
+            if (k != null && k != REMOVED) {
+                Object v = values[i];
+                int valueHash = v == INT ? Integer.hashCode((int) primitives[i])
+                        : v == LONG ? Long.hashCode(primitives[i])
+                        : v == DOUBLE ? Double.hashCode(Double.longBitsToDouble(primitives[i]))
+                        : Objects.hashCode(v);
+                h += k.hashCode() ^ valueHash;
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    PropertyMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Gets the number of slots of the table, for iterating with {@link #keyAt(int)} and {@link #valueAt(int)}.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the key in a slot of the table.
+     *
+     * @param index The slot, between 0 and {@link #capacity()}.
+     * @return The key, or null if the slot is empty.
+     */
+    String keyAt(int index) {
+        String k = keys[index];
+        return k != REMOVED ? k : null;
+    }
+
+    /**
+     * Gets the value in a slot of the table, boxing an unboxed value.
+     *
+     * @param index The slot, between 0 and {@link #capacity()}.
+     * @return The value, or null if the slot is empty.
+     */
+    Object valueAt(int index) {
+        Object v = values[index];
+        if (v == INT) {
+            return (int) primitives[index];
+        }
+        if (v == LONG) {
+            return primitives[index];
+        }
+        if (v == DOUBLE) {
+            return Double.longBitsToDouble(primitives[index]);
+        }
+        return v;
+    }
+
+    /**
+     * Checks whether a slot of the table holds an unboxed int, to be read with {@link #primitiveAt(int)}.
+     */
+    boolean isIntAt(int index) {
+        return values[index] == INT;
+    }
+
+    /**
+     * Checks whether a slot of the table holds an unboxed long, to be read with {@link #primitiveAt(int)}.
+     */
+    boolean isLongAt(int index) {
+        return values[index] == LONG;
+    }
+
+    /**
+     * Checks whether a slot of the table holds an unboxed double, to be read with {@link #primitiveAt(int)}.
+     */
+    boolean isDoubleAt(int index) {
+        return values[index] == DOUBLE;
+    }
+
+    /**
+     * Gets the unboxed value in a slot of the table: the int or long, or the bits of the double.
+     */
+    long primitiveAt(int index) {
+        return primitives[index];
+    }
+
+    /** TABLE HELPERS **/
+
+    private int indexOf(String key) {
+        if (size == 0) {
+            return -1;
+        }
+        String[] ks = keys;
+        int mask = ks.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            String k = ks[i];
+            if (k == null) {
+                return -1;
+            }
+            if (k != REMOVED && k.equals(key)) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Finds the slot of a key, adding the key with a null value if it is not in the map.
+     */
+    private int slotOf(String key) {
+        Objects.requireNonNull(key, "key");
+        if (keys.length == 0) {
+            keys = new String[DEFAULT_CAPACITY];
+            values = new Object[DEFAULT_CAPACITY];
+        }
+        int mask = keys.length - 1;
+        int free = -1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            String k = keys[i];
+            if (k == null) {
+                break;
+            }
+            if (k == REMOVED) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (k.equals(key)) {
+                return i;
+            }
+        }
+        size++;
+        if (free >= 0) {
+            keys[free] = key;
+            return free;
+        }
+        if (used + 1 > threshold(keys.length)) {
+            // Leaves room for as many entries again, so that a growing map is rehashed only a few times.
+            rehash(capacityFor(2 * size));
+        }
+        used++;
+        int index = freeSlot(key);
+        keys[index] = key;
+        return index;
+    }
+
+    private int freeSlot(String key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private long[] primitives() {
+        if (primitives == null) {
+            primitives = new long[keys.length];
+        }
+        return primitives;
+    }
+
+    private void removeAt(int index) {
+        keys[index] = REMOVED;
+        values[index] = null;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        Object[] oldValues = values;
+        long[] oldPrimitives = primitives;
+        keys = new String[capacity];
+        values = new Object[capacity];
+        primitives = oldPrimitives != null ? new long[capacity] : null;
+        used = size - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            String k = oldKeys[i];
+            if (k != null && k != REMOVED) {
+                int index = freeSlot(k);
+                keys[index] = k;
+                values[index] = oldValues[i];
+                if (oldPrimitives != null) {
+                    primitives[index] = oldPrimitives[i];
+                }
+            }
+        }
+    }
+
+    private static int hash(String key) {
+        // Keys such as "property1", "property2" have consecutive hash codes, which would form long clusters
+        // with linear probing; multiplying by the golden ratio spreads them over the table.
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Keeps the table at most three quarters full, so that probe sequences stay short.
+    private static int threshold(int capacity) {
+        return capacity - (capacity >>> 2);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (threshold(capacity) < expectedSize) {
+            if (capacity == MAXIMUM_CAPACITY) {
+                throw new IllegalStateException("Property map too large");
+            }
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Iterator over the slots of the table, returning entries that write through to the map.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private final String[] table = keys;
+        private int next = advance(0);
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < table.length;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (next >= table.length) {
+                throw new NoSuchElementException();
+            }
+            if (table != keys) {
+                throw new ConcurrentModificationException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return new Entry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (table != keys) {
+                throw new ConcurrentModificationException();
+            }
+            if (table[last] != REMOVED) {
+                removeAt(last);
+            }
+            last = -1;
+        }
+
+        private int advance(int from) {
+            int i = from;
+            while (i < table.length && (table[i] == null || table[i] == REMOVED)) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+    /**
+     * Entry for a slot of the table.
+     */
+    private final class Entry implements Map.Entry<String, Object> {
+        private final int index;
+        private final String key;
+
+        Entry(int index) {
+            this.index = index;
+            this.key = keys[index];
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return keys[index] == key ? valueAt(index) : PropertyMap.this.get(key);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return keys[index] == key ? swap(value) : PropertyMap.this.put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e && key.equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+
+        private Object swap(Object value) {
+            Object previous = valueAt(index);
+            values[index] = value;
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.utils;
+
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Read-only Map view over a Protobuf Struct.
+ * Values are converted only when they are accessed: numbers become Double, nested structs become
+ * StructMap views and lists become read-only List views.
+ */
+public final class StructMap extends AbstractMap<String, Object> {
+
+    private final Struct struct;
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * Constructor wrapping a Struct.
+     *
+     * @param struct The Protobuf Struct to wrap.
+     */
+    public StructMap(Struct struct) {
+        this.struct = Objects.requireNonNull(struct, "struct");
+    }
+
+    /**
+     * Gets the wrapped Struct.
+     *
+     * @return The Protobuf Struct.
+     */
+    public Struct getStruct() {
+        return struct;
+    }
+
+    /**
+     * Creates a mutable deep copy of this view, with nested structs as LinkedHashMap and lists as ArrayList.
+     *
+     * @return A mutable Java Map representation of the Struct.
+     */
+    public Map<String, Object> materialize() {
+        return materialize(struct);
+    }
+
+    @Override
+    public int size() {
+        return struct.getFieldsCount();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String s && struct.containsFields(s);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String s)) {
+            return null;
+        }
+        Value value = struct.getFieldsMap().get(s);
+        return value != null ? toObject(value) : null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    Iterator<Map.Entry<String, Value>> fields = struct.getFieldsMap().entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return fields.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            Map.Entry<String, Value> field = fields.next();
+                            return new AbstractMap.SimpleImmutableEntry<>(field.getKey(), toObject(field.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return struct.getFieldsCount();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /** CONVERSION HELPERS **/
+
+    private static Object toObject(Value value) {
+        switch (value.getKindCase()) {
+            case BOOL_VALUE:
+                return value.getBoolValue();
+            case NUMBER_VALUE:
+                return value.getNumberValue();
+            case STRING_VALUE:
+                return value.getStringValue();
+            case STRUCT_VALUE:
+                return new StructMap(value.getStructValue());
+            case LIST_VALUE:
+                return new ListValueList(value.getListValue());
+            default:
+                return null;
+        }
+    }
+
+    private static Map<String, Object> materialize(Struct struct) {
+        Map<String, Object> map = new LinkedHashMap<>(Math.max(16, (int) (struct.getFieldsCount() / 0.75f) + 1));
+        for (Map.Entry<String, Value> field : struct.getFieldsMap().entrySet()) {
+            map.put(field.getKey(), materialize(field.getValue()));
+        }
+        return map;
+    }
+
+    private static Object materialize(Value value) {
+        switch (value.getKindCase()) {
+            case STRUCT_VALUE:
+                return materialize(value.getStructValue());
+            case LIST_VALUE: {
+                List<Object> list = new ArrayList<>(value.getListValue().getValuesCount());
+                for (Value item : value.getListValue().getValuesList()) {
+                    list.add(materialize(item));
+                }
+                return list;
+            }
+            default:
+                return toObject(value);
+        }
+    }
+
+    /**
+     * Read-only List view over a Protobuf ListValue.
+     */
+    private static final class ListValueList extends AbstractList<Object> {
+        private final ListValue listValue;
+
+        ListValueList(ListValue listValue) {
+            this.listValue = listValue;
+        }
+
+        @Override
+        public Object get(int index) {
+            return toObject(listValue.getValues(index));
+        }
+
+        @Override
+        public int size() {
+            return listValue.getValuesCount();
+        }
+    }
+}
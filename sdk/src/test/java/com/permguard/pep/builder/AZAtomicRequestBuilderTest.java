@@ -0,0 +1,170 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.builder;
+
+import com.permguard.pep.model.request.AZRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the typed property overloads and of the reuse of the atomic request builder.
+ */
+class AZAtomicRequestBuilderTest {
+
+    @Test
+    void propertiesKeepTheTypeOfTheirArgument() {
+        int count = 3;
+        short level = 2;
+        AZRequest request = builder()
+                .withSubjectProperty("count", count)
+                .withSubjectProperty("level", level)
+                .withSubjectProperty("size", 3L)
+                .withSubjectProperty("ratio", 0.5)
+                .withSubjectProperty("weight", 0.25f)
+                .withSubjectProperty("grade", 'A')
+                .withSubjectProperty("active", true)
+                .build();
+
+        Map<String, Object> properties = request.getSubject().getProperties();
+        assertEquals(3, (Integer) properties.get("count"));
+        assertInstanceOf(Integer.class, properties.get("level"));
+        assertEquals(3L, (Long) properties.get("size"));
+        assertEquals(0.5, (Double) properties.get("ratio"));
+        assertEquals(0.25f, (Float) properties.get("weight"));
+        assertEquals('A', (Character) properties.get("grade"));
+        assertEquals(true, properties.get("active"));
+    }
+
+    @Test
+    void eachTargetGetsItsOwnProperties() {
+        AZRequest request = builder()
+                .withSubjectProperty("key", 1)
+                .withResourceProperty("key", 2)
+                .withActionProperty("key", 3)
+                .withContextProperty("key", 4)
+                .build();
+
+        assertEquals(1, request.getSubject().getProperties().get("key"));
+        assertEquals(2, request.getResource().getProperties().get("key"));
+        assertEquals(3, request.getAction().getProperties().get("key"));
+        assertEquals(4, request.getContext().get("key"));
+    }
+
+    @Test
+    void changesAfterABuildDoNotAffectEarlierRequests() {
+        AZAtomicRequestBuilder builder = builder().withResourceProperty("key", 1);
+        AZRequest first = builder.build();
+        AZRequest second = builder.withResourceProperty("key", 2).withContextProperty("time", 5).build();
+        AZRequest third = builder.reset().build();
+
+        assertEquals(1, first.getResource().getProperties().get("key"));
+        assertTrue(first.getContext().isEmpty());
+        assertEquals(2, second.getResource().getProperties().get("key"));
+        assertEquals(5, second.getContext().get("time"));
+        assertTrue(third.getResource().getProperties().isEmpty());
+    }
+
+    @Test
+    void consecutiveBuildsAreIndependent() {
+        AZAtomicRequestBuilder builder = builder().withSubjectProperty("key", 1).withContextProperty("time", 5);
+        AZRequest first = builder.build();
+        AZRequest second = builder.build();
+
+        assertNotSame(first, second);
+        assertNotSame(first.getSubject(), second.getSubject());
+        assertNotSame(first.getSubject().getProperties(), second.getSubject().getProperties());
+        assertNotSame(first.getContext(), second.getContext());
+        AZRequest third = builder.withSubjectProperty("other", 3).build();
+
+        assertEquals(Map.of("key", 1), first.getSubject().getProperties());
+        assertEquals(Map.of("key", 1), second.getSubject().getProperties());
+        assertEquals(Map.of("key", 1, "other", 3), third.getSubject().getProperties());
+        assertEquals(5, third.getContext().get("time"));
+    }
+
+    @Test
+    void builtRequestsKeepMutableMaps() {
+        AZAtomicRequestBuilder builder = builder().withSubjectProperty("key", 1);
+        AZRequest first = builder.build();
+        first.getSubject().getProperties().put("key", 2);
+        first.getContext().put("time", 5);
+        AZRequest second = builder.reset().withSubjectProperty("key", 3).build();
+        second.getResource().getProperties().remove("missing");
+
+        assertEquals(Map.of("key", 2), first.getSubject().getProperties());
+        assertEquals(Map.of("time", 5), first.getContext());
+        assertEquals(Map.of("key", 3), second.getSubject().getProperties());
+        assertTrue(second.getContext().isEmpty());
+    }
+
+    @Test
+    void resetKeepsTheSubjectResourceTypeAndAction() {
+        AZAtomicRequestBuilder builder = builder()
+                .withRequestId("1234")
+                .withSubjectType("user")
+                .withSubjectSource("keycloak")
+                .withSubjectProperty("key", 1)
+                .withResourceId("subscription")
+                .withActionProperty("key", 2);
+        builder.build();
+        AZRequest request = builder.reset().build();
+
+        assertNull(request.getRequestId());
+        assertEquals("amy", request.getSubject().getId());
+        assertEquals("role-actor", request.getSubject().getType());
+        assertNull(request.getSubject().getSource());
+        assertTrue(request.getSubject().getProperties().isEmpty());
+        assertEquals("Platform::Subscription", request.getResource().getType());
+        assertNull(request.getResource().getId());
+        assertEquals("Platform::Action::create", request.getAction().getName());
+        assertTrue(request.getAction().getProperties().isEmpty());
+        assertEquals(1L, request.getAuthorizationModel().getZoneId());
+        assertEquals("store", request.getAuthorizationModel().getPolicyStore().getId());
+    }
+
+    @Test
+    void resetWithArgumentsReplacesTheSubjectResourceTypeAndAction() {
+        AZAtomicRequestBuilder builder = builder().withResourceId("subscription").withContextProperty("time", 5);
+        AZRequest first = builder.build();
+        AZRequest second = builder.reset("bob", "Platform::Invoice", "Platform::Action::view")
+                .withResourceProperty("key", 1)
+                .build();
+
+        assertEquals("bob", second.getSubject().getId());
+        assertEquals("Platform::Invoice", second.getResource().getType());
+        assertNull(second.getResource().getId());
+        assertEquals("Platform::Action::view", second.getAction().getName());
+        assertEquals(Map.of("key", 1), second.getResource().getProperties());
+        assertTrue(second.getContext().isEmpty());
+        assertEquals("amy", first.getSubject().getId());
+        assertEquals("subscription", first.getResource().getId());
+        assertEquals(5, first.getContext().get("time"));
+    }
+
+    private static AZAtomicRequestBuilder builder() {
+        return new AZAtomicRequestBuilder(1L, "store", "amy", "Platform::Subscription", "Platform::Action::create");
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.request.AZInterner;
+import com.permguard.pep.model.request.AZModel;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.request.Action;
+import com.permguard.pep.model.request.Entities;
+import com.permguard.pep.model.request.ImmutableAction;
+import com.permguard.pep.model.request.ImmutableResource;
+import com.permguard.pep.model.request.ImmutableSubject;
+import com.permguard.pep.model.request.PolicyStore;
+import com.permguard.pep.model.request.Principal;
+import com.permguard.pep.model.request.Resource;
+import com.permguard.pep.model.request.Subject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the requests created from a template.
+ */
+class AZRequestTemplateTest {
+
+    private final Mapper mapper = new Mapper();
+
+    @Test
+    void requestsOfTheTemplateMapLikeEquivalentRequests() {
+        AZModel model = model();
+        AZRequestTemplate template = AZRequestTemplate.of(model);
+
+        AZRequest templated = template.newRequest(subject(), resource(), action(), Map.of("time", "now"));
+        AZRequest plain = new AZRequest(null, model(), subject(), resource(), action(), Map.of("time", "now"), null);
+        assertEquals(mapper.mapAuthorizationCheckRequest(plain), mapper.mapAuthorizationCheckRequest(templated));
+    }
+
+    @Test
+    void laterChangesToTheModelDoNotAffectTheTemplate() {
+        AZModel model = model();
+        AZRequestTemplate template = AZRequestTemplate.of(model);
+
+        model.setZoneId(2L);
+        model.getPolicyStore().setId("other");
+        model.getPrincipal().setId("bob");
+        model.getEntities().getItems().get(0).put("attrs", Map.of("name", "changed"));
+
+        AZRequest request = template.newRequest(subject(), resource(), action(), null);
+        AuthorizationCheck.AuthorizationModelRequest mapped = mapper.mapAuthorizationCheckRequest(request).getAuthorizationModel();
+        assertEquals(1L, mapped.getZoneID());
+        assertEquals("store", mapped.getPolicyStore().getID());
+        assertEquals("amy", mapped.getPrincipal().getID());
+        assertEquals("amy", mapped.getEntities().getItems(0).getFieldsOrThrow("attrs").getStructValue()
+                .getFieldsOrThrow("name").getStringValue());
+        assertEquals(1L, template.getAuthorizationModel().getZoneId());
+    }
+
+    @Test
+    void changesToTheModelOfARequestDoNotAffectIt() {
+        AZRequestTemplate template = AZRequestTemplate.of(model());
+        AZRequest request = template.newRequest(subject(), resource(), action(), null);
+        request.getAuthorizationModel().setZoneId(2L);
+        request.getAuthorizationModel().getPrincipal().setId("bob");
+
+        AuthorizationCheck.AuthorizationModelRequest mapped = mapper.mapAuthorizationCheckRequest(request).getAuthorizationModel();
+        assertEquals(1L, mapped.getZoneID());
+        assertEquals("amy", mapped.getPrincipal().getID());
+        assertEquals(1L, request.getAuthorizationModel().getZoneId());
+    }
+
+    @Test
+    void replacedModelIsMapped() {
+        AZRequestTemplate template = AZRequestTemplate.of(model());
+        AZRequest request = template.newRequest(subject(), resource(), action(), null);
+        AZModel other = model();
+        other.setZoneId(3L);
+        request.setAuthorizationModel(other);
+        assertEquals(3L, mapper.mapAuthorizationCheckRequest(request).getAuthorizationModel().getZoneID());
+    }
+
+    @Test
+    void internedValuesAreConvertedOnceAcrossRequests() {
+        AZInterner interner = new AZInterner();
+        AZRequestTemplate template = AZRequestTemplate.of(model());
+        ImmutableSubject subject = interner.intern(subject());
+        ImmutableResource resource = interner.intern(resource());
+        ImmutableAction action = interner.intern(action());
+
+        AuthorizationCheck.AuthorizationCheckRequest first = mapper.mapAuthorizationCheckRequest(
+                template.newRequest(subject, resource, action, Map.of("time", "now")));
+        AuthorizationCheck.AuthorizationCheckRequest second = mapper.mapAuthorizationCheckRequest(
+                template.newRequest(interner.intern(subject()), interner.intern(resource()), action, null));
+
+        AZRequest plain = new AZRequest(null, model(), subject(), resource(), action(), Map.of("time", "now"), null);
+        assertEquals(mapper.mapAuthorizationCheckRequest(plain), first);
+        assertSame(first.getSubject(), second.getSubject());
+        assertSame(first.getResource(), second.getResource());
+        assertSame(first.getAction(), second.getAction());
+    }
+
+    @Test
+    void immutableValuesOfARequestCanBeReadAndReplaced() {
+        AZRequestTemplate template = AZRequestTemplate.of(model());
+        AZRequest request = template.newRequest(ImmutableSubject.copyOf(subject()), ImmutableResource.copyOf(resource()),
+                ImmutableAction.copyOf(action()), null);
+        assertEquals("amy", request.getSubject().getId());
+        request.getSubject().setId("bob");
+        assertEquals("amy", mapper.mapAuthorizationCheckRequest(request).getSubject().getID());
+
+        Subject other = subject();
+        other.setId("bob");
+        request.setSubject(other);
+        assertSame(other, request.getSubject());
+        assertEquals("bob", mapper.mapAuthorizationCheckRequest(request).getSubject().getID());
+        assertEquals("subscription", mapper.mapAuthorizationCheckRequest(request).getResource().getID());
+    }
+
+    @Test
+    void nullModelIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> AZRequestTemplate.of(null));
+    }
+
+    private static AZModel model() {
+        Map<String, Object> uid = new HashMap<>(Map.of("type", "Platform::User", "id", "amy"));
+        Map<String, Object> item = new HashMap<>();
+        item.put("uid", uid);
+        item.put("attrs", new HashMap<>(Map.of("name", "amy")));
+        item.put("parents", new ArrayList<>());
+        List<Map<String, Object>> items = new ArrayList<>(List.of(item));
+        return new AZModel(1L, new PolicyStore("ledger", "store"), new Principal("user", "amy", "keycloak", null, null),
+                new Entities("cedar", items));
+    }
+
+    private static Subject subject() {
+        return new Subject("user", "amy", "keycloak", Map.of("role", "admin"));
+    }
+
+    private static Resource resource() {
+        return new Resource("Platform::Subscription", "subscription", Map.of());
+    }
+
+    private static Action action() {
+        return new Action("Platform::Action::create", Map.of());
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.exception.AuthorizationException;
+import com.permguard.pep.exception.AuthorizationLimitExceededException;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.response.AZResponse;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the stream sessions of the client, against an in-process PDP.
+ */
+class AZStreamSessionTest {
+
+    private final List<TestPdp> pdps = new ArrayList<>();
+    private AZClient client;
+    private TestPdp pdp;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = new AZClient(TestPdp.config(pdps, 1));
+        pdp = pdps.get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        pdps.forEach(TestPdp::stop);
+    }
+
+    @Test
+    void checksGetTheirResponsesWithTheirRequestIds() throws Exception {
+        try (AZStreamSession session = client.openStream()) {
+            List<CompletableFuture<AZResponse>> futures = checks(session, 20);
+            for (int i = 0; i < futures.size(); i++) {
+                AZResponse response = futures.get(i).get(5, TimeUnit.SECONDS);
+                assertTrue(response.isDecision());
+                assertEquals("r" + i, response.getRequestId());
+            }
+            assertEquals(0, session.getPendingChecks());
+        }
+        assertEquals(20, pdp.calls());
+    }
+
+    @Test
+    void pendingChecksFailWhenTheStreamFails() throws Exception {
+        pdp.hold();
+        AZStreamSession session = client.openStream();
+        List<CompletableFuture<AZResponse>> futures = checks(session, 3);
+        TestPdp.awaitCalls(pdps, 3);
+        assertEquals(3, session.getPendingChecks());
+
+        pdp.endStreams(Status.UNAVAILABLE);
+        assertAllFail(futures);
+        assertEquals(0, session.getPendingChecks());
+        assertAllFail(checks(session, 1));
+        session.close();
+    }
+
+    @Test
+    void pendingChecksFailWhenThePdpCompletesTheStream() throws Exception {
+        pdp.hold();
+        AZStreamSession session = client.openStream();
+        List<CompletableFuture<AZResponse>> futures = checks(session, 3);
+        TestPdp.awaitCalls(pdps, 3);
+
+        pdp.endStreams(null);
+        assertAllFail(futures);
+        assertEquals(0, session.getPendingChecks());
+        assertAllFail(checks(session, 1));
+        session.close();
+    }
+
+    @Test
+    void closedSessionStillAnswersSentChecksButRejectsNewOnes() throws Exception {
+        pdp.hold();
+        AZStreamSession session = client.openStream();
+        List<CompletableFuture<AZResponse>> futures = checks(session, 2);
+        TestPdp.awaitCalls(pdps, 2);
+
+        session.close();
+        assertAllFail(checks(session, 1));
+        pdp.release();
+        for (CompletableFuture<AZResponse> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isDecision());
+        }
+    }
+
+    @Test
+    void outstandingChecksAreBounded() throws Exception {
+        client.shutdown();
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setStreamMaxPendingChecks(2);
+        client = new AZClient(config);
+        pdp = pdps.get(1);
+        pdp.hold();
+        try (AZStreamSession session = client.openStream()) {
+            List<CompletableFuture<AZResponse>> futures = checks(session, 2);
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> session.check(TestPdp.request("over")).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(AuthorizationLimitExceededException.class, error.getCause());
+
+            pdp.release();
+            for (CompletableFuture<AZResponse> future : futures) {
+                assertTrue(future.get(5, TimeUnit.SECONDS).isDecision());
+            }
+            assertTrue(session.check(TestPdp.request("next")).get(5, TimeUnit.SECONDS).isDecision());
+        }
+    }
+
+    @Test
+    void checksWaitUntilTheStreamIsReady() {
+        FakeRequests requests = new FakeRequests();
+        AZStreamSession session = new AZStreamSession(new Mapper(), Runnable::run, 10, requests::open);
+        requests.ready = false;
+
+        CompletableFuture<AZResponse> first = session.check(TestPdp.request("a"));
+        CompletableFuture<AZResponse> second = session.check(TestPdp.request("b"));
+        assertTrue(requests.sent.isEmpty());
+        assertEquals(2, session.getPendingChecks());
+
+        // Closing does not half-close the stream before the waiting checks are sent.
+        session.close();
+        assertFalse(requests.completed);
+        requests.becomeReady();
+        assertEquals(List.of("1", "2"), requests.sent);
+        assertTrue(requests.completed);
+
+        requests.responses.get().onNext(AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                .setDecision(true).setRequestID("2").build());
+        assertEquals("b", second.join().getRequestId());
+        assertFalse(first.isDone());
+    }
+
+    @Test
+    void endOfTheResponsesCancelsTheRequestSide() {
+        FakeRequests requests = new FakeRequests();
+        AZStreamSession session = new AZStreamSession(new Mapper(), Runnable::run, 10, requests::open);
+        requests.ready = false;
+        CompletableFuture<AZResponse> waiting = session.check(TestPdp.request("a"));
+
+        requests.responses.get().onCompleted();
+        assertTrue(waiting.isCompletedExceptionally());
+        assertTrue(requests.cancelled);
+        requests.becomeReady();
+        assertTrue(requests.sent.isEmpty());
+        assertFalse(requests.completed);
+    }
+
+    private static List<CompletableFuture<AZResponse>> checks(AZStreamSession session, int count) {
+        List<CompletableFuture<AZResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(session.check(TestPdp.request("r" + i)));
+        }
+        return futures;
+    }
+
+    private static void assertAllFail(List<CompletableFuture<AZResponse>> futures) {
+        for (CompletableFuture<AZResponse> future : futures) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(AuthorizationException.class, error.getCause());
+        }
+    }
+
+    /**
+     * The request side of a stream whose readiness is controlled by the test.
+     */
+    private static final class FakeRequests extends ClientCallStreamObserver<AuthorizationCheck.AuthorizationCheckRequest> {
+        private final AtomicReference<StreamObserver<AuthorizationCheck.AuthorizationCheckResponse>> responses = new AtomicReference<>();
+        private final List<String> sent = new ArrayList<>();
+        private volatile boolean ready = true;
+        private Runnable onReadyHandler;
+        private boolean completed;
+        private boolean cancelled;
+
+        @SuppressWarnings("unchecked")
+        StreamObserver<AuthorizationCheck.AuthorizationCheckRequest> open(
+                StreamObserver<AuthorizationCheck.AuthorizationCheckResponse> responseObserver) {
+            responses.set(responseObserver);
+            ((ClientResponseObserver<AuthorizationCheck.AuthorizationCheckRequest, AuthorizationCheck.AuthorizationCheckResponse>)
+                    responseObserver).beforeStart(this);
+            return this;
+        }
+
+        void becomeReady() {
+            ready = true;
+            onReadyHandler.run();
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            this.onReadyHandler = onReadyHandler;
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+            cancelled = true;
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public void onNext(AuthorizationCheck.AuthorizationCheckRequest request) {
+            sent.add(request.getRequestID());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            cancelled = true;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+    }
+}
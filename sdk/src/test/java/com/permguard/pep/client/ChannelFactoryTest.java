@@ -0,0 +1,77 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the lifecycle of the event loop groups of the channel factories.
+ */
+class ChannelFactoryTest {
+
+    @Test
+    void sharedGroupIsShutDownOnlyWithItsLastFactory() {
+        AZConfig config = new AZConfig();
+        config.setSharedEventLoopEnabled(true);
+        config.setNativeTransportEnabled(false);
+        config.setEventLoopThreads(1);
+        ChannelFactory first = new ChannelFactory(config, null);
+        ChannelFactory second = new ChannelFactory(config, null);
+        EventLoopGroup group = first.eventLoopGroup(false);
+        assertSame(group, second.eventLoopGroup(false));
+
+        first.shutdown();
+        first.shutdown();
+        assertFalse(group.isShuttingDown());
+
+        second.shutdown();
+        assertTrue(group.isShuttingDown());
+
+        ChannelFactory third = new ChannelFactory(config, null);
+        EventLoopGroup next = third.eventLoopGroup(false);
+        assertNotSame(group, next);
+        assertFalse(next.isShuttingDown());
+        third.shutdown();
+        assertTrue(next.isShuttingDown());
+    }
+
+    @Test
+    void ownGroupIsShutDownWithItsFactory() {
+        AZConfig config = new AZConfig();
+        config.setNativeTransportEnabled(false);
+        config.setEventLoopThreads(1);
+        ChannelFactory first = new ChannelFactory(config, null);
+        ChannelFactory second = new ChannelFactory(config, null);
+        EventLoopGroup group = first.eventLoopGroup(false);
+        EventLoopGroup other = second.eventLoopGroup(false);
+        assertNotSame(group, other);
+
+        first.shutdown();
+        assertTrue(group.isShuttingDown());
+        assertFalse(other.isShuttingDown());
+        second.shutdown();
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.model.response.AZResponse;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the selection of the least loaded channel of an endpoint, and of the release of the channel
+ * when a call completes or fails.
+ */
+class ChannelPoolTest {
+
+    private final List<TestPdp> pdps = new ArrayList<>();
+    private AZClient client;
+    private ChannelPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pdps.forEach(TestPdp::stop);
+    }
+
+    @Test
+    void callsAvoidTheChannelHoldingOpenCalls() {
+        pool = pool(2);
+        int busy = pool.acquire();
+        for (int i = 0; i < 10; i++) {
+            int index = pool.acquire();
+            assertNotEquals(busy, index);
+            pool.release(index);
+        }
+        pool.release(busy);
+        assertEquals(0, pool.inFlight());
+    }
+
+    @Test
+    void tiesAreBrokenInRoundRobinOrder() {
+        pool = pool(3);
+        int[] counts = new int[3];
+        for (int i = 0; i < 30; i++) {
+            int index = pool.acquire();
+            counts[index]++;
+            pool.release(index);
+        }
+        assertArrayEquals(new int[] {10, 10, 10}, counts);
+    }
+
+    @Test
+    void nextCallGoesToAnotherChannelWhileCallsAreHeld() throws Exception {
+        start(3);
+        TestPdp pdp = pdps.get(0);
+        pdp.hold();
+
+        List<CompletableFuture<AZResponse>> futures = new ArrayList<>();
+        futures.add(client.checkAsync(TestPdp.request("a")));
+        TestPdp.awaitCalls(pdps, 1);
+        assertArrayEquals(new int[] {0, 0, 1}, sorted(channels()));
+        futures.add(client.checkAsync(TestPdp.request("b")));
+        TestPdp.awaitCalls(pdps, 2);
+        assertArrayEquals(new int[] {0, 1, 1}, sorted(channels()));
+        futures.add(client.checkAsync(TestPdp.request("c")));
+        TestPdp.awaitCalls(pdps, 3);
+        assertArrayEquals(new int[] {1, 1, 1}, sorted(channels()));
+
+        pdp.release();
+        for (CompletableFuture<AZResponse> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isDecision());
+        }
+        awaitIdle();
+    }
+
+    @Test
+    void failedCallsReleaseTheirChannel() throws Exception {
+        start(2);
+        TestPdp pdp = pdps.get(0);
+        pdp.hold();
+        pdp.failWith(Status.PERMISSION_DENIED);
+
+        CompletableFuture<AZResponse> first = client.checkAsync(TestPdp.request("a"));
+        CompletableFuture<AZResponse> second = client.checkAsync(TestPdp.request("b"));
+        TestPdp.awaitCalls(pdps, 2);
+        assertArrayEquals(new int[] {1, 1}, channels());
+
+        pdp.release();
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        awaitIdle();
+    }
+
+    private void start(int channelCount) throws Exception {
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setChannelCount(channelCount);
+        client = new AZClient(config);
+    }
+
+    private int[] channels() {
+        return client.getEndpointStats().get(0).getChannelInFlightCalls();
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Arrays.stream(channels()).sum() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertArrayEquals(new int[channels().length], channels());
+    }
+
+    private static ChannelPool pool(int size) {
+        List<ManagedChannel> channels = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            channels.add(InProcessChannelBuilder.forName("pool-" + UUID.randomUUID()).build());
+        }
+        return new ChannelPool(channels);
+    }
+
+    private static int[] sorted(int[] values) {
+        int[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,316 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.exception.AuthorizationCircuitOpenException;
+import com.permguard.pep.exception.AuthorizationException;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.response.AZResponse;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the micro-batching of single checks.
+ */
+class CheckBatcherTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<AuthorizationCheck.AuthorizationCheckRequest> sent = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> calls = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void remapsRequestIdsToEvaluationIndexesAndBack() throws Exception {
+        CheckBatcher batcher = batcher(3, TimeUnit.MINUTES.toNanos(1));
+        List<CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> futures = submit(batcher, "a", "b", "c");
+
+        assertEquals(1, sent.size());
+        AuthorizationCheck.AuthorizationCheckRequest batch = sent.get(0);
+        assertFalse(batch.hasRequestID());
+        assertEquals(model(1), batch.getAuthorizationModel());
+        assertEquals(3, batch.getEvaluationsCount());
+        for (int i = 0; i < 3; i++) {
+            AuthorizationCheck.EvaluationRequest evaluation = batch.getEvaluations(i);
+            assertEquals(Integer.toString(i), evaluation.getRequestID());
+            assertEquals("user-" + "abc".charAt(i), evaluation.getSubject().getID());
+        }
+
+        // The PDP may answer the evaluations in any order.
+        calls.get(0).complete(AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                .addEvaluations(evaluation("2", true))
+                .addEvaluations(evaluation("0", false))
+                .addEvaluations(evaluation("1", true))
+                .build());
+        assertResponse(futures.get(0), "a", false);
+        assertResponse(futures.get(1), "b", true);
+        assertResponse(futures.get(2), "c", true);
+    }
+
+    @Test
+    void missingEvaluationFailsOnlyItsCheck() throws Exception {
+        CheckBatcher batcher = batcher(3, TimeUnit.MINUTES.toNanos(1));
+        List<CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> futures = submit(batcher, "a", "b", "c");
+
+        calls.get(0).complete(AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                .addEvaluations(evaluation("0", true))
+                .addEvaluations(evaluation("2", true))
+                .addEvaluations(evaluation("7", true))
+                .addEvaluations(evaluation("b", true))
+                .build());
+        assertResponse(futures.get(0), "a", true);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> futures.get(1).get(1, TimeUnit.SECONDS));
+        assertInstanceOf(AuthorizationException.class, error.getCause());
+        assertResponse(futures.get(2), "c", true);
+    }
+
+    @Test
+    void evaluationsWithoutRequestIdsAreMatchedByPosition() throws Exception {
+        CheckBatcher batcher = batcher(3, TimeUnit.MINUTES.toNanos(1));
+        List<CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> futures = submit(batcher, "a", "b", "c");
+
+        calls.get(0).complete(AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                .addEvaluations(AuthorizationCheck.EvaluationResponse.newBuilder().setDecision(true))
+                .addEvaluations(AuthorizationCheck.EvaluationResponse.newBuilder().setDecision(false))
+                .addEvaluations(AuthorizationCheck.EvaluationResponse.newBuilder().setDecision(true))
+                .build());
+        assertResponse(futures.get(0), "a", true);
+        assertResponse(futures.get(1), "b", false);
+        assertResponse(futures.get(2), "c", true);
+    }
+
+    @Test
+    void topLevelContextIsReturnedToEveryUnansweredCheck() throws Exception {
+        CheckBatcher batcher = batcher(2, TimeUnit.MINUTES.toNanos(1));
+        List<CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> futures = submit(batcher, "a", "b");
+        AuthorizationCheck.ContextResponse context = AuthorizationCheck.ContextResponse.newBuilder()
+                .setID("error")
+                .setReasonAdmin(AuthorizationCheck.ReasonResponse.newBuilder().setCode("400").setMessage("bad request"))
+                .build();
+
+        calls.get(0).complete(AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                .setDecision(false)
+                .setContext(context)
+                .build());
+        for (int i = 0; i < futures.size(); i++) {
+            assertResponse(futures.get(i), "ab".substring(i, i + 1), false);
+            assertEquals(context, futures.get(i).get().getContext());
+        }
+    }
+
+    @Test
+    void pdpNotEchoingRequestIdsAnswersBatchedChecks() throws Exception {
+        List<TestPdp> pdps = new ArrayList<>();
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setBatchingEnabled(true);
+        config.setBatchMaxSize(3);
+        config.setBatchWindow(Duration.ofMinutes(1));
+        pdps.get(0).echoRequestIds(false);
+        AZClient client = new AZClient(config);
+        try {
+            List<CompletableFuture<AZResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                AZRequest request = TestPdp.request("r" + i);
+                if (i == 1) {
+                    request.getResource().setId(TestPdp.DENIED);
+                }
+                futures.add(client.checkAsync(request));
+            }
+            for (int i = 0; i < 3; i++) {
+                AZResponse response = futures.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals("r" + i, response.getRequestId());
+                assertEquals(i != 1, response.isDecision());
+            }
+            assertEquals(1, pdps.get(0).calls());
+        } finally {
+            client.shutdown();
+            pdps.forEach(TestPdp::stop);
+        }
+    }
+
+    @Test
+    void failureOfTheBatchFansOutToEveryCheck() {
+        CheckBatcher batcher = batcher(3, TimeUnit.MINUTES.toNanos(1));
+        List<CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> futures = submit(batcher, "a", "b", "c");
+
+        RuntimeException failure = Status.UNAVAILABLE.asRuntimeException();
+        calls.get(0).completeExceptionally(failure);
+        for (CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> future : futures) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertSame(failure, error.getCause());
+        }
+    }
+
+    @Test
+    void shortCircuitedBatchFailsItsChecks() throws Exception {
+        List<TestPdp> pdps = new ArrayList<>();
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setBatchingEnabled(true);
+        config.setBatchMaxSize(3);
+        config.setBatchWindow(Duration.ofMillis(20));
+        config.setCircuitBreakerEnabled(true);
+        config.setCircuitBreakerWindowSize(2);
+        config.setCircuitBreakerMinimumCalls(2);
+        config.setCircuitBreakerOpenDuration(Duration.ofMinutes(1));
+        pdps.get(0).failWith(Status.UNAVAILABLE);
+        AZClient client = new AZClient(config);
+        try {
+            // Checks with their own timeout are sent alone; their failures open the circuit breaker.
+            for (int i = 0; i < 2; i++) {
+                AZRequest request = TestPdp.request("r" + i);
+                assertThrows(Exception.class, () -> client.check(request, Duration.ofSeconds(5)));
+            }
+            // The batch is flushed by the window and short-circuited; its checks must not be left waiting.
+            List<CompletableFuture<AZResponse>> futures = List.of(
+                    client.checkAsync(TestPdp.request("a")), client.checkAsync(TestPdp.request("b")));
+            for (CompletableFuture<AZResponse> future : futures) {
+                ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(AuthorizationCircuitOpenException.class, error.getCause());
+            }
+        } finally {
+            client.shutdown();
+            pdps.forEach(TestPdp::stop);
+        }
+    }
+
+    @Test
+    void windowFlushesPartialBatches() throws Exception {
+        CheckBatcher batcher = batcher(10, TimeUnit.MILLISECONDS.toNanos(100));
+        CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> first = batcher.submit(request(1, "a"));
+        CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> second = batcher.submit(request(1, "b"));
+        assertTrue(sent.isEmpty());
+
+        awaitSent(1);
+        assertEquals(2, sent.get(0).getEvaluationsCount());
+        calls.get(0).complete(AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                .addEvaluations(evaluation("0", true))
+                .addEvaluations(evaluation("1", false))
+                .build());
+        assertResponse(first, "a", true);
+        assertResponse(second, "b", false);
+    }
+
+    @Test
+    void singleCheckIsSentAsItIs() throws Exception {
+        CheckBatcher batcher = batcher(10, TimeUnit.MILLISECONDS.toNanos(10));
+        AuthorizationCheck.AuthorizationCheckRequest request = request(1, "a");
+        CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> future = batcher.submit(request);
+
+        awaitSent(1);
+        assertSame(request, sent.get(0));
+        AuthorizationCheck.AuthorizationCheckResponse response = AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                .setDecision(true)
+                .setRequestID("a")
+                .build();
+        calls.get(0).complete(response);
+        assertSame(response, future.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void checksOfDifferentModelsAreNotBatchedTogether() throws Exception {
+        CheckBatcher batcher = batcher(2, TimeUnit.MILLISECONDS.toNanos(10));
+        batcher.submit(request(1, "a"));
+        batcher.submit(request(2, "b"));
+
+        awaitSent(2);
+        for (AuthorizationCheck.AuthorizationCheckRequest request : sent) {
+            assertEquals(0, request.getEvaluationsCount());
+        }
+    }
+
+    private CheckBatcher batcher(int maxBatchSize, long windowNanos) {
+        return new CheckBatcher(request -> {
+            CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> call = new CompletableFuture<>();
+            calls.add(call);
+            sent.add(request);
+            return call;
+        }, scheduler, maxBatchSize, windowNanos);
+    }
+
+    private static List<CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> submit(CheckBatcher batcher,
+                                                                                                String... requestIds) {
+        List<CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse>> futures = new ArrayList<>();
+        for (String requestId : requestIds) {
+            futures.add(batcher.submit(request(1, requestId)));
+        }
+        return futures;
+    }
+
+    private void awaitSent(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, sent.size());
+    }
+
+    private static void assertResponse(CompletableFuture<AuthorizationCheck.AuthorizationCheckResponse> future,
+                                       String requestId, boolean decision) throws Exception {
+        AuthorizationCheck.AuthorizationCheckResponse response = future.get(1, TimeUnit.SECONDS);
+        assertEquals(requestId, response.getRequestID());
+        assertEquals(decision, response.getDecision());
+    }
+
+    private static AuthorizationCheck.AuthorizationModelRequest model(long zoneId) {
+        return AuthorizationCheck.AuthorizationModelRequest.newBuilder()
+                .setZoneID(zoneId)
+                .setPolicyStore(AuthorizationCheck.PolicyStore.newBuilder().setKind("ledger").setID("store"))
+                .build();
+    }
+
+    private static AuthorizationCheck.AuthorizationCheckRequest request(long zoneId, String requestId) {
+        return AuthorizationCheck.AuthorizationCheckRequest.newBuilder()
+                .setAuthorizationModel(model(zoneId))
+                .setRequestID(requestId)
+                .setSubject(AuthorizationCheck.Subject.newBuilder().setType("user").setID("user-" + requestId))
+                .setResource(AuthorizationCheck.Resource.newBuilder().setType("Platform::Subscription").setID("s"))
+                .setAction(AuthorizationCheck.Action.newBuilder().setName("create"))
+                .build();
+    }
+
+    private static AuthorizationCheck.EvaluationResponse evaluation(String requestId, boolean decision) {
+        return AuthorizationCheck.EvaluationResponse.newBuilder()
+                .setRequestID(requestId)
+                .setDecision(decision)
+                .build();
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZCircuitState;
+import com.permguard.pep.config.AZEndpoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the state machine of the circuit breaker.
+ */
+class CircuitBreakerTest {
+
+    private static final long OPEN_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final List<String> transitions = new ArrayList<>();
+
+    @Test
+    void goesFromClosedToOpenToHalfOpenToClosed() throws Exception {
+        CircuitBreaker breaker = breaker();
+        breaker.onSuccess(0);
+        breaker.onSuccess(0);
+        breaker.onFailure();
+        assertEquals(AZCircuitState.CLOSED, breaker.state());
+        breaker.onFailure();
+        assertEquals(AZCircuitState.OPEN, breaker.state());
+        assertFalse(breaker.isCallPermitted());
+        assertFalse(breaker.tryAcquirePermission());
+
+        Thread.sleep(60);
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(AZCircuitState.HALF_OPEN, breaker.state());
+        // Only the configured number of trial calls is permitted.
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        assertFalse(breaker.isCallPermitted());
+
+        breaker.onSuccess(0);
+        assertEquals(AZCircuitState.HALF_OPEN, breaker.state());
+        breaker.onSuccess(0);
+        assertEquals(AZCircuitState.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(List.of("CLOSED>OPEN", "OPEN>HALF_OPEN", "HALF_OPEN>CLOSED"), transitions);
+    }
+
+    @Test
+    void failedTrialCallReopens() throws Exception {
+        CircuitBreaker breaker = breaker();
+        open(breaker);
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onFailure();
+        assertEquals(AZCircuitState.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(List.of("CLOSED>OPEN", "OPEN>HALF_OPEN", "HALF_OPEN>OPEN"), transitions);
+    }
+
+    @Test
+    void slowTrialCallReopens() throws Exception {
+        CircuitBreaker breaker = breaker();
+        open(breaker);
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess(SLOW_NANOS);
+        assertEquals(AZCircuitState.OPEN, breaker.state());
+    }
+
+    @Test
+    void ignoredTrialCallReturnsItsPermission() throws Exception {
+        CircuitBreaker breaker = breaker();
+        open(breaker);
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.onIgnored();
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void slowCallRateOpens() {
+        CircuitBreaker breaker = new CircuitBreaker(new AZEndpoint("localhost", 9094), 4, 4, 1.0, 0.5,
+                SLOW_NANOS, OPEN_NANOS, 2, null);
+        breaker.onSuccess(0);
+        breaker.onSuccess(0);
+        breaker.onSuccess(SLOW_NANOS);
+        assertEquals(AZCircuitState.CLOSED, breaker.state());
+        breaker.onSuccess(SLOW_NANOS);
+        assertEquals(AZCircuitState.OPEN, breaker.state());
+    }
+
+    @Test
+    void failureRateIsComputedOnTheSlidingWindow() {
+        CircuitBreaker breaker = breaker();
+        breaker.onFailure();
+        for (int i = 0; i < 3; i++) {
+            breaker.onSuccess(0);
+        }
+        // The window holds the latest 4 calls: the first failure slides out before the next one is recorded.
+        breaker.onSuccess(0);
+        breaker.onFailure();
+        assertEquals(AZCircuitState.CLOSED, breaker.state());
+        breaker.onFailure();
+        assertEquals(AZCircuitState.OPEN, breaker.state());
+    }
+
+    @Test
+    void doesNotOpenBeforeTheMinimumCalls() {
+        CircuitBreaker breaker = breaker();
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(AZCircuitState.CLOSED, breaker.state());
+        breaker.onFailure();
+        assertEquals(AZCircuitState.OPEN, breaker.state());
+    }
+
+    @Test
+    void failingListenerDoesNotBreakTheBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(new AZEndpoint("localhost", 9094), 4, 4, 0.5, 1.0,
+                SLOW_NANOS, OPEN_NANOS, 2, (endpoint, from, to) -> {
+                    throw new IllegalStateException("listener");
+                });
+        open(breaker);
+        assertEquals(AZCircuitState.OPEN, breaker.state());
+    }
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker(new AZEndpoint("localhost", 9094), 4, 4, 0.5, 1.0, SLOW_NANOS, OPEN_NANOS, 2,
+                (endpoint, from, to) -> transitions.add(from + ">" + to));
+    }
+
+    private static void open(CircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.exception.AuthorizationException;
+import com.permguard.pep.model.response.AZResponse;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the coalescing of identical in-flight checks, against an in-process PDP.
+ */
+class CoalescingTest {
+
+    private final List<TestPdp> pdps = new ArrayList<>();
+    private AZClient client;
+    private TestPdp pdp;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setCoalescingEnabled(true);
+        client = new AZClient(config);
+        pdp = pdps.get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        pdps.forEach(TestPdp::stop);
+    }
+
+    @Test
+    void coalescedCallersAllGetTheResponseWithTheirRequestId() throws Exception {
+        pdp.hold();
+        List<CompletableFuture<AZResponse>> futures = checks(10);
+        TestPdp.awaitCalls(pdps, 1);
+        Thread.sleep(50);
+        assertEquals(1, pdp.calls());
+
+        pdp.release();
+        for (int i = 0; i < futures.size(); i++) {
+            AZResponse response = futures.get(i).get(5, TimeUnit.SECONDS);
+            assertTrue(response.isDecision());
+            assertEquals("r" + i, response.getRequestId());
+        }
+    }
+
+    @Test
+    void coalescedCallersAllGetTheFailure() throws Exception {
+        pdp.hold();
+        pdp.failWith(Status.PERMISSION_DENIED);
+        List<CompletableFuture<AZResponse>> futures = checks(10);
+        TestPdp.awaitCalls(pdps, 1);
+
+        pdp.release();
+        for (CompletableFuture<AZResponse> future : futures) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(AuthorizationException.class, error.getCause());
+        }
+        assertEquals(1, pdp.calls());
+    }
+
+    @Test
+    void completedCallIsNotReused() throws Exception {
+        assertTrue(client.check(TestPdp.request("a")).isDecision());
+        assertTrue(client.check(TestPdp.request("b")).isDecision());
+        assertEquals(2, pdp.calls());
+    }
+
+    @Test
+    void checksWithTheirOwnTimeoutAreNotCoalesced() throws Exception {
+        pdp.hold();
+        List<CompletableFuture<AZResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(client.checkAsync(TestPdp.request("r" + i), Duration.ofSeconds(5)));
+        }
+        TestPdp.awaitCalls(pdps, 3);
+
+        pdp.release();
+        for (CompletableFuture<AZResponse> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isDecision());
+        }
+    }
+
+    private List<CompletableFuture<AZResponse>> checks(int count) {
+        List<CompletableFuture<AZResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(client.checkAsync(TestPdp.request("r" + i)));
+        }
+        return futures;
+    }
+}
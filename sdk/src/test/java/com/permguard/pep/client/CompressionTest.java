@@ -0,0 +1,136 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.config.AZEndpoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the compression of request messages and of its statistics.
+ */
+class CompressionTest {
+
+    private final List<TestPdp> pdps = new ArrayList<>();
+    private AZClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        pdps.forEach(TestPdp::stop);
+    }
+
+    @Test
+    void compressorRecordsSizesAndNotifiesTheListener() throws Exception {
+        AtomicLong notified = new AtomicLong();
+        MeasuredCompressor compressor = new MeasuredCompressor("gzip", 0, (uncompressed, compressed, nanos) -> notified.set(uncompressed));
+        byte[] message = "permguard ".repeat(100).getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream os = compressor.compress(out)) {
+            os.write(message);
+        }
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertArrayEquals(message, in.readAllBytes());
+        }
+        AZCompressionStats stats = compressor.stats();
+        assertEquals(1, stats.getCompressedCount());
+        assertEquals(message.length, stats.getUncompressedBytes());
+        assertEquals(out.size(), stats.getCompressedBytes());
+        assertTrue(stats.getCompressionRatio() > 1.0);
+        assertEquals(message.length, notified.get());
+    }
+
+    @Test
+    void messagesBelowTheThresholdAreSkipped() {
+        MeasuredCompressor compressor = new MeasuredCompressor("gzip", 100, null);
+        assertFalse(compressor.shouldCompress(99));
+        assertTrue(compressor.shouldCompress(100));
+        assertEquals(1, compressor.stats().getSkippedCount());
+    }
+
+    @Test
+    void unknownCompressorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MeasuredCompressor("unknown", 0, null));
+    }
+
+    @Test
+    void clientCompressesRequestsAboveTheThreshold() throws Exception {
+        AZConfig config = localConfig();
+        config.setCompression("gzip");
+        config.setCompressionThreshold(0);
+        client = new AZClient(config);
+
+        assertTrue(client.check(TestPdp.request("r1")).isDecision());
+        AZCompressionStats stats = client.getCompressionStats();
+        assertEquals(1, stats.getCompressedCount());
+        assertEquals(0, stats.getSkippedCount());
+        assertTrue(stats.getUncompressedBytes() > 0);
+    }
+
+    @Test
+    void clientSendsSmallRequestsUncompressed() throws Exception {
+        AZConfig config = localConfig();
+        config.setCompression("gzip");
+        config.setCompressionThreshold(1 << 20);
+        client = new AZClient(config);
+
+        assertTrue(client.check(TestPdp.request("r1")).isDecision());
+        AZCompressionStats stats = client.getCompressionStats();
+        assertEquals(0, stats.getCompressedCount());
+        assertEquals(1, stats.getSkippedCount());
+    }
+
+    @Test
+    void statisticsAreAbsentWithoutCompression() throws Exception {
+        client = new AZClient(TestPdp.config(pdps, 1));
+        assertNull(client.getCompressionStats());
+    }
+
+    private AZConfig localConfig() throws IOException {
+        TestPdp pdp = new TestPdp();
+        pdps.add(pdp);
+        int port = pdp.startLocal();
+        AZConfig config = new AZConfig();
+        config.setEndpoints(List.of(new AZEndpoint(InetAddress.getLoopbackAddress().getHostAddress(), port)));
+        config.setNativeTransportEnabled(false);
+        return config;
+    }
+}
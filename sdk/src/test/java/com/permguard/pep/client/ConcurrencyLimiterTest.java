@@ -0,0 +1,241 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.exception.AuthorizationCircuitOpenException;
+import com.permguard.pep.exception.AuthorizationLimitExceededException;
+import com.permguard.pep.exception.AuthorizationTimeoutException;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the adaptive concurrency limit of the PDP calls.
+ */
+class ConcurrencyLimiterTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void limitGrowsUpToTheMaximumWhileLatencyIsSteady() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 10, 30, 100, scheduler);
+        // Rounds are long enough that scheduling jitter stays well below the tolerated latency increase.
+        for (int round = 0; round < 50; round++) {
+            runRound(limiter, 10);
+            assertTrue(limiter.stats().getLimit() <= 30, limiter.stats().toString());
+        }
+        assertEquals(30, limiter.stats().getLimit());
+    }
+
+    @Test
+    void limitShrinksDownToTheMinimumWhenLatencyGrows() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(30, 10, 30, 100, scheduler);
+        // As in the growth test, steady rounds are long enough that scheduling jitter does not look like a slowdown,
+        // and slow rounds are clearly slower. The limit starts at the maximum, so any decrease is due to latency.
+        for (int round = 0; round < 5; round++) {
+            runRound(limiter, 10);
+        }
+        runRound(limiter, 50);
+        assertTrue(limiter.stats().getLimit() < 30, limiter.stats().toString());
+        for (int round = 0; round < 10; round++) {
+            runRound(limiter, 50);
+            assertTrue(limiter.stats().getLimit() >= 10, limiter.stats().toString());
+        }
+        assertEquals(10, limiter.stats().getLimit());
+    }
+
+    @Test
+    void overloadFailuresCutTheLimitDownToTheMinimum() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(100, 5, 100, 100, scheduler);
+        int previous = limiter.stats().getLimit();
+        for (int i = 0; i < 100; i++) {
+            limiter.submit(() -> CompletableFuture.failedFuture(Status.UNAVAILABLE.asRuntimeException()));
+            int limit = limiter.stats().getLimit();
+            assertTrue(limit <= previous && limit >= 5, limiter.stats().toString());
+            previous = limit;
+        }
+        assertEquals(5, limiter.stats().getLimit());
+    }
+
+    @Test
+    void otherFailuresLeaveTheLimitUnchanged() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 5, 100, 100, scheduler);
+        limiter.submit(() -> CompletableFuture.failedFuture(new AuthorizationCircuitOpenException("open")));
+        limiter.submit(() -> CompletableFuture.failedFuture(Status.PERMISSION_DENIED.asRuntimeException()));
+        limiter.submit(() -> {
+            throw new IllegalStateException("not sent");
+        });
+        assertEquals(20, limiter.stats().getLimit());
+        assertEquals(0, limiter.stats().getInFlightCalls());
+    }
+
+    @Test
+    void callsOverTheLimitWaitInTheQueueOrAreRejected() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 2, 2, 1, scheduler);
+        AtomicInteger started = new AtomicInteger();
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(limiter.submit(() -> {
+                started.incrementAndGet();
+                CompletableFuture<String> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }));
+        }
+        assertEquals(2, started.get());
+        assertEquals(2, limiter.stats().getInFlightCalls());
+        assertEquals(1, limiter.stats().getQueueDepth());
+        assertEquals(1, limiter.stats().getRejectedCount());
+        ExecutionException error = assertThrows(ExecutionException.class, () -> results.get(3).get());
+        assertInstanceOf(AuthorizationLimitExceededException.class, error.getCause());
+
+        // Releasing a slot starts the queued call.
+        calls.get(0).complete("first");
+        assertEquals(3, started.get());
+        assertEquals(0, limiter.stats().getQueueDepth());
+        assertFalse(results.get(2).isDone());
+        calls.get(2).complete("third");
+        assertEquals("third", results.get(2).get());
+        calls.get(1).complete("second");
+        assertEquals(0, limiter.stats().getInFlightCalls());
+    }
+
+    @Test
+    void cancelledQueuedCallIsNeverStarted() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 1, scheduler);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+        limiter.submit(() -> first);
+        CompletableFuture<String> queued = limiter.submit(() -> {
+            started.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        queued.cancel(true);
+        first.complete("first");
+        assertEquals(0, started.get());
+        assertEquals(0, limiter.stats().getInFlightCalls());
+    }
+
+    @Test
+    void cancelledQueuedCallsLeaveTheQueue() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 3, scheduler);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        limiter.submit(() -> first);
+        List<CompletableFuture<String>> abandoned = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            abandoned.add(limiter.submit(CompletableFuture::new));
+        }
+        assertEquals(3, limiter.stats().getQueueDepth());
+        abandoned.forEach(future -> future.cancel(true));
+        assertEquals(0, limiter.stats().getQueueDepth());
+
+        List<CompletableFuture<String>> live = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            live.add(limiter.submit(() -> CompletableFuture.completedFuture("live")));
+        }
+        assertEquals(0, limiter.stats().getRejectedCount());
+        assertEquals(3, limiter.stats().getQueueDepth());
+        first.complete("first");
+        for (CompletableFuture<String> future : live) {
+            assertEquals("live", future.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void queuedCallFailsWhenItsDeadlinePasses() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 1, scheduler);
+        limiter.submit(CompletableFuture::new);
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<String> queued = limiter.submit(() -> {
+            started.incrementAndGet();
+            return new CompletableFuture<>();
+        }, Deadline.after(50, TimeUnit.MILLISECONDS));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AuthorizationTimeoutException.class, e.getCause());
+        assertEquals(0, limiter.stats().getQueueDepth());
+        assertEquals(0, started.get());
+    }
+
+    @Test
+    void startedCallIsNotFailedByItsQueueDeadline() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 1, scheduler);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        limiter.submit(() -> first);
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> queued = limiter.submit(() -> call, Deadline.after(50, TimeUnit.MILLISECONDS));
+
+        first.complete("ok");
+        Thread.sleep(100);
+        assertFalse(queued.isDone());
+        call.complete("late");
+        assertEquals("late", queued.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancellingAStartedQueuedCallCancelsTheCall() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 1, scheduler);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        limiter.submit(() -> first);
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> queued = limiter.submit(() -> call, null);
+        first.complete("ok");
+
+        queued.cancel(false);
+        assertTrue(call.isCancelled());
+        assertEquals(0, limiter.stats().getInFlightCalls());
+    }
+
+    /**
+     * Sends as many calls as the current limit and answers them all after a latency.
+     */
+    private static void runRound(ConcurrencyLimiter limiter, long latencyMillis) throws InterruptedException {
+        int count = limiter.stats().getLimit();
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+            limiter.submit(() -> call);
+        }
+        Thread.sleep(latencyMillis);
+        calls.forEach(call -> call.complete("ok"));
+    }
+}
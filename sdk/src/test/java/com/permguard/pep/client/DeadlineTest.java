@@ -0,0 +1,217 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZCircuitState;
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.config.AZEndpoint;
+import com.permguard.pep.config.AZLoadBalancingPolicy;
+import com.permguard.pep.exception.AuthorizationTimeoutException;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the default, per-call and adaptive deadlines of the client.
+ */
+class DeadlineTest {
+
+    private final List<TestPdp> pdps = new ArrayList<>();
+    private AZClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        pdps.forEach(TestPdp::stop);
+    }
+
+    @Test
+    void perCallTimeoutFailsAHeldCheck() throws Exception {
+        client = new AZClient(TestPdp.config(pdps, 1));
+        pdps.get(0).hold();
+
+        long start = System.nanoTime();
+        assertThrows(AuthorizationTimeoutException.class, () -> client.check(TestPdp.request("r"), Duration.ofMillis(50)));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> client.checkAsync(TestPdp.request("r"), Duration.ofMillis(50)).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AuthorizationTimeoutException.class, error.getCause());
+    }
+
+    @Test
+    void defaultDeadlineFailsAHeldCheck() throws Exception {
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setDeadline(Duration.ofMillis(50));
+        client = new AZClient(config);
+        pdps.get(0).hold();
+
+        assertThrows(AuthorizationTimeoutException.class, () -> client.check(TestPdp.request("r")));
+    }
+
+    @Test
+    void shortCallerDeadlineDoesNotCountAsAnEndpointFailure() throws Exception {
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setEjectionFailureThreshold(1);
+        config.setCircuitBreakerEnabled(true);
+        config.setCircuitBreakerMinimumCalls(1);
+        config.setCircuitBreakerWindowSize(1);
+        client = new AZClient(config);
+        pdps.get(0).hold();
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(AuthorizationTimeoutException.class, () -> client.check(TestPdp.request("r"), Duration.ofMillis(20)));
+        }
+        AZEndpointStats stats = client.getEndpointStats().get(0);
+        assertFalse(stats.isEjected());
+        assertEquals(AZCircuitState.CLOSED, stats.getCircuitState());
+    }
+
+    @Test
+    void defaultDeadlineCountsAsAnEndpointFailure() throws Exception {
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setDeadline(Duration.ofMillis(20));
+        config.setEjectionFailureThreshold(1);
+        config.setCircuitBreakerEnabled(true);
+        config.setCircuitBreakerMinimumCalls(1);
+        config.setCircuitBreakerWindowSize(1);
+        client = new AZClient(config);
+        pdps.get(0).hold();
+
+        assertThrows(AuthorizationTimeoutException.class, () -> client.check(TestPdp.request("r")));
+        AZEndpointStats stats = client.getEndpointStats().get(0);
+        assertTrue(stats.isEjected());
+        assertEquals(AZCircuitState.OPEN, stats.getCircuitState());
+    }
+
+    @Test
+    void adaptiveDeadlineFollowsTheLatencyPercentileWithinBounds() {
+        AZConfig config = new AZConfig();
+        config.setDeadline(Duration.ofSeconds(5));
+        config.setAdaptiveDeadlineEnabled(true);
+        config.setAdaptiveDeadlineMultiplier(3.0);
+        config.setAdaptiveDeadlineMinimum(Duration.ofMillis(50));
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            PdpTransport transport = new PdpTransport(new LoadBalancer(List.of(), AZLoadBalancingPolicy.LEAST_REQUEST),
+                    scheduler, null, config);
+
+            // Until enough calls are recorded, the configured deadline applies.
+            assertRemaining(transport.defaultDeadline(), 4_000, 5_000);
+
+            for (int i = 0; i < 100; i++) {
+                transport.latency().record(TimeUnit.MILLISECONDS.toNanos(100));
+            }
+            assertRemaining(transport.defaultDeadline(), 250, 300);
+
+            // Fast calls cannot shrink the deadline below the minimum.
+            for (int i = 0; i < 1024; i++) {
+                transport.latency().record(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+            awaitSnapshot();
+            assertRemaining(transport.defaultDeadline(), 40, 50);
+
+            // Slow calls cannot stretch the deadline beyond the configured one.
+            for (int i = 0; i < 1024; i++) {
+                transport.latency().record(TimeUnit.SECONDS.toNanos(10));
+            }
+            awaitSnapshot();
+            assertRemaining(transport.defaultDeadline(), 4_000, 5_000);
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void adaptiveDeadlineDoesNotCollapseWhenCallsOutliveIt() throws Exception {
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setAdaptiveDeadlineEnabled(true);
+        config.setAdaptiveDeadlineMultiplier(2.0);
+        config.setAdaptiveDeadlineMinimum(Duration.ofMillis(10));
+        ChannelFactory channelFactory = new ChannelFactory(config, null);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            AZEndpoint address = config.getEndpoints().get(0);
+            Endpoint endpoint = new Endpoint(address, new ChannelPool(List.of(channelFactory.newChannel(address))), 0, 0, null);
+            PdpTransport transport = new PdpTransport(new LoadBalancer(List.of(endpoint), AZLoadBalancingPolicy.LEAST_REQUEST),
+                    scheduler, null, config);
+            for (int i = 0; i < 100; i++) {
+                transport.latency().record(TimeUnit.MILLISECONDS.toNanos(20));
+            }
+            awaitSnapshot();
+            assertRemaining(transport.defaultDeadline(), 30, 40);
+
+            // A tenth of the calls outlive the deadline; their elapsed time must widen it rather than be left out.
+            pdps.get(0).hold();
+            AuthorizationCheck.AuthorizationCheckRequest request = new Mapper(0).mapAuthorizationCheckRequest(TestPdp.request("r"));
+            for (int i = 0; i < 10; i++) {
+                ExecutionException error = assertThrows(ExecutionException.class,
+                        () -> transport.call(request, null).get(5, TimeUnit.SECONDS));
+                assertEquals(Status.Code.DEADLINE_EXCEEDED, Status.fromThrowable(error.getCause()).getCode());
+            }
+            awaitSnapshot();
+            assertRemaining(transport.defaultDeadline(), 70, 5_000);
+        } finally {
+            scheduler.shutdownNow();
+            channelFactory.shutdown();
+        }
+    }
+
+    @Test
+    void noDefaultDeadlineWhenDisabled() {
+        AZConfig config = new AZConfig();
+        config.setDeadline(null);
+        PdpTransport transport = new PdpTransport(new LoadBalancer(List.of(), AZLoadBalancingPolicy.LEAST_REQUEST),
+                null, null, config);
+        assertNull(transport.defaultDeadline());
+    }
+
+    private static void assertRemaining(Deadline deadline, long minMillis, long maxMillis) {
+        long remaining = deadline.timeRemaining(TimeUnit.MILLISECONDS);
+        assertTrue(remaining >= minMillis && remaining <= maxMillis, remaining + "ms");
+    }
+
+    private static void awaitSnapshot() {
+        // The latency percentiles are recomputed at most every 50ms.
+        try {
+            Thread.sleep(60);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.response.AZResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the client-side decision cache, against an in-process PDP.
+ */
+class DecisionCacheTest {
+
+    private final List<TestPdp> pdps = new ArrayList<>();
+    private AZClient client;
+    private TestPdp pdp;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        pdps.forEach(TestPdp::stop);
+    }
+
+    @Test
+    void permitsAreCachedWhileDenialsAreNot() throws Exception {
+        start(Duration.ofMinutes(1), Duration.ZERO);
+
+        assertTrue(client.check(TestPdp.request("a")).isDecision());
+        assertTrue(client.check(TestPdp.request("b")).isDecision());
+        assertEquals(1, pdp.calls());
+
+        assertFalse(client.check(denied("c")).isDecision());
+        assertFalse(client.check(denied("d")).isDecision());
+        assertEquals(3, pdp.calls());
+    }
+
+    @Test
+    void denialsAreCachedWhilePermitsAreNot() throws Exception {
+        start(Duration.ZERO, Duration.ofMinutes(1));
+
+        assertFalse(client.check(denied("a")).isDecision());
+        assertFalse(client.check(denied("b")).isDecision());
+        assertEquals(1, pdp.calls());
+
+        assertTrue(client.check(TestPdp.request("c")).isDecision());
+        assertTrue(client.check(TestPdp.request("d")).isDecision());
+        assertEquals(3, pdp.calls());
+    }
+
+    @Test
+    void denialsExpireAfterTheirOwnTtl() throws Exception {
+        start(Duration.ofMinutes(1), Duration.ofMillis(100));
+
+        assertTrue(client.check(TestPdp.request("a")).isDecision());
+        assertFalse(client.check(denied("b")).isDecision());
+        Thread.sleep(200);
+        assertTrue(client.check(TestPdp.request("c")).isDecision());
+        assertFalse(client.check(denied("d")).isDecision());
+        assertEquals(3, pdp.calls());
+    }
+
+    @Test
+    void requestIdIsNotPartOfTheKey() throws Exception {
+        start(Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        AZResponse first = client.check(TestPdp.request("a"));
+        AZResponse second = client.check(TestPdp.request("b"));
+        AZResponse third = client.check(TestPdp.request(null));
+
+        assertEquals(1, pdp.calls());
+        assertEquals("a", first.getRequestId());
+        assertEquals("b", second.getRequestId());
+        assertTrue(third.isDecision());
+    }
+
+    @Test
+    void statsCountHitsAndMisses() throws Exception {
+        start(Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        client.check(TestPdp.request("a"));
+        client.check(TestPdp.request("b"));
+        client.check(denied("c"));
+        client.check(denied("d"));
+        client.check(TestPdp.request("e"));
+
+        AZCacheStats stats = client.getCacheStats();
+        assertEquals(3, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(2, stats.getSize());
+        assertEquals(0, stats.getEvictionCount());
+        assertEquals(2, pdp.calls());
+    }
+
+    @Test
+    void concurrentChecksAreAllCounted() throws Exception {
+        DecisionCache cache = new DecisionCache(10_000, Duration.ofMinutes(1).toNanos(), Duration.ofMinutes(1).toNanos());
+        Mapper mapper = new Mapper();
+        AuthorizationCheck.AuthorizationCheckResponse permit = AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                .setDecision(true)
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        AZRequest request = TestPdp.request("r");
+                        request.getResource().setId("resource-" + thread + "-" + i);
+                        AuthorizationCheck.AuthorizationCheckRequest key = DecisionCache.keyOf(mapper.mapAuthorizationCheckRequest(request));
+                        if (cache.get(key) == null) {
+                            cache.put(key, permit);
+                        }
+                        assertTrue(cache.get(key).getDecision());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        AZCacheStats stats = cache.stats();
+        assertEquals(800, stats.getHitCount());
+        assertEquals(800, stats.getMissCount());
+        assertEquals(800, stats.getSize());
+        assertEquals(0, stats.getEvictionCount());
+    }
+
+    private void start(Duration permitTtl, Duration denyTtl) throws Exception {
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setCacheEnabled(true);
+        config.setCachePermitTtl(permitTtl);
+        config.setCacheDenyTtl(denyTtl);
+        client = new AZClient(config);
+        pdp = pdps.get(0);
+    }
+
+    private static AZRequest denied(String requestId) {
+        AZRequest request = TestPdp.request(requestId);
+        request.getResource().setId(TestPdp.DENIED);
+        return request;
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.google.protobuf.Struct;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.request.Entities;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the encoding and caching of entity items.
+ */
+class EntityEncoderTest {
+
+    @Test
+    void equalDuplicatesAreDropped() {
+        EntityEncoder encoder = new EntityEncoder(100);
+        AuthorizationCheck.Entities encoded = encoder.encode(new Entities("cedar", List.of(item("a", "x"), item("a", "x"), item("b", "z"))));
+        assertEquals(2, encoded.getItemsCount());
+        assertEquals("x", name(encoded.getItems(0)));
+        assertEquals("z", name(encoded.getItems(1)));
+    }
+
+    @Test
+    void differentItemsWithTheSameUidAreAllSent() {
+        EntityEncoder encoder = new EntityEncoder(100);
+        AuthorizationCheck.Entities encoded = encoder.encode(new Entities("cedar",
+                List.of(item("a", "x"), item("a", "y"), item("a", "x"), item("a", "y"), item("b", "z"))));
+        assertEquals(3, encoded.getItemsCount());
+        assertEquals("x", name(encoded.getItems(0)));
+        assertEquals("y", name(encoded.getItems(1)));
+        assertEquals("z", name(encoded.getItems(2)));
+    }
+
+    @Test
+    void equalItemsReuseTheirStruct() {
+        EntityEncoder encoder = new EntityEncoder(100);
+        Struct first = encoder.encode(new Entities("cedar", List.of(item("a", "x")))).getItems(0);
+        Struct second = encoder.encode(new Entities("cedar", List.of(item("a", "x")))).getItems(0);
+        assertSame(first, second);
+    }
+
+    @Test
+    void modifiedItemIsConvertedAgain() {
+        EntityEncoder encoder = new EntityEncoder(100);
+        Map<String, Object> item = item("a", "x");
+        Map<String, Object> attrs = attrs(item);
+        List<Map<String, Object>> items = List.of(item);
+        assertEquals("x", name(encoder.encode(new Entities("cedar", items)).getItems(0)));
+
+        attrs.put("name", "y");
+        assertEquals("y", name(encoder.encode(new Entities("cedar", items)).getItems(0)));
+
+        attrs.put("name", "x");
+        assertEquals("x", name(encoder.encode(new Entities("cedar", items)).getItems(0)));
+        assertEquals(2, encoder.cacheSize());
+    }
+
+    @Test
+    void itemsWithMutableValuesAreNotCached() {
+        EntityEncoder encoder = new EntityEncoder(100);
+        Map<String, Object> item = item("a", "x");
+        attrs(item).put("tags", new String[] {"t"});
+        encoder.encode(new Entities("cedar", List.of(item)));
+        assertEquals(0, encoder.cacheSize());
+    }
+
+    @Test
+    void cacheNeverExceedsItsMaximumSize() throws Exception {
+        EntityEncoder encoder = new EntityEncoder(50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        encoder.encode(new Entities("cedar", List.of(item("e" + thread + "-" + i, "x"))));
+                        assertTrue(encoder.cacheSize() <= 50);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(50, encoder.cacheSize());
+    }
+
+    @Test
+    void disabledCacheConvertsEveryItem() {
+        EntityEncoder encoder = new EntityEncoder(0);
+        Struct first = encoder.encode(new Entities("cedar", List.of(item("a", "x")))).getItems(0);
+        Struct second = encoder.encode(new Entities("cedar", List.of(item("a", "x")))).getItems(0);
+        assertEquals(first, second);
+        assertEquals(0, encoder.cacheSize());
+    }
+
+    private static Map<String, Object> item(String id, String name) {
+        Map<String, Object> uid = new HashMap<>();
+        uid.put("type", "Platform::User");
+        uid.put("id", id);
+        Map<String, Object> attrs = new HashMap<>();
+        attrs.put("name", name);
+        Map<String, Object> item = new HashMap<>();
+        item.put("uid", uid);
+        item.put("attrs", attrs);
+        item.put("parents", new ArrayList<>());
+        return item;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> attrs(Map<String, Object> item) {
+        return (Map<String, Object>) item.get("attrs");
+    }
+
+    private static String name(Struct item) {
+        return item.getFieldsOrThrow("attrs").getStructValue().getFieldsOrThrow("name").getStringValue();
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.config.AZEndpoint;
+import com.permguard.pep.config.AZLoadBalancingPolicy;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.response.AZResponse;
+import io.grpc.Deadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the hedged checks of the client, against in-process PDPs.
+ */
+class HedgingTest {
+
+    private final List<TestPdp> pdps = new ArrayList<>();
+    private AZClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        pdps.forEach(TestPdp::stop);
+    }
+
+    @Test
+    void hedgeToAnotherEndpointAnswersWhenThePrimaryIsSlow() throws Exception {
+        AZConfig config = hedgingConfig(1.0);
+        client = new AZClient(config);
+        TestPdp slow = pdps.get(0);
+        TestPdp fast = pdps.get(1);
+        slow.hold();
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(client.check(TestPdp.request("r" + i), Duration.ofSeconds(2)).isDecision());
+        }
+        // Every check is answered by the fast endpoint, either as the primary call or as the hedge.
+        assertTrue(slow.calls() > 0);
+        assertEquals(20, fast.calls());
+        // The calls held by the slow endpoint are cancelled once the hedge answers.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.getEndpointStats().get(0).getInFlightCalls() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, client.getEndpointStats().get(0).getInFlightCalls());
+    }
+
+    @Test
+    void cancelledLosersDoNotEjectTheirEndpoint() throws Exception {
+        AZConfig config = hedgingConfig(1.0);
+        config.setEjectionFailureThreshold(2);
+        client = new AZClient(config);
+        TestPdp slow = pdps.get(0);
+        slow.hold();
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(client.check(TestPdp.request("r" + i), Duration.ofSeconds(2)).isDecision());
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.getEndpointStats().get(0).getInFlightCalls() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        // Every call to the slow endpoint lost to a hedge and was cancelled, which says nothing about its health.
+        assertTrue(slow.calls() >= 2);
+        assertFalse(client.getEndpointStats().get(0).isEjected());
+    }
+
+    @Test
+    void hedgesAreBoundedByTheBudget() throws Exception {
+        // Without deposits, only the initial burst of 10 hedges can be sent.
+        AZConfig config = hedgingConfig(0.0);
+        client = new AZClient(config);
+        pdps.forEach(TestPdp::hold);
+
+        List<CompletableFuture<AZResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(client.checkAsync(TestPdp.request("r" + i)));
+        }
+        TestPdp.awaitCalls(pdps, 40);
+        Thread.sleep(50);
+        assertEquals(40, pdps.get(0).calls() + pdps.get(1).calls());
+
+        pdps.forEach(TestPdp::release);
+        for (CompletableFuture<AZResponse> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isDecision());
+        }
+    }
+
+    @Test
+    void cancelledLosersAreRecordedAsALowerBoundOfTheLatency() throws Exception {
+        AZConfig config = hedgingConfig(1.0);
+        ChannelFactory channelFactory = new ChannelFactory(config, null);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            List<Endpoint> endpoints = new ArrayList<>();
+            for (AZEndpoint address : config.getEndpoints()) {
+                endpoints.add(new Endpoint(address, new ChannelPool(List.of(channelFactory.newChannel(address))), 0, 0, null));
+            }
+            PdpTransport transport = new PdpTransport(new LoadBalancer(endpoints, AZLoadBalancingPolicy.LEAST_REQUEST),
+                    scheduler, null, config);
+            pdps.get(0).hold();
+
+            AuthorizationCheck.AuthorizationCheckRequest request = new Mapper(0).mapAuthorizationCheckRequest(TestPdp.request("r"));
+            for (int i = 0; i < 40; i++) {
+                transport.call(request, Deadline.after(2, TimeUnit.SECONDS)).get(5, TimeUnit.SECONDS);
+                // Once the loser is cancelled, both endpoints are idle and equally likely to get the next primary.
+                while (endpoints.get(0).inFlight() > 0) {
+                    Thread.sleep(1);
+                }
+            }
+            // The primaries held by the slow endpoint lost to hedges sent after at least the minimum delay.
+            Thread.sleep(60);
+            assertTrue(transport.latency().percentile(95, 0) >= TimeUnit.MILLISECONDS.toNanos(5));
+        } finally {
+            scheduler.shutdownNow();
+            channelFactory.shutdown();
+        }
+    }
+
+    private AZConfig hedgingConfig(double budgetRatio) throws Exception {
+        AZConfig config = TestPdp.config(pdps, 2);
+        config.setHedgingEnabled(true);
+        config.setHedgingMinDelay(Duration.ofMillis(5));
+        config.setHedgingBudgetRatio(budgetRatio);
+        return config;
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.exception.AuthorizationException;
+import com.permguard.pep.model.response.AZResponse;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the endpoint selection and ejection of the client, against several in-process PDPs.
+ */
+class LoadBalancerTest {
+
+    private final List<TestPdp> pdps = new ArrayList<>();
+    private AZClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        pdps.forEach(TestPdp::stop);
+    }
+
+    @Test
+    void spreadsOutstandingCallsAcrossEndpointsAndChannels() throws Exception {
+        AZConfig config = TestPdp.config(pdps, 3);
+        config.setChannelCount(2);
+        client = new AZClient(config);
+        pdps.forEach(TestPdp::hold);
+
+        List<CompletableFuture<AZResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            futures.add(client.checkAsync(TestPdp.request("r" + i)));
+        }
+        TestPdp.awaitCalls(pdps, 60);
+
+        List<AZEndpointStats> stats = client.getEndpointStats();
+        assertEquals(3, stats.size());
+        for (int i = 0; i < stats.size(); i++) {
+            AZEndpointStats endpoint = stats.get(i);
+            int[] perChannel = endpoint.getChannelInFlightCalls();
+            assertEquals(pdps.get(i).calls(), endpoint.getInFlightCalls());
+            assertEquals(endpoint.getCallCount(), endpoint.getInFlightCalls());
+            // Power of two choices keeps every endpoint close to the mean of 20 outstanding calls.
+            assertTrue(endpoint.getInFlightCalls() >= 10 && endpoint.getInFlightCalls() <= 30, endpoint.toString());
+            // Within an endpoint, each call goes to the channel with the fewest outstanding calls.
+            assertEquals(2, perChannel.length);
+            assertTrue(Math.abs(perChannel[0] - perChannel[1]) <= 1, endpoint.toString());
+        }
+
+        pdps.forEach(TestPdp::release);
+        for (CompletableFuture<AZResponse> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isDecision());
+        }
+        for (AZEndpointStats endpoint : client.getEndpointStats()) {
+            assertEquals(0, endpoint.getInFlightCalls());
+        }
+    }
+
+    @Test
+    void ejectedEndpointGetsNoTrafficUntilItRecovers() throws Exception {
+        AZConfig config = TestPdp.config(pdps, 2);
+        config.setEjectionFailureThreshold(3);
+        config.setEjectionDuration(Duration.ofSeconds(1));
+        client = new AZClient(config);
+        TestPdp failing = pdps.get(0);
+        TestPdp healthy = pdps.get(1);
+
+        failing.failWith(Status.UNAVAILABLE);
+        for (int i = 0; i < 100 && !client.getEndpointStats().get(0).isEjected(); i++) {
+            try {
+                client.check(TestPdp.request("e" + i));
+            } catch (AuthorizationException e) {
+                // The failures eject the endpoint.
+            }
+        }
+        assertTrue(client.getEndpointStats().get(0).isEjected());
+
+        // The endpoint is healthy again, but stays out of rotation for the ejection duration.
+        failing.failWith(null);
+        failing.resetCalls();
+        healthy.resetCalls();
+        long ejectedAt = System.nanoTime();
+        int sent = 0;
+        while (System.nanoTime() - ejectedAt < TimeUnit.MILLISECONDS.toNanos(200)) {
+            client.check(TestPdp.request("h" + sent++));
+        }
+        assertEquals(0, failing.calls());
+        assertEquals(sent, healthy.calls());
+
+        Thread.sleep(1000);
+        for (int i = 0; i < 200; i++) {
+            client.check(TestPdp.request("r" + i));
+        }
+        assertTrue(failing.calls() > 0);
+        assertFalse(client.getEndpointStats().get(0).isEjected());
+    }
+
+    @Test
+    void probesEjectedEndpointsWhenAllAreEjected() throws Exception {
+        AZConfig config = TestPdp.config(pdps, 2);
+        config.setEjectionFailureThreshold(1);
+        config.setEjectionDuration(Duration.ofMinutes(1));
+        client = new AZClient(config);
+        pdps.forEach(pdp -> pdp.failWith(Status.UNAVAILABLE));
+        for (int i = 0; i < 50 && !allEjected(); i++) {
+            assertThrows(AuthorizationException.class, () -> client.check(TestPdp.request("f")));
+        }
+        assertTrue(allEjected());
+
+        // With every endpoint ejected, calls keep probing them instead of failing locally.
+        pdps.forEach(pdp -> {
+            pdp.failWith(null);
+            pdp.resetCalls();
+        });
+        assertTrue(client.check(TestPdp.request("p")).isDecision());
+        assertEquals(1, pdps.get(0).calls() + pdps.get(1).calls());
+    }
+
+    private boolean allEjected() {
+        return client.getEndpointStats().stream().allMatch(AZEndpointStats::isEjected);
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.request.Action;
+import com.permguard.pep.model.request.Evaluation;
+import com.permguard.pep.model.request.Resource;
+import com.permguard.pep.model.request.Subject;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests of the conversion of the parts shared by the evaluations of a request.
+ */
+class MapperTest {
+
+    private final Mapper mapper = new Mapper();
+
+    @Test
+    void sharedPartsAreConvertedOnce() {
+        AZRequest request = TestPdp.request("r");
+        CountingSubject subject = new CountingSubject("amy");
+        Resource resource = new Resource("Platform::Subscription", "subscription", Map.of("plan", "pro"));
+        Action action = new Action("Platform::Action::view", Map.of());
+        Map<String, Object> context = Map.of("time", 5);
+        request.setSubject(subject);
+        request.setEvaluations(List.of(
+                new Evaluation("e1", subject, resource, action, context),
+                new Evaluation("e2", subject, resource, request.getAction(), request.getContext()),
+                new Evaluation("e3", subject, request.getResource(), action, context)));
+
+        AuthorizationCheck.AuthorizationCheckRequest mapped = mapper.mapAuthorizationCheckRequest(request);
+
+        assertEquals(1, subject.conversions);
+        List<AuthorizationCheck.EvaluationRequest> evaluations = mapped.getEvaluationsList();
+        assertEquals(3, evaluations.size());
+        for (AuthorizationCheck.EvaluationRequest evaluation : evaluations) {
+            assertSame(mapped.getSubject(), evaluation.getSubject());
+        }
+        assertSame(evaluations.get(0).getResource(), evaluations.get(1).getResource());
+        assertSame(mapped.getResource(), evaluations.get(2).getResource());
+        assertSame(evaluations.get(0).getAction(), evaluations.get(2).getAction());
+        assertSame(mapped.getAction(), evaluations.get(1).getAction());
+        assertSame(evaluations.get(0).getContext(), evaluations.get(2).getContext());
+        assertSame(mapped.getContext(), evaluations.get(1).getContext());
+    }
+
+    @Test
+    void equalPartsThatAreNotTheSameObjectAreEachConverted() {
+        AZRequest request = TestPdp.request("r");
+        CountingSubject first = new CountingSubject("amy");
+        CountingSubject second = new CountingSubject("amy");
+        request.setSubject(null);
+        request.setEvaluations(List.of(
+                new Evaluation("e1", first, resource(), request.getAction(), new HashMap<>(Map.of("time", 5))),
+                new Evaluation("e2", second, resource(), request.getAction(), new HashMap<>(Map.of("time", 5)))));
+
+        AuthorizationCheck.AuthorizationCheckRequest mapped = mapper.mapAuthorizationCheckRequest(request);
+
+        assertEquals(1, first.conversions);
+        assertEquals(1, second.conversions);
+        AuthorizationCheck.EvaluationRequest e1 = mapped.getEvaluations(0);
+        AuthorizationCheck.EvaluationRequest e2 = mapped.getEvaluations(1);
+        assertEquals(e1.getSubject(), e2.getSubject());
+        assertNotSame(e1.getSubject(), e2.getSubject());
+        assertEquals(e1.getResource(), e2.getResource());
+        assertNotSame(e1.getResource(), e2.getResource());
+        assertEquals(e1.getContext(), e2.getContext());
+        assertNotSame(e1.getContext(), e2.getContext());
+    }
+
+    @Test
+    void partsAreNotReusedAcrossRequests() {
+        AZRequest request = TestPdp.request("r");
+        CountingSubject subject = new CountingSubject("amy");
+        request.setSubject(subject);
+        request.setEvaluations(List.of(new Evaluation("e1", subject, request.getResource(), request.getAction(), null)));
+
+        AuthorizationCheck.AuthorizationCheckRequest first = mapper.mapAuthorizationCheckRequest(request);
+        AuthorizationCheck.AuthorizationCheckRequest second = mapper.mapAuthorizationCheckRequest(request);
+
+        assertEquals(2, subject.conversions);
+        assertEquals(first, second);
+        assertNotSame(first.getSubject(), second.getSubject());
+    }
+
+    private static Resource resource() {
+        return new Resource("Platform::Subscription", "subscription", new HashMap<>(Map.of("plan", "pro")));
+    }
+
+    /**
+     * Subject counting how many times its properties are read, which the mapper does once per conversion.
+     */
+    private static final class CountingSubject extends Subject {
+        private int conversions;
+
+        CountingSubject(String id) {
+            super("user", id, "keycloak", new HashMap<>(Map.of("role", "admin")));
+        }
+
+        @Override
+        public Map<String, Object> getProperties() {
+            conversions++;
+            return super.getProperties();
+        }
+    }
+}
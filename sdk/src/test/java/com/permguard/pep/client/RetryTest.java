@@ -0,0 +1,114 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.exception.AuthorizationException;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the retries of the client and of their budget, against an in-process PDP.
+ */
+class RetryTest {
+
+    private final List<TestPdp> pdps = new ArrayList<>();
+    private AZClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        pdps.forEach(TestPdp::stop);
+    }
+
+    @Test
+    void retriesRetryableFailuresUntilTheCheckSucceeds() throws Exception {
+        client = new AZClient(retryConfig(3, 0.1));
+        TestPdp pdp = pdps.get(0);
+        pdp.failNext(2, Status.UNAVAILABLE);
+
+        assertTrue(client.check(TestPdp.request("r")).isDecision());
+        assertEquals(3, pdp.calls());
+    }
+
+    @Test
+    void stopsAfterTheMaximumAttempts() throws Exception {
+        client = new AZClient(retryConfig(3, 0.1));
+        TestPdp pdp = pdps.get(0);
+        pdp.failWith(Status.UNAVAILABLE);
+
+        assertThrows(AuthorizationException.class, () -> client.check(TestPdp.request("r")));
+        assertEquals(3, pdp.calls());
+    }
+
+    @Test
+    void doesNotRetryOtherStatusCodes() throws Exception {
+        client = new AZClient(retryConfig(3, 0.1));
+        TestPdp pdp = pdps.get(0);
+        pdp.failWith(Status.INVALID_ARGUMENT);
+
+        assertThrows(AuthorizationException.class, () -> client.check(TestPdp.request("r")));
+        assertEquals(1, pdp.calls());
+    }
+
+    @Test
+    void retryBudgetRunsDryAndRefillsWithSuccessfulCalls() throws Exception {
+        // The budget starts with a burst of 10 retries, and each successful call deposits half a retry.
+        client = new AZClient(retryConfig(3, 0.5));
+        TestPdp pdp = pdps.get(0);
+        pdp.failWith(Status.UNAVAILABLE);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(AuthorizationException.class, () -> client.check(TestPdp.request("r")));
+        }
+        assertEquals(15, pdp.calls());
+
+        pdp.resetCalls();
+        assertThrows(AuthorizationException.class, () -> client.check(TestPdp.request("r")));
+        assertEquals(1, pdp.calls());
+
+        pdp.failWith(null);
+        for (int i = 0; i < 4; i++) {
+            client.check(TestPdp.request("r"));
+        }
+        pdp.failWith(Status.UNAVAILABLE);
+        pdp.resetCalls();
+        assertThrows(AuthorizationException.class, () -> client.check(TestPdp.request("r")));
+        assertEquals(3, pdp.calls());
+    }
+
+    private AZConfig retryConfig(int maxAttempts, double budgetRatio) throws Exception {
+        AZConfig config = TestPdp.config(pdps, 1);
+        config.setRetryMaxAttempts(maxAttempts);
+        config.setRetryInitialBackoff(Duration.ofMillis(1));
+        config.setRetryMaxBackoff(Duration.ofMillis(5));
+        config.setRetryBudgetRatio(budgetRatio);
+        return config;
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests of the segments of the striped W-TinyLFU cache.
+ */
+class StripedTinyLfuCacheTest {
+
+    @Test
+    void segmentsShareTheMaximumSize() {
+        StripedTinyLfuCache<Integer, String> cache = new StripedTinyLfuCache<>(1000);
+        for (int i = 0; i < 100_000; i++) {
+            cache.put(i, Integer.hashCode(i), "v" + i);
+        }
+        assertEquals(1000, cache.size());
+        assertEquals(99_000, cache.evictionCount());
+    }
+
+    @Test
+    void keysAreFoundByTheirHashCode() {
+        StripedTinyLfuCache<String, String> cache = new StripedTinyLfuCache<>(1000);
+        for (int i = 0; i < 500; i++) {
+            cache.put("k" + i, ("k" + i).hashCode(), "v" + i);
+        }
+        for (int i = 0; i < 500; i++) {
+            assertEquals("v" + i, cache.get("k" + i, ("k" + i).hashCode()));
+        }
+        cache.remove("k1", "k1".hashCode());
+        assertNull(cache.get("k1", "k1".hashCode()));
+        assertEquals(499, cache.size());
+    }
+}
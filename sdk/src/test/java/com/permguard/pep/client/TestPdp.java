@@ -0,0 +1,368 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import com.permguard.pep.builder.AZAtomicRequestBuilder;
+import com.permguard.pep.builder.PrincipalBuilder;
+import com.permguard.pep.config.AZConfig;
+import com.permguard.pep.config.AZEndpoint;
+import com.permguard.pep.internal.proto.AuthorizationCheck;
+import com.permguard.pep.internal.proto.V1PDPServiceGrpc;
+import com.permguard.pep.model.request.AZRequest;
+import com.permguard.pep.model.request.Entities;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * An in-process PDP for the client tests, which counts the checks it receives and can fail them
+ * or hold them unanswered until released. Checks and evaluations are permitted unless their resource ID is {@link #DENIED}.
+ */
+class TestPdp extends V1PDPServiceGrpc.V1PDPServiceImplBase {
+
+    /** The resource ID for which checks and evaluations are denied. */
+    static final String DENIED = "denied";
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Queue<Held> held = new ConcurrentLinkedQueue<>();
+    private final Queue<StreamResponses> streams = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile Status failure;
+    private volatile boolean holding;
+    private volatile boolean echoRequestIds = true;
+    private Server server;
+
+    /**
+     * Starts the PDP in process.
+     *
+     * @param name The name of the in-process server.
+     * @return This PDP.
+     * @throws IOException If the server fails to start.
+     */
+    TestPdp start(String name) throws IOException {
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(this)
+                .build()
+                .start();
+        return this;
+    }
+
+    /**
+     * Starts the PDP on a free port of the loopback interface, for the tests that need messages to be serialized.
+     *
+     * @return The port of the server.
+     * @throws IOException If the server fails to start.
+     */
+    int startLocal() throws IOException {
+        server = NettyServerBuilder.forAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .directExecutor()
+                .addService(this)
+                .build()
+                .start();
+        return server.getPort();
+    }
+
+    /**
+     * Stops the PDP, failing the checks it still holds.
+     */
+    void stop() {
+        failure = Status.UNAVAILABLE;
+        release();
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the number of checks received so far.
+     *
+     * @return The number of checks.
+     */
+    int calls() {
+        return calls.get();
+    }
+
+    /**
+     * Resets the number of checks received.
+     */
+    void resetCalls() {
+        calls.set(0);
+    }
+
+    /**
+     * Fails the next checks with a status, or answers them again when the status is null.
+     *
+     * @param status The status of the failure, or null.
+     */
+    void failWith(Status status) {
+        failuresLeft.set(0);
+        failure = status;
+    }
+
+    /**
+     * Fails only the next checks with a status, and answers the following ones.
+     *
+     * @param count  The number of checks to fail.
+     * @param status The status of the failure.
+     */
+    void failNext(int count, Status status) {
+        failuresLeft.set(count);
+        failure = status;
+    }
+
+    /**
+     * Sets whether the request IDs of the evaluations are echoed in their responses, which some PDPs do not do.
+     *
+     * @param echo True to echo the request IDs.
+     */
+    void echoRequestIds(boolean echo) {
+        echoRequestIds = echo;
+    }
+
+    /**
+     * Holds the next checks unanswered until {@link #release()} is called.
+     */
+    void hold() {
+        holding = true;
+    }
+
+    /**
+     * Answers the held checks and stops holding the next ones.
+     */
+    void release() {
+        holding = false;
+        Held next;
+        while ((next = held.poll()) != null) {
+            answer(next.request(), next.observer());
+        }
+    }
+
+    /**
+     * Ends the open streams, as a PDP going away would.
+     *
+     * @param status The status the streams fail with, or null to complete them.
+     */
+    void endStreams(Status status) {
+        StreamResponses stream;
+        while ((stream = streams.poll()) != null) {
+            if (status != null) {
+                stream.onError(status.asRuntimeException());
+            } else {
+                stream.onCompleted();
+            }
+        }
+    }
+
+    /**
+     * Starts in-process PDPs and builds a client configuration with one endpoint per PDP.
+     *
+     * @param pdps  The list the started PDPs are added to, so that the test can stop them.
+     * @param count The number of PDPs to start.
+     * @return The client configuration.
+     * @throws IOException If a PDP fails to start.
+     */
+    static AZConfig config(List<TestPdp> pdps, int count) throws IOException {
+        List<AZEndpoint> endpoints = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String name = "pdp-" + UUID.randomUUID();
+            pdps.add(new TestPdp().start(name));
+            endpoints.add(AZEndpoint.inProcess(name));
+        }
+        AZConfig config = new AZConfig();
+        config.setEndpoints(endpoints);
+        return config;
+    }
+
+    /**
+     * Waits until the PDPs have received a number of checks in total.
+     *
+     * @param pdps     The PDPs.
+     * @param expected The number of checks to wait for.
+     * @throws InterruptedException If the wait is interrupted.
+     */
+    static void awaitCalls(List<TestPdp> pdps, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pdps.stream().mapToInt(TestPdp::calls).sum() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, pdps.stream().mapToInt(TestPdp::calls).sum());
+    }
+
+    /**
+     * Builds a check request.
+     *
+     * @param requestId The ID of the request.
+     * @return The request.
+     */
+    static AZRequest request(String requestId) {
+        return new AZAtomicRequestBuilder(1L, "store", "amy", "Platform::Subscription", "Platform::Action::create")
+                .withRequestId(requestId)
+                .withPrincipal(new PrincipalBuilder("amy").withType("user").withSource("keycloak").build())
+                .withEntitiesItems("cedar", new Entities("cedar", List.of()))
+                .withSubjectSource("keycloak")
+                .withResourceId("subscription")
+                .build();
+    }
+
+    @Override
+    public void authorizationCheck(AuthorizationCheck.AuthorizationCheckRequest request,
+                                   StreamObserver<AuthorizationCheck.AuthorizationCheckResponse> responseObserver) {
+        calls.incrementAndGet();
+        if (holding) {
+            held.add(new Held(request, responseObserver));
+            return;
+        }
+        answer(request, responseObserver);
+    }
+
+    @Override
+    public StreamObserver<AuthorizationCheck.AuthorizationCheckRequest> authorizationCheckStream(
+            StreamObserver<AuthorizationCheck.AuthorizationCheckResponse> responseObserver) {
+        StreamResponses responses = new StreamResponses(responseObserver);
+        streams.add(responses);
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(AuthorizationCheck.AuthorizationCheckRequest request) {
+                responses.received();
+                authorizationCheck(request, responses);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                streams.remove(responses);
+            }
+
+            @Override
+            public void onCompleted() {
+                responses.completeWhenAnswered();
+            }
+        };
+    }
+
+    private void answer(AuthorizationCheck.AuthorizationCheckRequest request,
+                        StreamObserver<AuthorizationCheck.AuthorizationCheckResponse> responseObserver) {
+        if (responseObserver instanceof StreamResponses stream) {
+            stream.answer(AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                    .setDecision(!DENIED.equals(request.getResource().getID()))
+                    .setRequestID(request.getRequestID())
+                    .build());
+            return;
+        }
+        Status status = failure;
+        if (status != null && failuresLeft.get() > 0 && failuresLeft.decrementAndGet() == 0) {
+            failure = null;
+        }
+        if (status != null) {
+            responseObserver.onError(status.asRuntimeException());
+            return;
+        }
+        AuthorizationCheck.AuthorizationCheckResponse.Builder response = AuthorizationCheck.AuthorizationCheckResponse.newBuilder()
+                .setDecision(!DENIED.equals(request.getResource().getID()))
+                .setRequestID(request.getRequestID());
+        for (AuthorizationCheck.EvaluationRequest evaluation : request.getEvaluationsList()) {
+            AuthorizationCheck.EvaluationResponse.Builder answer = AuthorizationCheck.EvaluationResponse.newBuilder()
+                    .setDecision(!DENIED.equals(evaluation.getResource().getID()));
+            if (echoRequestIds) {
+                answer.setRequestID(evaluation.getRequestID());
+            }
+            response.addEvaluations(answer);
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * The responses of a stream, which stay open until the client half-closes the stream and every check
+     * received on it is answered, or until the stream is ended by the test.
+     */
+    private final class StreamResponses implements StreamObserver<AuthorizationCheck.AuthorizationCheckResponse> {
+        private final StreamObserver<AuthorizationCheck.AuthorizationCheckResponse> observer;
+        private int outstanding;
+        private boolean halfClosed;
+        private boolean closed;
+
+        StreamResponses(StreamObserver<AuthorizationCheck.AuthorizationCheckResponse> observer) {
+            this.observer = observer;
+        }
+
+        synchronized void received() {
+            outstanding++;
+        }
+
+        synchronized void answer(AuthorizationCheck.AuthorizationCheckResponse response) {
+            outstanding--;
+            onNext(response);
+            if (halfClosed && outstanding == 0) {
+                onCompleted();
+            }
+        }
+
+        synchronized void completeWhenAnswered() {
+            halfClosed = true;
+            if (outstanding == 0) {
+                onCompleted();
+            }
+        }
+
+        @Override
+        public synchronized void onNext(AuthorizationCheck.AuthorizationCheckResponse response) {
+            if (!closed) {
+                observer.onNext(response);
+            }
+        }
+
+        @Override
+        public synchronized void onError(Throwable t) {
+            if (!closed) {
+                closed = true;
+                streams.remove(this);
+                observer.onError(t);
+            }
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            if (!closed) {
+                closed = true;
+                streams.remove(this);
+                observer.onCompleted();
+            }
+        }
+    }
+
+    private record Held(AuthorizationCheck.AuthorizationCheckRequest request,
+                        StreamObserver<AuthorizationCheck.AuthorizationCheckResponse> observer) {
+    }
+}
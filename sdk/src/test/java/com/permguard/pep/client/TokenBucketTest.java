@@ -0,0 +1,80 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the token bucket bounding hedges and retries.
+ */
+class TokenBucketTest {
+
+    @Test
+    void startsFullAndRunsDry() {
+        TokenBucket bucket = new TokenBucket(0.1, 3);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void refillsByTheRatioOfRegularCalls() {
+        TokenBucket bucket = new TokenBucket(0.1, 3);
+        drain(bucket);
+        for (int i = 0; i < 9; i++) {
+            bucket.deposit();
+        }
+        assertFalse(bucket.tryAcquire());
+        bucket.deposit();
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void refillIsCappedAtTheBurst() {
+        TokenBucket bucket = new TokenBucket(0.5, 2);
+        drain(bucket);
+        for (int i = 0; i < 100; i++) {
+            bucket.deposit();
+        }
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void neverRefillsWithZeroRatio() {
+        TokenBucket bucket = new TokenBucket(0.0, 1);
+        drain(bucket);
+        for (int i = 0; i < 100; i++) {
+            bucket.deposit();
+        }
+        assertFalse(bucket.tryAcquire());
+    }
+
+    private static void drain(TokenBucket bucket) {
+        while (bucket.tryAcquire()) {
+            // Take every saved-up token.
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.config;
+
+import io.grpc.Status;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the validation of the client configuration.
+ */
+class AZConfigTest {
+
+    private final AZConfig config = new AZConfig();
+
+    @Test
+    void rejectsInvalidBatchingSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setBatchMaxSize(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setBatchWindow(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setBatchWindow(Duration.ofMillis(-1)));
+        assertDoesNotThrow(() -> {
+            config.setBatchMaxSize(1);
+            config.setBatchWindow(Duration.ZERO);
+        });
+    }
+
+    @Test
+    void rejectsInvalidCacheSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setCacheMaxSize(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setCachePermitTtl(Duration.ofSeconds(-1)));
+        assertThrows(IllegalArgumentException.class, () -> config.setCacheDenyTtl(null));
+        assertDoesNotThrow(() -> {
+            config.setCacheMaxSize(1);
+            config.setCachePermitTtl(Duration.ZERO);
+            config.setCacheDenyTtl(Duration.ZERO);
+        });
+    }
+
+    @Test
+    void rejectsInvalidChannelCount() {
+        assertThrows(IllegalArgumentException.class, () -> config.setChannelCount(0));
+        assertDoesNotThrow(() -> {
+            config.setChannelCount(1);
+        });
+    }
+
+    @Test
+    void rejectsInvalidLoadBalancingSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setEndpoints(Arrays.asList(AZEndpoint.inProcess("pdp"), null)));
+        assertThrows(IllegalArgumentException.class, () -> config.setLoadBalancingPolicy(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setEjectionFailureThreshold(-1));
+        assertThrows(IllegalArgumentException.class, () -> config.setEjectionDuration(Duration.ofSeconds(-1)));
+        assertDoesNotThrow(() -> {
+            config.setEndpoints(null);
+            config.setEjectionFailureThreshold(0);
+            config.setEjectionDuration(Duration.ZERO);
+        });
+    }
+
+    @Test
+    void rejectsInvalidHedgingSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setHedgingDelayPercentile(101));
+        assertThrows(IllegalArgumentException.class, () -> config.setHedgingMinDelay(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setHedgingBudgetRatio(Double.NaN));
+        assertDoesNotThrow(() -> {
+            config.setHedgingDelayPercentile(100);
+            config.setHedgingBudgetRatio(0);
+        });
+    }
+
+    @Test
+    void rejectsInvalidDeadlineSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setDeadline(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> config.setAdaptiveDeadlinePercentile(-1));
+        assertThrows(IllegalArgumentException.class, () -> config.setAdaptiveDeadlineMultiplier(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setAdaptiveDeadlineMinimum(null));
+        assertDoesNotThrow(() -> {
+            config.setDeadline(null);
+        });
+        assertNull(config.getDeadline());
+    }
+
+    @Test
+    void rejectsInvalidRetrySettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setRetryMaxAttempts(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setRetryInitialBackoff(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setRetryBackoffMultiplier(0.5));
+        assertThrows(IllegalArgumentException.class, () -> config.setRetryableStatusCodes(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setRetryBudgetRatio(-0.1));
+        assertDoesNotThrow(() -> {
+            config.setRetryMaxAttempts(1);
+            config.setRetryableStatusCodes(Set.of(Status.Code.UNAVAILABLE));
+        });
+    }
+
+    @Test
+    void rejectsInvalidCircuitBreakerSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setCircuitBreakerFailureRateThreshold(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setCircuitBreakerSlowCallRateThreshold(1.5));
+        assertThrows(IllegalArgumentException.class, () -> config.setCircuitBreakerWindowSize(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setCircuitBreakerMinimumCalls(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setCircuitBreakerHalfOpenCalls(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setCircuitBreakerOpenDuration(null));
+        assertDoesNotThrow(() -> {
+            config.setCircuitBreakerFailureRateThreshold(1);
+        });
+    }
+
+    @Test
+    void rejectsInvalidConcurrencyLimitSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setConcurrencyLimitInitial(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setConcurrencyLimitMin(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setConcurrencyLimitMax(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setConcurrencyLimitQueueSize(-1));
+        assertDoesNotThrow(() -> {
+            config.setConcurrencyLimitQueueSize(0);
+        });
+    }
+
+    @Test
+    void rejectsInvalidStreamSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setStreamMaxPendingChecks(0));
+        assertDoesNotThrow(() -> {
+            config.setStreamMaxPendingChecks(1);
+        });
+    }
+
+    @Test
+    void rejectsInvalidEventLoopSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setEventLoopThreads(-1));
+        assertDoesNotThrow(() -> {
+            config.setEventLoopThreads(0);
+        });
+    }
+
+    @Test
+    void rejectedValueLeavesTheSettingUnchanged() {
+        config.setEventLoopThreads(4);
+        assertThrows(IllegalArgumentException.class, () -> config.setEventLoopThreads(-1));
+        assertEquals(4, config.getEventLoopThreads());
+    }
+
+    @Test
+    void rejectsInvalidCompressionSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setCompression("unknown"));
+        assertThrows(IllegalArgumentException.class, () -> config.setCompressionThreshold(-1));
+        assertDoesNotThrow(() -> {
+            config.setCompression("gzip");
+            config.setCompression(null);
+            config.setCompressionThreshold(0);
+        });
+    }
+
+    @Test
+    void rejectsInvalidEntityCacheSettings() {
+        assertThrows(IllegalArgumentException.class, () -> config.setEntityCacheMaxSize(-1));
+        assertDoesNotThrow(() -> {
+            config.setEntityCacheMaxSize(0);
+        });
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.model.request;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the immutable value types of the request model and of their interning.
+ */
+class ImmutableModelTest {
+
+    @Test
+    void equalValuesHaveEqualHashCodes() {
+        ImmutableSubject first = ImmutableSubject.copyOf(subject());
+        ImmutableSubject second = ImmutableSubject.copyOf(subject());
+        assertNotSame(first, second);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, ImmutableSubject.copyOf(new Subject("user", "bob", "keycloak", null)));
+    }
+
+    @Test
+    void valuesAreIsolatedFromTheSource() {
+        Subject subject = subject();
+        ImmutableSubject value = ImmutableSubject.copyOf(subject);
+        subject.setId("bob");
+        subject.getProperties().put("role", "guest");
+        roles(subject).add("guest");
+
+        assertEquals("amy", value.getId());
+        assertEquals("admin", value.getProperties().get("role"));
+        assertEquals(List.of("admin"), value.getProperties().get("roles"));
+        assertThrows(UnsupportedOperationException.class, () -> value.getProperties().put("role", "guest"));
+    }
+
+    @Test
+    void equalSetsBuiltInDifferentOrdersGiveEqualValues() {
+        Set<Object> first = new LinkedHashSet<>(List.of("admin", "auditor"));
+        Set<Object> second = new LinkedHashSet<>(List.of("auditor", "admin"));
+        ImmutableSubject firstValue = ImmutableSubject.copyOf(new Subject("user", "amy", "keycloak", Map.of("roles", first)));
+        ImmutableSubject secondValue = ImmutableSubject.copyOf(new Subject("user", "amy", "keycloak", Map.of("roles", second)));
+        assertEquals(firstValue, secondValue);
+        assertEquals(firstValue.hashCode(), secondValue.hashCode());
+        assertEquals(Set.of("admin", "auditor"), firstValue.getProperties().get("roles"));
+    }
+
+    @Test
+    void conversionBackGivesAMutableObject() {
+        ImmutableSubject value = ImmutableSubject.copyOf(subject());
+        Subject subject = value.toSubject();
+        subject.setId("bob");
+        subject.setProperties(Map.of());
+        assertEquals("amy", value.getId());
+        assertEquals(value, ImmutableSubject.copyOf(value.toSubject()));
+
+        ImmutableAZModel model = ImmutableAZModel.copyOf(new AZModel(1L, new PolicyStore("ledger", "store"),
+                new Principal("user", "amy", "keycloak", null, null), new Entities("cedar", List.of())));
+        AZModel mutable = model.toAZModel();
+        mutable.getPrincipal().setId("bob");
+        mutable.setZoneId(2L);
+        assertEquals("amy", model.getPrincipal().getId());
+        assertEquals(1L, model.getZoneId());
+    }
+
+    @Test
+    void copyOfNullIsNull() {
+        assertNull(ImmutableSubject.copyOf(null));
+        assertNull(ImmutableAZModel.copyOf(null));
+    }
+
+    @Test
+    void internerReturnsTheCanonicalValue() {
+        AZInterner interner = new AZInterner();
+        ImmutableSubject first = interner.intern(subject());
+        assertSame(first, interner.intern(subject()));
+        assertSame(first, interner.intern(ImmutableSubject.copyOf(subject())));
+        assertNotSame(first, new AZInterner().intern(subject()));
+    }
+
+    private static Subject subject() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("role", "admin");
+        properties.put("roles", new ArrayList<>(List.of("admin")));
+        return new Subject("user", "amy", "keycloak", properties);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> roles(Subject subject) {
+        return (List<Object>) subject.getProperties().get("roles");
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Struct;
+import com.google.protobuf.util.JsonFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Differential tests of {@link GrpcStructMapper#toGrpcStruct(Map)} against the previous conversion,
+ * which serialized the map with Jackson and parsed the JSON with the protobuf JSON parser.
+ */
+class GrpcStructMapperTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    enum Color { RED }
+
+    public static class Bean {
+        public String getName() {
+            return "bean";
+        }
+
+        public float getRatio() {
+            return 0.1f;
+        }
+
+        public List<Integer> getValues() {
+            return List.of(1, 2);
+        }
+    }
+
+    @Test
+    void convertsScalars() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("string", "text");
+        map.put("empty", "");
+        map.put("true", true);
+        map.put("false", false);
+        map.put("null", null);
+        map.put("byte", (byte) -7);
+        map.put("short", (short) 300);
+        map.put("int", Integer.MIN_VALUE);
+        map.put("long", Long.MAX_VALUE);
+        map.put("char", 'c');
+        assertSameAsJsonPath(map);
+    }
+
+    @Test
+    void convertsFloatAndDoubleEdgeValues() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        float[] floats = {0.1f, -0.0f, 1e-45f, Float.MIN_VALUE, Float.MAX_VALUE, 16777217f, 3.4e38f,
+                Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        double[] doubles = {0.1, -0.0, Double.MIN_VALUE, Double.MAX_VALUE, 1e300, 123456789.123456789,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = 0; i < floats.length; i++) {
+            map.put("float" + i, floats[i]);
+        }
+        for (int i = 0; i < doubles.length; i++) {
+            map.put("double" + i, doubles[i]);
+        }
+        assertSameAsJsonPath(map);
+    }
+
+    @Test
+    void convertsBigNumbers() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("decimal", new BigDecimal("0.1"));
+        map.put("largeDecimal", new BigDecimal("12345678901234567890.123456789"));
+        map.put("smallDecimal", new BigDecimal("1E-400"));
+        map.put("integer", new BigInteger("123456789012345678901234567890"));
+        map.put("negativeInteger", BigInteger.valueOf(Long.MIN_VALUE).subtract(BigInteger.TEN));
+        assertSameAsJsonPath(map);
+    }
+
+    @Test
+    void convertsNestedMapsListsAndArrays() throws Exception {
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("list", Arrays.asList(1, "two", null, 3.5f, List.of(true)));
+        inner.put("objects", new Object[]{1L, "x", new Object[]{Double.NaN}});
+        inner.put("ints", new int[]{1, 2, 3});
+        inner.put("doubles", new double[]{0.1, Double.POSITIVE_INFINITY});
+        inner.put("strings", new String[]{"a", null});
+        inner.put("empty", new HashMap<>());
+        Map<String, Object> map = new HashMap<>();
+        map.put("inner", inner);
+        map.put("deep", Map.of("a", Map.of("b", Map.of("c", List.of(Map.of("d", 1))))));
+        assertSameAsJsonPath(map);
+    }
+
+    @Test
+    void convertsPojoAndOtherValuesThroughJackson() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("bean", new Bean());
+        map.put("enum", Color.RED);
+        map.put("bytes", new byte[]{1, 2, 3});
+        map.put("date", LocalDate.of(2024, 1, 2).toString());
+        map.put("nonStringKeys", new TreeMap<>(Map.of(1, "one", 2, 0.5f)));
+        assertSameAsJsonPath(map);
+    }
+
+    @Test
+    void convertsPropertyMapWithUnboxedValues() throws Exception {
+        PropertyMap properties = new PropertyMap();
+        properties.putBoolean("flag", true);
+        properties.putLong("count", Long.MIN_VALUE);
+        properties.putDouble("ratio", 0.1);
+        properties.putDouble("nan", Double.NaN);
+        properties.putDouble("infinity", Double.NEGATIVE_INFINITY);
+        properties.put("nested", new PropertyMap(Map.of("x", 1)));
+        properties.put("float", 0.1f);
+        assertSameAsJsonPath(properties);
+        assertEquals(GrpcStructMapper.toGrpcStruct(new HashMap<>(properties)), GrpcStructMapper.toGrpcStruct(properties));
+    }
+
+    @Test
+    void convertsRandomMaps() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            assertSameAsJsonPath(randomMap(random, 3));
+        }
+    }
+
+    @Test
+    void failsOnNullMapAndNullKeyAsBefore() {
+        Map<String, Object> nullKey = new HashMap<>();
+        nullKey.put(null, 1);
+        for (Map<String, Object> map : Arrays.asList(null, nullKey)) {
+            // The previous conversion failed with an IOException, which it wrapped in this message.
+            assertThrows(IOException.class, () -> jsonPath(map));
+            RuntimeException actual = assertThrows(RuntimeException.class, () -> GrpcStructMapper.toGrpcStruct(map));
+            assertTrue(actual.getMessage().endsWith("Failed to convert Map to Struct"), actual.getMessage());
+        }
+    }
+
+    private static void assertSameAsJsonPath(Map<String, Object> map) throws Exception {
+        assertEquals(jsonPath(map), GrpcStructMapper.toGrpcStruct(map), () -> "Different conversion of " + map);
+    }
+
+    /**
+     * The conversion used before GrpcStructMapper converted maps directly.
+     */
+    private static Struct jsonPath(Map<String, Object> map) throws Exception {
+        String json = objectMapper.writeValueAsString(map);
+        Struct.Builder structBuilder = Struct.newBuilder();
+        JsonFormat.parser().merge(json, structBuilder);
+        return structBuilder.build();
+    }
+
+    private static Map<String, Object> randomMap(Random random, int depth) {
+        Map<String, Object> map = new HashMap<>();
+        int size = random.nextInt(6);
+        for (int i = 0; i < size; i++) {
+            map.put("key" + random.nextInt(10), randomValue(random, depth));
+        }
+        return map;
+    }
+
+    private static Object randomValue(Random random, int depth) {
+        switch (random.nextInt(depth > 0 ? 10 : 8)) {
+            case 0:
+                return null;
+            case 1:
+                return random.nextBoolean();
+            case 2:
+                return random.nextInt();
+            case 3:
+                return random.nextLong();
+            case 4:
+                return random.nextFloat() * Math.pow(10, random.nextInt(20) - 10);
+            case 5:
+                return random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+            case 6:
+                return "s" + random.nextInt(100);
+            case 7:
+                return new BigDecimal(random.nextInt()).movePointLeft(random.nextInt(10));
+            case 8:
+                return randomMap(random, depth - 1);
+            default: {
+                List<Object> list = new ArrayList<>();
+                int size = random.nextInt(4);
+                for (int i = 0; i < size; i++) {
+                    list.add(randomValue(random, depth - 1));
+                }
+                return list;
+            }
+        }
+    }
+}
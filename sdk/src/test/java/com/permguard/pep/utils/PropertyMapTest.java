@@ -0,0 +1,91 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.utils;
+
+import com.google.protobuf.Struct;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Tests of the unboxed values of the property map.
+ */
+class PropertyMapTest {
+
+    @Test
+    void unboxedValuesAreReadBackWithTheirBoxedType() {
+        PropertyMap properties = new PropertyMap();
+        properties.putInt("int", -7);
+        properties.putLong("long", 1L << 40);
+        properties.putDouble("double", 0.5);
+        properties.putBoolean("boolean", true);
+
+        assertEquals(-7, (Integer) properties.get("int"));
+        assertEquals(1L << 40, (Long) properties.get("long"));
+        assertEquals(0.5, (Double) properties.get("double"));
+        assertEquals(true, properties.get("boolean"));
+        assertInstanceOf(Integer.class, new PropertyMap(properties).get("int"));
+    }
+
+    @Test
+    void unboxedValuesEqualTheirBoxedForms() {
+        PropertyMap properties = new PropertyMap();
+        properties.putInt("int", -7);
+        properties.putLong("long", -8L);
+        properties.putDouble("double", 0.5);
+        Map<String, Object> boxed = new HashMap<>();
+        boxed.put("int", -7);
+        boxed.put("long", -8L);
+        boxed.put("double", 0.5);
+
+        assertEquals(boxed, properties);
+        assertEquals(properties, boxed);
+        assertEquals(boxed.hashCode(), properties.hashCode());
+    }
+
+    @Test
+    void unboxedValuesConvertLikeTheirBoxedForms() {
+        PropertyMap properties = new PropertyMap();
+        properties.putInt("int", Integer.MIN_VALUE);
+        properties.putLong("long", 42L);
+        properties.putDouble("double", Double.NaN);
+        Map<String, Object> boxed = new HashMap<>();
+        boxed.put("int", Integer.MIN_VALUE);
+        boxed.put("long", 42L);
+        boxed.put("double", Double.NaN);
+
+        Struct expected = GrpcStructMapper.toGrpcStruct(boxed);
+        assertEquals(expected, GrpcStructMapper.toGrpcStruct(properties));
+    }
+
+    @Test
+    void putReplacesAnUnboxedValue() {
+        PropertyMap properties = new PropertyMap();
+        properties.putInt("key", 1);
+        properties.putLong("key", 2L);
+        assertEquals(2L, properties.get("key"));
+        assertEquals(2L, properties.put("key", "value"));
+        assertEquals("value", properties.get("key"));
+        assertEquals(1, properties.size());
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ *   Copyright 2024 Nitro Agility S.r.l.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+  */
+
+package com.permguard.pep.utils;
+
+import com.google.protobuf.ListValue;
+import com.google.protobuf.NullValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the read-only Map view over a Protobuf Struct.
+ */
+class StructMapTest {
+
+    @Test
+    void getConvertsOnlyTheAccessedValue() {
+        Struct struct = struct();
+        StructMap map = new StructMap(struct);
+
+        assertEquals("amy", map.get("name"));
+        assertEquals(3.0, map.get("count"));
+        assertEquals(true, map.get("active"));
+        assertNull(map.get("none"));
+        assertTrue(map.containsKey("none"));
+        assertNull(map.get("missing"));
+        assertFalse(map.containsKey("missing"));
+        assertNull(map.get(1));
+        assertEquals(6, map.size());
+        assertSame(struct, map.getStruct());
+
+        StructMap nested = assertInstanceOf(StructMap.class, map.get("nested"));
+        assertSame(struct.getFieldsOrThrow("nested").getStructValue(), nested.getStruct());
+        assertNotSame(nested, map.get("nested"));
+    }
+
+    @Test
+    void nestedStructsAndListsAreViews() {
+        StructMap map = new StructMap(struct());
+
+        Map<?, ?> nested = (Map<?, ?>) map.get("nested");
+        assertEquals("Platform::Subscription", nested.get("type"));
+        List<?> tags = (List<?>) map.get("tags");
+        assertEquals(3, tags.size());
+        assertEquals("a", tags.get(0));
+        assertEquals(2.0, tags.get(1));
+        StructMap inList = assertInstanceOf(StructMap.class, tags.get(2));
+        assertEquals(List.of("b"), inList.get("roles"));
+    }
+
+    @Test
+    void equalsAndHashCodeMatchAHashMap() {
+        StructMap map = new StructMap(struct());
+        Map<String, Object> expected = expected();
+
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(new StructMap(struct()), map);
+
+        expected.put("name", "bob");
+        assertFalse(map.equals(expected));
+        assertFalse(expected.equals(map));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void materializeCreatesAMutableDeepCopy() {
+        StructMap map = new StructMap(struct());
+        Map<String, Object> copy = map.materialize();
+
+        assertInstanceOf(LinkedHashMap.class, copy);
+        assertEquals(expected(), copy);
+        Map<String, Object> nested = assertInstanceOf(LinkedHashMap.class, copy.get("nested"));
+        List<Object> tags = assertInstanceOf(ArrayList.class, copy.get("tags"));
+        assertInstanceOf(LinkedHashMap.class, tags.get(2));
+
+        copy.put("name", "bob");
+        nested.put("type", "Platform::Invoice");
+        tags.add("c");
+        assertEquals("amy", map.get("name"));
+        assertEquals("Platform::Subscription", ((Map<?, ?>) map.get("nested")).get("type"));
+        assertEquals(3, ((List<?>) map.get("tags")).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mutatorsThrow() {
+        StructMap map = new StructMap(struct());
+
+        assertThrows(UnsupportedOperationException.class, () -> map.put("name", "bob"));
+        assertThrows(UnsupportedOperationException.class, () -> map.remove("name"));
+        assertThrows(UnsupportedOperationException.class, map::clear);
+        assertThrows(UnsupportedOperationException.class, () -> map.putAll(Map.of("name", "bob")));
+        assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().remove());
+        assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue("bob"));
+        assertThrows(UnsupportedOperationException.class, () -> ((List<Object>) map.get("tags")).add("c"));
+        assertThrows(UnsupportedOperationException.class, () -> ((List<Object>) map.get("tags")).set(0, "c"));
+        assertThrows(UnsupportedOperationException.class, () -> ((Map<String, Object>) map.get("nested")).put("id", "x"));
+        assertEquals(6, map.size());
+    }
+
+    private static Struct struct() {
+        Struct roles = Struct.newBuilder()
+                .putFields("roles", Value.newBuilder().setListValue(ListValue.newBuilder()
+                        .addValues(Value.newBuilder().setStringValue("b"))).build())
+                .build();
+        return Struct.newBuilder()
+                .putFields("name", Value.newBuilder().setStringValue("amy").build())
+                .putFields("count", Value.newBuilder().setNumberValue(3).build())
+                .putFields("active", Value.newBuilder().setBoolValue(true).build())
+                .putFields("none", Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build())
+                .putFields("nested", Value.newBuilder().setStructValue(Struct.newBuilder()
+                        .putFields("type", Value.newBuilder().setStringValue("Platform::Subscription").build())).build())
+                .putFields("tags", Value.newBuilder().setListValue(ListValue.newBuilder()
+                        .addValues(Value.newBuilder().setStringValue("a"))
+                        .addValues(Value.newBuilder().setNumberValue(2))
+                        .addValues(Value.newBuilder().setStructValue(roles))).build())
+                .build();
+    }
+
+    private static Map<String, Object> expected() {
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("name", "amy");
+        expected.put("count", 3.0);
+        expected.put("active", true);
+        expected.put("none", null);
+        expected.put("nested", Map.of("type", "Platform::Subscription"));
+        expected.put("tags", List.of("a", 2.0, Map.of("roles", List.of("b"))));
+        return expected;
+    }
+}